@@ -0,0 +1,63 @@
+// Carga mista (listagem + depósito + criação/pagamento de cobrança) para comparar
+// threads de plataforma x threads virtuais.
+//
+//   VIRTUAL_THREADS_ENABLED=false ./gradlew bootRun   # modo plataforma
+//   VIRTUAL_THREADS_ENABLED=true  ./gradlew bootRun   # modo virtual
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=400 load/k6-gateway.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const JSON_HEADERS = { 'Content-Type': 'application/json' };
+
+export const options = {
+    scenarios: {
+        mixed: {
+            executor: 'constant-vus',
+            vus: Number(__ENV.VUS || 200),
+            duration: __ENV.DURATION || '60s',
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+function cpf() {
+    const d = Array.from({ length: 9 }, () => Math.floor(Math.random() * 10));
+    for (const len of [9, 10]) {
+        let sum = 0;
+        for (let i = 0; i < len; i++) sum += d[i] * (len + 1 - i);
+        const dv = 11 - (sum % 11);
+        d.push(dv > 9 ? 0 : dv);
+    }
+    return d.join('');
+}
+
+function user() {
+    const doc = cpf();
+    const body = { name: `load-${doc}`, cpf: doc, email: `${doc}@load.test`, password: 'Secr3t@123' };
+    http.post(`${BASE_URL}/api/v1/users/register`, JSON.stringify(body), { headers: JSON_HEADERS });
+    const res = http.post(`${BASE_URL}/api/v1/users/login`,
+        JSON.stringify({ username: doc, password: body.password }), { headers: JSON_HEADERS });
+    return { cpf: doc, headers: { ...JSON_HEADERS, Authorization: `Bearer ${res.json('token')}` } };
+}
+
+export function setup() {
+    return { originator: user(), payer: user() };
+}
+
+export default function ({ originator, payer }) {
+    const list = http.get(`${BASE_URL}/api/v1/charges/received?status=PENDING`, { headers: payer.headers });
+    check(list, { 'listagem 200': (r) => r.status === 200 });
+
+    http.post(`${BASE_URL}/api/v1/payments/deposit`, JSON.stringify({ amount: 10.00 }), { headers: payer.headers });
+
+    const charge = http.post(`${BASE_URL}/api/v1/charges`,
+        JSON.stringify({ recipientCpf: payer.cpf, amount: 1.00, description: 'load' }), { headers: originator.headers });
+    if (charge.status === 200) {
+        const pay = http.post(`${BASE_URL}/api/v1/payments/pay`,
+            JSON.stringify({ chargeId: charge.json('id'), method: 'BALANCE' }), { headers: payer.headers });
+        check(pay, { 'pagamento 200': (r) => r.status === 200 });
+    }
+}
@@ -0,0 +1,48 @@
+package com.nimble.gateway.dto;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.nimble.gateway.dto.response.ChargeResponse;
+import com.nimble.gateway.enums.ChargeStatus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialização de uma lista de {@link ChargeResponse} com o ObjectMapper configurado como o do Spring Boot,
+ * no tamanho padrão e no máximo de uma página.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChargeResponseJsonBenchmark {
+
+    @Param({"50", "500"})
+    public int size;
+
+    private ObjectWriter writer;
+    private List<ChargeResponse> charges;
+
+    @Setup
+    public void setUp() {
+        var mapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = mapper.writerFor(TypeFactory.defaultInstance().constructCollectionType(List.class, ChargeResponse.class));
+        OffsetDateTime now = OffsetDateTime.now();
+        charges = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            charges.add(ChargeResponse.builder().id((long) i).originatorCpf("39053344705").recipientCpf("44014614018")
+                    .amount(new BigDecimal("150.00")).description("Consultoria").status(ChargeStatus.PAID)
+                    .createdAt(now).paidAt(now).build());
+        }
+    }
+
+    @Benchmark
+    public byte[] writeList() throws Exception {
+        return writer.writeValueAsBytes(charges);
+    }
+}
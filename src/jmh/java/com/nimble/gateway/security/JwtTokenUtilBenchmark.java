@@ -0,0 +1,55 @@
+package com.nimble.gateway.security;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de autenticação por requisição: parser criado a cada chamada (como era), parser único
+ * sem cache e parser único com cache de tokens verificados; e a emissão do token no login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtTokenUtilBenchmark {
+
+    private static final String SECRET = "f6c7a5a8d1b24c0bb1d0a52e3aa9e82d58f3a7f9a1b2c3d4e5f6a7b8c9d0e1f2";
+
+    private Key key;
+    private JwtParser sharedParser;
+    private JwtTokenUtil jwt;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        sharedParser = Jwts.parserBuilder().setSigningKey(key).build();
+        jwt = new JwtTokenUtil(SECRET, 3600000, 100000);
+        token = jwt.generateToken("39053344705");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwt.generateToken("39053344705");
+    }
+
+    @Benchmark
+    public String parserPerCall() {
+        return Jwts.parserBuilder().setSigningKey(key).build()
+                .parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String sharedParser() {
+        return sharedParser.parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String cachedVerification() {
+        return jwt.getSubject(token);
+    }
+}
@@ -0,0 +1,57 @@
+package com.nimble.gateway.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aritmética de saldo em BigDecimal (escala 2) como no pagamento em lote (PaymentServiceImpl#settle): consome
+ * o saldo disponível na ordem do lote e soma os débitos; e a soma de lançamentos do razão sobre um snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BalanceArithmeticBenchmark {
+
+    static final int ITEMS = 500;
+
+    private BigDecimal[] amounts;
+    private BigDecimal[] entries;
+    private BigDecimal balance;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        amounts = new BigDecimal[ITEMS];
+        entries = new BigDecimal[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            amounts[i] = BigDecimal.valueOf(1 + random.nextInt(100_000), 2);
+            entries[i] = BigDecimal.valueOf(random.nextInt(200_000) - 100_000, 2);
+        }
+        // cobre mais ou menos metade do lote
+        balance = BigDecimal.valueOf(ITEMS * 50_000L / 2, 2);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public BigDecimal fundBatch() {
+        BigDecimal available = balance;
+        BigDecimal fromPayer = BigDecimal.ZERO;
+        for (BigDecimal amount : amounts) {
+            if (available.compareTo(amount) < 0) continue;
+            available = available.subtract(amount);
+            fromPayer = fromPayer.add(amount);
+        }
+        return fromPayer.negate();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public BigDecimal replayEntries() {
+        BigDecimal total = balance;
+        for (BigDecimal entry : entries) total = total.add(entry);
+        return total;
+    }
+}
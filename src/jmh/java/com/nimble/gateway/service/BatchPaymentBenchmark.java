@@ -0,0 +1,78 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.dto.request.BatchPaymentRequest;
+import com.nimble.gateway.dto.request.PaymentRequest;
+import com.nimble.gateway.enums.PaymentMethod;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tempo para pagar {@value #CHARGES} cobranças com saldo: uma a uma ({@code chargesPerCall=1}, o laço que os
+ * clientes fazem hoje) x pelo pagamento em lote com 100 ou 500 itens por chamada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BatchPaymentBenchmark {
+
+    static final int CHARGES = 500;
+
+    @Param({"1", "100", "500"})
+    public int chargesPerCall;
+
+    private EmbeddedGateway gateway;
+    private PaymentService paymentService;
+
+    private long originatorId;
+    private long payerId;
+    private String payerCpf;
+    private List<Long> pending;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        gateway = EmbeddedGateway.start();
+        paymentService = gateway.context.getBean(PaymentService.class);
+
+        payerCpf = "39053344705";
+        originatorId = gateway.insertUser("44014614018", "0");
+        payerId = gateway.insertUser(payerCpf, "1000000000");
+    }
+
+    @Setup(Level.Iteration)
+    public void createCharges() {
+        pending = gateway.insertCharges(originatorId, payerId, CHARGES);
+    }
+
+    private PaymentRequest balancePayment(Long chargeId) {
+        PaymentRequest req = new PaymentRequest();
+        req.setChargeId(chargeId);
+        req.setMethod(PaymentMethod.BALANCE);
+        return req;
+    }
+
+    @Benchmark
+    public int payAll() {
+        int paid = 0;
+        if (chargesPerCall == 1) {
+            for (Long id : pending) {
+                paymentService.pay(payerCpf, balancePayment(id));
+                paid++;
+            }
+            return paid;
+        }
+        for (int from = 0; from < CHARGES; from += chargesPerCall) {
+            BatchPaymentRequest req = new BatchPaymentRequest();
+            req.setItems(pending.subList(from, Math.min(CHARGES, from + chargesPerCall)).stream()
+                    .map(this::balancePayment).toList());
+            paid += paymentService.payBatch(payerCpf, req).getPaid();
+        }
+        return paid;
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        gateway.close();
+    }
+}
@@ -0,0 +1,68 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.dto.request.BatchChargeRequest;
+import com.nimble.gateway.dto.request.ChargeRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tempo para criar {@value #CHARGES} cobranças em uma chamada ao lote, com os inserts um a um
+ * ({@code batchSize=1}) x agrupados em batches do JDBC reescritos pelo driver ({@code batchSize=500}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ChargeBatchBenchmark {
+
+    static final int CHARGES = 10_000;
+    static final int RECIPIENTS = 100;
+
+    @Param({"1", "500"})
+    public int batchSize;
+
+    private EmbeddedGateway gateway;
+    private ChargeService chargeService;
+
+    private String originatorCpf;
+    private BatchChargeRequest request;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        gateway = EmbeddedGateway.start("--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize);
+        chargeService = gateway.context.getBean(ChargeService.class);
+
+        originatorCpf = "44014614018";
+        gateway.insertUser(originatorCpf, "0");
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < RECIPIENTS; i++) {
+            String cpf = String.valueOf(30_000_000_000L + i);
+            gateway.insertUser(cpf, "0");
+            recipients.add(cpf);
+        }
+
+        List<ChargeRequest> items = new ArrayList<>(CHARGES);
+        for (int i = 0; i < CHARGES; i++) {
+            ChargeRequest item = new ChargeRequest();
+            item.setRecipientCpf(recipients.get(i % RECIPIENTS));
+            item.setAmount(new BigDecimal("1.00"));
+            item.setDescription("bench");
+            items.add(item);
+        }
+        request = new BatchChargeRequest();
+        request.setItems(items);
+    }
+
+    @Benchmark
+    public int createAll() {
+        return chargeService.createBatch(originatorCpf, request).getCreated();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        gateway.close();
+    }
+}
@@ -0,0 +1,80 @@
+package com.nimble.gateway.service;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Busca pontual por CPF com a coluna em varchar (esquema anterior a V4) x bigint, numa tabela com o mesmo
+ * formato de {@code users} e {@code rows} contas. O tamanho do índice único sai no log do setup.
+ * Com 10 milhões de linhas o setup leva alguns minutos por parâmetro.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CpfKeyBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(CpfKeyBenchmark.class);
+    private static final long FIRST_CPF = 10_000_000_000L;
+
+    @Param({"varchar", "bigint"})
+    public String keyType;
+
+    @Param({"10000000"})
+    public int rows;
+
+    private EmbeddedPostgres postgres;
+    private Connection connection;
+    private PreparedStatement lookup;
+    private boolean numeric;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        numeric = "bigint".equals(keyType);
+        postgres = EmbeddedGateway.startPostgres();
+        connection = postgres.getPostgresDatabase().getConnection();
+        String cpf = numeric ? "g + " + FIRST_CPF : "(g + " + FIRST_CPF + ")::text";
+        try (Statement st = connection.createStatement()) {
+            st.execute("create table bench_users (id bigserial primary key, name varchar(255) not null, cpf "
+                    + keyType + " not null, email varchar(255) not null)");
+            st.execute("insert into bench_users (name, cpf, email) select 'u' || g, " + cpf
+                    + ", 'u' || g || '@bench.test' from generate_series(1, " + rows + ") g");
+            st.execute("create unique index uk_bench_users_cpf on bench_users (cpf)");
+            st.execute("vacuum analyze bench_users");
+            try (ResultSet rs = st.executeQuery(
+                    "select pg_size_pretty(pg_relation_size('uk_bench_users_cpf')), pg_relation_size('uk_bench_users_cpf')")) {
+                rs.next();
+                log.info("[{}] índice uk_bench_users_cpf com {} linhas: {} ({} bytes)",
+                        keyType, rows, rs.getString(1), rs.getLong(2));
+            }
+        }
+        lookup = connection.prepareStatement("select id from bench_users where cpf = ?");
+    }
+
+    @Benchmark
+    public long findByCpf() throws SQLException {
+        long cpf = FIRST_CPF + 1 + ThreadLocalRandom.current().nextInt(rows);
+        // mesma ligação do repositório: número no esquema novo, texto no antigo
+        if (numeric) lookup.setLong(1, cpf);
+        else lookup.setString(1, Long.toString(cpf));
+        try (ResultSet rs = lookup.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        connection.close();
+        postgres.close();
+    }
+}
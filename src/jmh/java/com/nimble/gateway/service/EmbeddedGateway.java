@@ -0,0 +1,71 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.NimbleGatewayApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A aplicação inteira contra um PostgreSQL embarcado, para os benchmarks de ponta a ponta.
+ */
+final class EmbeddedGateway implements AutoCloseable {
+
+    private final EmbeddedPostgres postgres;
+    final ConfigurableApplicationContext context;
+    final JdbcTemplate jdbc;
+
+    private EmbeddedGateway(EmbeddedPostgres postgres, ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.context = context;
+        this.jdbc = context.getBean(JdbcTemplate.class);
+    }
+
+    // o jar do JMH e o classpath do fork trazem os mesmos binários; resolve direto pelo classloader
+    static EmbeddedPostgres startPostgres() throws IOException {
+        return EmbeddedPostgres.builder()
+                .setPgBinaryResolver((system, arch) -> EmbeddedGateway.class
+                        .getResourceAsStream("/postgres-" + system.toLowerCase() + "-" + arch + ".txz"))
+                .start();
+    }
+
+    static EmbeddedGateway start(String... args) throws IOException {
+        EmbeddedPostgres postgres = startPostgres();
+        String[] defaults = {
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.level.com.nimble.gateway=WARN"
+        };
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(NimbleGatewayApplication.class)
+                .run(Stream.concat(Stream.of(defaults), Stream.of(args)).toArray(String[]::new));
+        return new EmbeddedGateway(postgres, context);
+    }
+
+    long insertUser(String cpf, String balance) {
+        return jdbc.queryForObject("""
+                insert into users (name, cpf, email, password_hash, balance)
+                values (?, cast(? as bigint), ?, 'x', cast(? as numeric)) returning id
+                """, Long.class, "bench-" + cpf, cpf, cpf + "@bench.test", balance);
+    }
+
+    List<Long> insertCharges(long originatorId, long recipientId, int count) {
+        return jdbc.queryForList("""
+                insert into charges (id, originator_id, recipient_id, amount, status, description, created_at)
+                select nextval('charges_seq'), ?, ?, 1.00, 'PENDING', 'bench', now() from generate_series(1, ?)
+                returning id
+                """, Long.class, originatorId, recipientId, count);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        postgres.close();
+    }
+}
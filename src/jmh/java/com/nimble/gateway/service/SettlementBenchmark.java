@@ -0,0 +1,67 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.dto.request.PaymentRequest;
+import com.nimble.gateway.enums.PaymentMethod;
+import com.nimble.gateway.service.impl.FastPathPaymentService;
+import com.nimble.gateway.service.impl.PaymentServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pagamento com saldo pelo caminho JPA x função de liquidação no banco, contra um PostgreSQL embarcado.
+ * Cada iteração paga um lote de {@value #BATCH} cobranças pendentes criadas no setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(batchSize = SettlementBenchmark.BATCH)
+@Measurement(batchSize = SettlementBenchmark.BATCH)
+public class SettlementBenchmark {
+
+    static final int BATCH = 500;
+
+    @Param({"jpa", "fastPath"})
+    public String path;
+
+    private EmbeddedGateway gateway;
+    private PaymentService paymentService;
+
+    private long originatorId;
+    private long payerId;
+    private String payerCpf;
+    private List<Long> pending;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        gateway = EmbeddedGateway.start("--payments.fastPath=true");
+        paymentService = "jpa".equals(path)
+                ? gateway.context.getBean(PaymentServiceImpl.class)
+                : gateway.context.getBean(FastPathPaymentService.class);
+
+        payerCpf = "39053344705";
+        originatorId = gateway.insertUser("44014614018", "0");
+        payerId = gateway.insertUser(payerCpf, "1000000000");
+    }
+
+    @Setup(Level.Iteration)
+    public void createCharges() {
+        pending = gateway.insertCharges(originatorId, payerId, BATCH);
+        next = 0;
+    }
+
+    @Benchmark
+    public void payWithBalance() {
+        PaymentRequest req = new PaymentRequest();
+        req.setChargeId(pending.get(next++));
+        req.setMethod(PaymentMethod.BALANCE);
+        paymentService.pay(payerCpf, req);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        gateway.close();
+    }
+}
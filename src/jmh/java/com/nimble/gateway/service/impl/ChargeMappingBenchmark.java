@@ -0,0 +1,46 @@
+package com.nimble.gateway.service.impl;
+
+import com.nimble.gateway.dto.response.ChargeResponse;
+import com.nimble.gateway.entity.Charge;
+import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.ChargeStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ChargeServiceImpl#toResponse(Charge)} sobre uma página padrão de cobranças já carregadas, com
+ * originador e destinatário (o caminho do cancelamento e do pagamento).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChargeMappingBenchmark {
+
+    private List<Charge> charges;
+
+    @Setup
+    public void setUp() {
+        User originator = User.builder().id(1L).cpf("39053344705").build();
+        User recipient = User.builder().id(2L).cpf("44014614018").build();
+        OffsetDateTime now = OffsetDateTime.now();
+        charges = new ArrayList<>(ChargeServiceImpl.DEFAULT_PAGE_SIZE);
+        for (int i = 0; i < ChargeServiceImpl.DEFAULT_PAGE_SIZE; i++) {
+            charges.add(Charge.builder().id((long) i).originator(originator).recipient(recipient)
+                    .amount(new BigDecimal("150.00")).description("Consultoria").status(ChargeStatus.PAID)
+                    .createdAt(now).paidAt(now).build());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ChargeServiceImpl.DEFAULT_PAGE_SIZE)
+    public List<ChargeResponse> toResponse() {
+        List<ChargeResponse> page = new ArrayList<>(charges.size());
+        for (Charge c : charges) page.add(ChargeServiceImpl.toResponse(c));
+        return page;
+    }
+}
@@ -0,0 +1,98 @@
+package com.nimble.gateway.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validação por regex (como era) x uma passada sem alocação, por CPF e em uma coluna de {@value #COLUMN}
+ * CPFs. Rodar com {@code -prof gc} mostra a alocação por operação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CpfValidatorBenchmark {
+
+    static final int COLUMN = 10_000;
+
+    @Param({"valid", "invalid", "formatted"})
+    public String input;
+
+    private String cpf;
+    private List<String> column;
+    private boolean[] valid;
+
+    @Setup
+    public void setUp() {
+        cpf = switch (input) {
+            case "valid" -> "39053344705";
+            case "invalid" -> "39053344704";
+            case "formatted" -> "390.533.447-05";
+            default -> throw new IllegalArgumentException(input);
+        };
+        // mesma forma da entrada do parâmetro; um terço com verificador errado
+        Random random = new Random(42);
+        column = new ArrayList<>(COLUMN);
+        for (int i = 0; i < COLUMN; i++) {
+            String digits = Cpf.format(random.nextLong(100_000_000_000L));
+            if (i % 3 != 0) digits = withCheckDigits(digits);
+            column.add("formatted".equals(input) ? digits.substring(0, 3) + '.' + digits.substring(3, 6) + '.'
+                    + digits.substring(6, 9) + '-' + digits.substring(9) : digits);
+        }
+        valid = new boolean[COLUMN];
+    }
+
+    private static String withCheckDigits(String digits) {
+        int sum = 0;
+        for (int i = 0; i < 9; i++) sum += (digits.charAt(i) - '0') * (10 - i);
+        int d1 = 11 - sum % 11 > 9 ? 0 : 11 - sum % 11;
+        sum = d1 * 2;
+        for (int i = 0; i < 9; i++) sum += (digits.charAt(i) - '0') * (11 - i);
+        int d2 = 11 - sum % 11 > 9 ? 0 : 11 - sum % 11;
+        return digits.substring(0, 9) + d1 + d2;
+    }
+
+    // implementação anterior de CpfValidator.isValid
+    static boolean regexIsValid(String cpf) {
+        if (cpf == null) return false;
+        cpf = cpf.replaceAll("\\D", "");
+        if (cpf.length() != 11) return false;
+        if (cpf.matches("(\\d)\\1{10}")) return false;
+        try {
+            int sum=0; for(int i=0;i<9;i++) sum += (cpf.charAt(i)-'0')*(10-i);
+            int d1 = 11 - (sum % 11); d1 = (d1>9)?0:d1;
+            sum=0; for(int i=0;i<10;i++) sum += (cpf.charAt(i)-'0')*(11-i);
+            int d2 = 11 - (sum % 11); d2 = (d2>9)?0:d2;
+            return d1==(cpf.charAt(9)-'0') && d2==(cpf.charAt(10)-'0');
+        } catch(Exception e){ return false; }
+    }
+
+    @Benchmark
+    public boolean regex() {
+        return regexIsValid(cpf);
+    }
+
+    @Benchmark
+    public boolean singlePass() {
+        return CpfValidator.isValid(cpf);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COLUMN)
+    public int regexColumn() {
+        int count = 0;
+        for (int i = 0; i < COLUMN; i++) {
+            if (valid[i] = regexIsValid(column.get(i))) count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COLUMN)
+    public int singlePassColumn() {
+        return CpfValidator.validate(column, valid);
+    }
+}
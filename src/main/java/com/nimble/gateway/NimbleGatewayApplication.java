@@ -1,13 +1,18 @@
 package com.nimble.gateway;
 
+import com.nimble.gateway.config.LedgerReplayRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 public class NimbleGatewayApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(NimbleGatewayApplication.class, args);
+		ConfigurableApplicationContext context = SpringApplication.run(NimbleGatewayApplication.class, args);
+		// execução de ferramenta (--ledger.replay): encerra com o código de saída dela em vez de seguir servindo
+		if (context.getBeanProvider(LedgerReplayRunner.class).getIfAvailable() != null)
+			System.exit(SpringApplication.exit(context));
 	}
 
 }
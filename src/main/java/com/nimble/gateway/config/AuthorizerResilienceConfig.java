@@ -0,0 +1,69 @@
+package com.nimble.gateway.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class AuthorizerResilienceConfig {
+
+    public static final String AUTHORIZER = "authorizer";
+
+    /**
+     * O circuito envolve o bulkhead, então a recusa local por excesso de concorrência passaria pelo breaker como
+     * falha; ela é ignorada para que um pico de carga não abra o circuito com o autorizador saudável.
+     */
+    @Bean
+    public CircuitBreaker authorizerCircuitBreaker(MeterRegistry meterRegistry,
+                                                   @Value("${authorizer.circuitBreaker.failureRateThreshold:50}") float failureRateThreshold,
+                                                   @Value("${authorizer.circuitBreaker.slowCallDurationMs:2000}") long slowCallDurationMs,
+                                                   @Value("${authorizer.circuitBreaker.slowCallRateThreshold:80}") float slowCallRateThreshold,
+                                                   @Value("${authorizer.circuitBreaker.slidingWindowSize:20}") int slidingWindowSize,
+                                                   @Value("${authorizer.circuitBreaker.minimumNumberOfCalls:10}") int minimumNumberOfCalls,
+                                                   @Value("${authorizer.circuitBreaker.waitDurationInOpenStateMs:10000}") long waitDurationInOpenStateMs,
+                                                   @Value("${authorizer.circuitBreaker.permittedCallsInHalfOpenState:3}") int permittedCallsInHalfOpenState) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallDurationMs))
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .waitDurationInOpenState(Duration.ofMillis(waitDurationInOpenStateMs))
+                .permittedNumberOfCallsInHalfOpenState(permittedCallsInHalfOpenState)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .ignoreExceptions(BulkheadFullException.class)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry.circuitBreaker(AUTHORIZER);
+    }
+
+    /**
+     * Limita chamadas simultâneas ao autorizador; com espera zero, o excedente é recusado na hora
+     * em vez de prender a thread da requisição.
+     */
+    @Bean
+    public Bulkhead authorizerBulkhead(MeterRegistry meterRegistry,
+                                       @Value("${authorizer.bulkhead.maxConcurrentCalls:20}") int maxConcurrentCalls,
+                                       @Value("${authorizer.bulkhead.maxWaitMs:0}") long maxWaitMs) {
+        BulkheadConfig config = BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ofMillis(maxWaitMs))
+                .build();
+        BulkheadRegistry registry = BulkheadRegistry.of(config);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry.bulkhead(AUTHORIZER);
+    }
+}
@@ -0,0 +1,58 @@
+package com.nimble.gateway.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita quantas requisições executam ao mesmo tempo. Com threads virtuais o Tomcat não tem mais
+ * teto de threads, então sem esse limite milhares de requisições ficariam enfileiradas no pool do
+ * Hikari até estourar o connection-timeout.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String BODY = "{\"error\":\"Servidor sobrecarregado, tente novamente\"}";
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+
+    public ConcurrencyLimitFilter(int maxConcurrentRequests, long acquireTimeoutMs) {
+        this.permits = new Semaphore(maxConcurrentRequests, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            res.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            res.getWriter().write(BODY);
+            return;
+        }
+        try {
+            chain.doFilter(req, res);
+        } finally {
+            permits.release();
+        }
+    }
+
+    int availablePermits() {
+        return permits.availablePermits();
+    }
+}
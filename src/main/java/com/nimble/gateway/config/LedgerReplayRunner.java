@@ -0,0 +1,55 @@
+package com.nimble.gateway.config;
+
+import com.nimble.gateway.service.LedgerService;
+import com.nimble.gateway.service.LedgerService.ReplayReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ferramenta de reconciliação: {@code --ledger.replay=verify} refaz os saldos a partir do razão e só relata
+ * as divergências; {@code --ledger.replay=rebuild} também reescreve os snapshots. O resultado sai como código
+ * de saída (1 se encontrou divergência); quem encerra a JVM é o {@code main}, não este bean.
+ */
+@Component
+@ConditionalOnProperty(name = "ledger.replay")
+public class LedgerReplayRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerReplayRunner.class);
+
+    private final LedgerService ledgerService;
+    private final String mode;
+    private volatile int exitCode;
+
+    public LedgerReplayRunner(LedgerService ledgerService, @Value("${ledger.replay}") String mode) {
+        this.ledgerService = ledgerService;
+        this.mode = mode;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        boolean rebuild = switch (mode) {
+            case "verify" -> false;
+            case "rebuild" -> true;
+            default -> throw new IllegalArgumentException("ledger.replay deve ser verify ou rebuild: " + mode);
+        };
+
+        ReplayReport report = ledgerService.replay(rebuild);
+        report.drifts().forEach(d -> log.warn("Conta {}: saldo {} x razão {}", d.userId(), d.balance(), d.replayed()));
+        report.unbalancedJournals().forEach(j -> log.warn("Lançamento {} não soma zero", j));
+        log.info("Replay ({}): {} contas, {} divergências, {} lançamentos desbalanceados",
+                mode, report.accounts(), report.drifts().size(), report.unbalancedJournals().size());
+
+        exitCode = report.consistent() ? 0 : 1;
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+}
@@ -0,0 +1,60 @@
+package com.nimble.gateway.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Réplica de leitura ({@code readReplica.enabled}): o primário continua vindo de {@code spring.datasource.*}, a
+ * réplica ganha um pool próprio e o {@link DataSource} da aplicação passa a ser o roteador. Desligado, o Spring Boot
+ * monta o pool único de sempre.
+ */
+@Configuration
+@ConditionalOnProperty(name = "readReplica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    // sobe mesmo com a réplica fora do ar: as leituras caem no primário até ela voltar
+    @Bean
+    public HikariDataSource replicaDataSource(DataSourceProperties primary,
+                                              @Value("${readReplica.url}") String url,
+                                              @Value("${readReplica.username:}") String username,
+                                              @Value("${readReplica.password:}") String password,
+                                              @Value("${readReplica.maximumPoolSize:10}") int maximumPoolSize,
+                                              @Value("${readReplica.connectionTimeoutMs:1000}") long connectionTimeoutMs) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username.isEmpty() ? primary.determineUsername() : username);
+        dataSource.setPassword(password.isEmpty() ? primary.determinePassword() : password);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setConnectionTimeout(connectionTimeoutMs);
+        dataSource.setInitializationFailTimeout(-1);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+                                 @Value("${readReplica.stickyPrimaryMs:0}") long stickyPrimaryMs,
+                                 @Value("${readReplica.retryAfterMs:5000}") long retryAfterMs) {
+        return new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, stickyPrimaryMs, retryAfterMs));
+    }
+}
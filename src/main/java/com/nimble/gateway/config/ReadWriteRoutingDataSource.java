@@ -0,0 +1,110 @@
+package com.nimble.gateway.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimble.gateway.service.ChargeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manda para a réplica só as transações {@code @Transactional(readOnly = true)} abertas nos serviços; as
+ * transações read-only padrão dos repositórios do Spring Data continuam no primário, porque também rodam no meio
+ * de fluxos de escrita (ler a cobrança antes de pagá-la). Precisa ficar atrás de um
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: o flag de read-only só existe depois
+ * que a transação começou, e a conexão física só deve ser escolhida no primeiro comando.
+ * <p>
+ * Leia-o-que-escreveu: depois que uma transação de escrita do usuário autenticado confirma, as leituras dele ficam
+ * no primário por {@code stickyPrimaryMs}, o tempo para a réplica alcançar. Se a réplica não entrega conexão, a
+ * leitura cai no primário e a réplica fica de fora por {@code retryAfterMs}.
+ */
+class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private static final Logger log = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+    private static final String SERVICE_PACKAGE = ChargeService.class.getPackageName() + ".";
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final Cache<String, Boolean> recentWriters;
+    private final long retryAfterNanos;
+    private volatile long replicaDownUntil = System.nanoTime();
+
+    ReadWriteRoutingDataSource(DataSource primary, DataSource replica, long stickyPrimaryMs, long retryAfterMs) {
+        this.primary = primary;
+        this.replica = replica;
+        this.recentWriters = stickyPrimaryMs > 0
+                ? Caffeine.newBuilder().expireAfterWrite(Duration.ofMillis(stickyPrimaryMs)).maximumSize(100_000).build()
+                : null;
+        this.retryAfterNanos = TimeUnit.MILLISECONDS.toNanos(retryAfterMs);
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) return Target.PRIMARY;
+        String transaction = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (transaction == null || !transaction.startsWith(SERVICE_PACKAGE)) return Target.PRIMARY;
+        if (System.nanoTime() - replicaDownUntil < 0) return Target.PRIMARY;
+        if (recentWriters != null) {
+            String user = currentUser();
+            if (user != null && recentWriters.getIfPresent(user) != null) return Target.PRIMARY;
+        }
+        return Target.REPLICA;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target == replica) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                replicaDownUntil = System.nanoTime() + retryAfterNanos;
+                log.warn("Réplica de leitura indisponível, lendo do primário: {}", e.getMessage());
+                return primary.getConnection();
+            }
+        }
+        rememberWriter();
+        return primary.getConnection();
+    }
+
+    // só depois do commit: antes dele a escrita nem existe no primário para a réplica copiar. Sem transação (as
+    // funções do caminho rápido pelo JdbcTemplate em auto-commit) o comando confirma sozinho logo em seguida, então
+    // a marca vale já; uma leitura sem transação também marca, o que só custa ler do primário por stickyPrimaryMs
+    private void rememberWriter() {
+        if (recentWriters == null || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) return;
+        String user = currentUser();
+        if (user == null) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recentWriters.put(user, Boolean.TRUE);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(user, Boolean.TRUE);
+            }
+        });
+    }
+
+    // o principal é o CPF (ver JwtAuthenticationFilter)
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth == null ? null : auth.getName();
+    }
+}
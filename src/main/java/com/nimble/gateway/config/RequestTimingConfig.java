@@ -0,0 +1,54 @@
+package com.nimble.gateway.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Tempos por fase de cada requisição ({@code requestTiming.enabled}): o filtro abre a medição e os pontos de
+ * medida ficam no JWT, no BCrypt, no autorizador, no JDBC (Hibernate e {@link JdbcTemplate}) e no JSON.
+ * Desligado, nada disso é registrado e as chamadas a {@code RequestTimings} não fazem nada.
+ */
+@Configuration
+@ConditionalOnProperty(name = "requestTiming.enabled", havingValue = "true")
+public class RequestTimingConfig {
+
+    // logo depois do limite de concorrência: a espera por vaga não entra na conta
+    @Bean
+    public FilterRegistrationBean<RequestTimingFilter> requestTimingFilter(
+            @Value("${requestTiming.serverTimingHeader:false}") boolean serverTimingHeader,
+            @Value("${requestTiming.slowRequestMs:1000}") long slowRequestMs,
+            @Value("${requestTiming.slowRequestSampleRate:1.0}") double slowRequestSampleRate) {
+        var registration = new FilterRegistrationBean<>(
+                new RequestTimingFilter(serverTimingHeader, slowRequestMs, slowRequestSampleRate));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer timedSessionEvents() {
+        return properties -> properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+                TimedSessionEventListener.class.getName());
+    }
+
+    // substituem os da autoconfiguração do Spring Boot (ambos são @ConditionalOnMissingBean)
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new TimedJdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new TimedJacksonConverter(objectMapper);
+    }
+}
@@ -0,0 +1,119 @@
+package com.nimble.gateway.config;
+
+import com.nimble.gateway.util.RequestTimings;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede cada requisição com o {@link RequestTimings} da thread. Opcionalmente devolve as fases no cabeçalho
+ * {@code Server-Timing}, que precisa sair antes do corpo: ele é escrito no primeiro acesso ao corpo, então a
+ * serialização da resposta fica fora dele. Requisições acima do limite vão, por amostragem, para o log de lentas.
+ */
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    static final String SERVER_TIMING = "Server-Timing";
+
+    private static final Logger log = LoggerFactory.getLogger(RequestTimingFilter.class);
+
+    private final boolean serverTimingHeader;
+    private final long slowRequestNanos;
+    private final double slowRequestSampleRate;
+
+    public RequestTimingFilter(boolean serverTimingHeader, long slowRequestMs, double slowRequestSampleRate) {
+        this.serverTimingHeader = serverTimingHeader;
+        this.slowRequestNanos = TimeUnit.MILLISECONDS.toNanos(slowRequestMs);
+        this.slowRequestSampleRate = slowRequestSampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTimings timings = RequestTimings.start();
+        ServerTimingResponse withHeader = serverTimingHeader ? new ServerTimingResponse(res, timings) : null;
+        try {
+            chain.doFilter(req, withHeader != null ? withHeader : res);
+        } finally {
+            if (withHeader != null) withHeader.writeServerTiming(); // resposta sem corpo
+            long total = timings.finish();
+            if (total >= slowRequestNanos && ThreadLocalRandom.current().nextDouble() < slowRequestSampleRate) {
+                logSlow(req, res, timings, total);
+            }
+        }
+    }
+
+    private static void logSlow(HttpServletRequest req, HttpServletResponse res, RequestTimings timings, long total) {
+        if (!log.isWarnEnabled()) return;
+        StringBuilder phases = new StringBuilder(96);
+        timings.appendSummary(phases);
+        log.warn("Requisição lenta: {} {} {} em {} ms | {}", req.getMethod(), req.getRequestURI(), res.getStatus(),
+                TimeUnit.NANOSECONDS.toMillis(total), phases);
+    }
+
+    private static final class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final RequestTimings timings;
+        private boolean written;
+
+        ServerTimingResponse(HttpServletResponse response, RequestTimings timings) {
+            super(response);
+            this.timings = timings;
+        }
+
+        void writeServerTiming() {
+            if (written) return;
+            written = true;
+            if (isCommitted()) return;
+            StringBuilder value = new StringBuilder(96);
+            timings.appendServerTiming(value);
+            setHeader(SERVER_TIMING, value.toString());
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeServerTiming();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.nimble.gateway.config;
 
 import com.nimble.gateway.security.CustomUserDetailsService;
 import com.nimble.gateway.security.JwtAuthenticationFilter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.*;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -19,9 +20,17 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
     private final JwtAuthenticationFilter jwtFilter;
     private final CustomUserDetailsService uds;
+    private final int bcryptStrength;
+    private final int managementPort;
+    private final boolean separateManagementPort;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtFilter, CustomUserDetailsService uds){
-        this.jwtFilter = jwtFilter; this.uds = uds;
+    public SecurityConfig(JwtAuthenticationFilter jwtFilter, CustomUserDetailsService uds,
+                          @Value("${security.bcrypt.strength:10}") int bcryptStrength,
+                          @Value("${server.port:8080}") int serverPort,
+                          @Value("${management.server.port:-1}") int managementPort){
+        this.jwtFilter = jwtFilter; this.uds = uds; this.bcryptStrength = bcryptStrength;
+        this.managementPort = managementPort;
+        this.separateManagementPort = managementPort > 0 && managementPort != serverPort;
     }
 
     @Bean
@@ -29,8 +38,12 @@ public class SecurityConfig {
         http.csrf(csrf->csrf.disable())
                 .sessionManagement(sm->sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // métricas sem token só na porta de gerenciamento, que não deve ser exposta fora da rede interna;
+                        // na porta da API o /actuator/prometheus exige autenticação como qualquer rota
+                        .requestMatchers(request -> separateManagementPort && request.getLocalPort() == managementPort).permitAll()
                         .requestMatchers("/v3/api-docs/**","/swagger-ui/**","/swagger-ui.html",
-                                "/api/v1/users/register","/api/v1/users/login").permitAll()
+                                "/api/v1/users/register","/api/v1/users/login",
+                                "/actuator/health").permitAll()
                         .anyRequest().authenticated())
                 .authenticationProvider(daoAuthenticationProvider())
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
@@ -48,5 +61,5 @@ public class SecurityConfig {
         return p;
     }
 
-    @Bean public PasswordEncoder passwordEncoder() { return new BCryptPasswordEncoder(); }
+    @Bean public PasswordEncoder passwordEncoder() { return new BCryptPasswordEncoder(bcryptStrength); }
 }
@@ -0,0 +1,32 @@
+package com.nimble.gateway.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Com {@code spring.threads.virtual.enabled=true} o Spring Boot passa o Tomcat e o executor de
+ * {@code @Async} para threads virtuais; aqui ficam só as proteções que esse modo exige.
+ * {@code @Scheduled} atende as rotinas de limpeza (ex.: chaves de idempotência expiradas).
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class ThreadingConfig {
+
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            @Value("${server.virtualThreads.maxConcurrentRequests:200}") int maxConcurrentRequests,
+            @Value("${server.virtualThreads.acquireTimeoutMs:1000}") long acquireTimeoutMs) {
+        var registration = new FilterRegistrationBean<>(new ConcurrencyLimitFilter(maxConcurrentRequests, acquireTimeoutMs));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
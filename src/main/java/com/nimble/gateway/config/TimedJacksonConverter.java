@@ -0,0 +1,43 @@
+package com.nimble.gateway.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.util.RequestTimings;
+import com.nimble.gateway.util.RequestTimings.Phase;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/** Conversor JSON do Spring MVC medindo leitura do corpo da requisição e escrita da resposta. */
+class TimedJacksonConverter extends MappingJackson2HttpMessageConverter {
+
+    TimedJacksonConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        RequestTimings.begin(Phase.JSON);
+        try {
+            return super.read(type, contextClass, inputMessage);
+        } finally {
+            RequestTimings.end(Phase.JSON);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        RequestTimings.begin(Phase.JSON);
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            RequestTimings.end(Phase.JSON);
+        }
+    }
+}
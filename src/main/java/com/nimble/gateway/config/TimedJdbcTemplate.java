@@ -0,0 +1,68 @@
+package com.nimble.gateway.config;
+
+import com.nimble.gateway.util.RequestTimings;
+import com.nimble.gateway.util.RequestTimings.Phase;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * {@link JdbcTemplate} que mede os comandos dos repositórios em SQL direto (liquidação, pagamento em lote,
+ * exportação). Todo comando passa por {@code applyStatementSettings} antes de executar e por
+ * {@code handleWarnings} ao terminar. Nas consultas com {@link RowCallbackHandler} (a exportação em streaming) o
+ * callback de cada linha fica fora da fase DB: ali o tempo é da escrita para o cliente, não do banco; a execução e
+ * a busca das linhas ({@code ResultSet#next}) continuam contando.
+ */
+class TimedJdbcTemplate extends JdbcTemplate {
+
+    TimedJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    protected void applyStatementSettings(Statement stmt) throws SQLException {
+        RequestTimings.begin(Phase.DB);
+        super.applyStatementSettings(stmt);
+    }
+
+    // as demais sobrecargas com RowCallbackHandler delegam para estas três
+    @Override
+    public void query(String sql, RowCallbackHandler rch) throws DataAccessException {
+        super.query(sql, outsideDb(rch));
+    }
+
+    @Override
+    public void query(PreparedStatementCreator psc, RowCallbackHandler rch) throws DataAccessException {
+        super.query(psc, outsideDb(rch));
+    }
+
+    @Override
+    public void query(String sql, PreparedStatementSetter pss, RowCallbackHandler rch) throws DataAccessException {
+        super.query(sql, pss, outsideDb(rch));
+    }
+
+    private static RowCallbackHandler outsideDb(RowCallbackHandler rch) {
+        return rs -> {
+            RequestTimings.end(Phase.DB);
+            try {
+                rch.processRow(rs);
+            } finally {
+                RequestTimings.begin(Phase.DB);
+            }
+        };
+    }
+
+    // o caminho de erro (handleWarnings(stmt, ex)) também chega aqui
+    @Override
+    protected void handleWarnings(Statement stmt) throws SQLException {
+        RequestTimings.end(Phase.DB);
+        RequestTimings.sqlExecuted();
+        super.handleWarnings(stmt);
+    }
+}
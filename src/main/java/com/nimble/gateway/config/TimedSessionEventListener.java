@@ -0,0 +1,44 @@
+package com.nimble.gateway.config;
+
+import com.nimble.gateway.util.RequestTimings;
+import com.nimble.gateway.util.RequestTimings.Phase;
+import org.hibernate.SessionEventListener;
+
+/**
+ * Leva para o {@link RequestTimings} da requisição o tempo de JDBC das sessões do Hibernate: espera por conexão,
+ * execução dos comandos e dos lotes. O Hibernate cria uma instância por sessão ({@code hibernate.session.events.auto}).
+ */
+public class TimedSessionEventListener implements SessionEventListener {
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        RequestTimings.begin(Phase.DB);
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        RequestTimings.end(Phase.DB);
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        RequestTimings.begin(Phase.DB);
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestTimings.end(Phase.DB);
+        RequestTimings.sqlExecuted();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        RequestTimings.begin(Phase.DB);
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestTimings.end(Phase.DB);
+        RequestTimings.sqlExecuted();
+    }
+}
@@ -0,0 +1,101 @@
+package com.nimble.gateway.config;
+
+import com.nimble.gateway.service.UserIdentityService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Escuta o canal que o trigger de {@code users} notifica (migração V3) e descarta do cache local as contas
+ * alteradas em qualquer instância. Usa uma conexão própria, fora do pool do Hikari, presa ao LISTEN enquanto a
+ * aplicação roda. Ao (re)conectar esvazia o cache inteiro: notificações enviadas enquanto estava desconectado
+ * se perderam.
+ */
+@Component
+public class UserIdentityInvalidationListener implements SmartLifecycle {
+
+    static final String CHANNEL = "nimble_user_identity";
+    private static final Logger log = LoggerFactory.getLogger(UserIdentityInvalidationListener.class);
+
+    private final DataSource dataSource;
+    private final UserIdentityService identities;
+    private final int pollMs;
+    private final long reconnectDelayMs;
+    private volatile boolean running;
+    private Thread thread;
+
+    public UserIdentityInvalidationListener(DataSource dataSource, UserIdentityService identities,
+                                            @Value("${users.identityCache.listenPollMs:500}") int pollMs,
+                                            @Value("${users.identityCache.reconnectDelayMs:5000}") long reconnectDelayMs) {
+        this.dataSource = dataSource;
+        this.identities = identities;
+        this.pollMs = pollMs;
+        this.reconnectDelayMs = reconnectDelayMs;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = Thread.ofPlatform().name("user-identity-listener").daemon().start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(pollMs * 2L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection con = connect(); Statement st = con.createStatement()) {
+                st.execute("LISTEN " + CHANNEL);
+                identities.evictAll();
+                PGConnection pg = con.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(pollMs);
+                    if (notifications == null) continue;
+                    for (PGNotification n : notifications) identities.evict(Long.parseLong(n.getParameter()));
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                log.warn("Conexão do LISTEN {} caiu, reconectando em {} ms: {}", CHANNEL, reconnectDelayMs, e.getMessage());
+                identities.evictAll();
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // com Hikari abre uma conexão direta para não ocupar uma vaga do pool indefinidamente
+    private Connection connect() throws SQLException {
+        if (dataSource.isWrapperFor(HikariDataSource.class)) {
+            HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+            return DriverManager.getConnection(hikari.getJdbcUrl(), hikari.getUsername(), hikari.getPassword());
+        }
+        return dataSource.getConnection();
+    }
+}
@@ -1,8 +1,15 @@
 package com.nimble.gateway.config;
 
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class WebClientConfig {
@@ -11,4 +18,36 @@ public class WebClientConfig {
     public WebClient.Builder webClientBuilder() {
         return WebClient.builder();
     }
+
+    /**
+     * Cliente do autorizador externo: pool de conexões limitado, keep-alive e timeouts de
+     * conexão/resposta, para que um autorizador lento não segure conexões indefinidamente.
+     */
+    @Bean
+    public WebClient authorizerWebClient(WebClient.Builder builder,
+                                         @Value("${authorizer.baseUrl}") String baseUrl,
+                                         @Value("${authorizer.connectTimeoutMs:1000}") int connectTimeoutMs,
+                                         @Value("${authorizer.responseTimeoutMs:2000}") long responseTimeoutMs,
+                                         @Value("${authorizer.pool.maxConnections:50}") int maxConnections,
+                                         @Value("${authorizer.pool.pendingAcquireTimeoutMs:500}") long pendingAcquireTimeoutMs,
+                                         @Value("${authorizer.pool.maxIdleTimeMs:30000}") long maxIdleTimeMs) {
+        ConnectionProvider provider = ConnectionProvider.builder("authorizer")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(maxConnections * 2)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .evictInBackground(Duration.ofMillis(maxIdleTimeMs))
+                .build();
+
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+
+        return builder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
 }
@@ -1,8 +1,15 @@
 package com.nimble.gateway.controller;
 
+import com.nimble.gateway.dto.request.BatchChargeRequest;
+import com.nimble.gateway.dto.request.ChargeExportRequest;
+import com.nimble.gateway.dto.request.ChargePageRequest;
 import com.nimble.gateway.dto.request.ChargeRequest;
+import com.nimble.gateway.dto.response.BatchChargeResponse;
+import com.nimble.gateway.dto.response.ChargePageResponse;
 import com.nimble.gateway.dto.response.ChargeResponse;
 import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.enums.ExportFormat;
+import com.nimble.gateway.service.ChargeExportService;
 import com.nimble.gateway.service.ChargeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,22 +19,32 @@ import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/charges")
 @Tag(name = "Cobranças", description = "Criação e consulta de cobranças entre usuários")
 public class ChargeController {
 
+    static final String NDJSON = "application/x-ndjson";
+    static final String CSV = "text/csv";
+
     private final ChargeService chargeService;
+    private final ChargeExportService chargeExportService;
 
-    public ChargeController(ChargeService chargeService) {
+    public ChargeController(ChargeService chargeService, ChargeExportService chargeExportService) {
         this.chargeService = chargeService;
+        this.chargeExportService = chargeExportService;
     }
 
     @PostMapping
@@ -75,52 +92,133 @@ public class ChargeController {
         return ResponseEntity.ok(chargeService.create(principal.getName(), request));
     }
 
+    @PostMapping("/batch")
+    @Operation(
+            summary = "Criar cobranças em lote",
+            description = """
+                    Cria até 10.000 cobranças em uma única requisição, todas com o **usuário autenticado** como originador.
+                    Cada item segue as regras da criação individual; itens recusados não impedem os demais.
+                    O resultado vem por item, na ordem do pedido.
+                    """,
+            security = @SecurityRequirement(name = "bearerAuth"),
+            requestBody = @RequestBody(
+                    required = true,
+                    content = @Content(
+                            schema = @Schema(implementation = BatchChargeRequest.class),
+                            examples = @ExampleObject(
+                                    name = "Criar cobranças em lote",
+                                    value = """
+                                            {
+                                              "items": [
+                                                { "recipientCpf": "91236796039", "amount": 150.00, "description": "Consultoria" },
+                                                { "recipientCpf": "52998224725", "amount": 80.00 }
+                                              ]
+                                            }
+                                            """
+                            )
+                    )
+            ),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Resultado por item",
+                            content = @Content(schema = @Schema(implementation = BatchChargeResponse.class))),
+                    @ApiResponse(responseCode = "401", description = "Não autenticado", content = @Content),
+                    @ApiResponse(responseCode = "422", description = "Erro de validação", content = @Content)
+            }
+    )
+    public ResponseEntity<BatchChargeResponse> createBatch(
+            @Valid @RequestBody BatchChargeRequest request,
+            Principal principal
+    ) {
+        return ResponseEntity.ok(chargeService.createBatch(principal.getName(), request));
+    }
+
     @GetMapping("/sent")
     @Operation(
             summary = "Listar cobranças enviadas (originador)",
             description = """
-                    Retorna todas as cobranças criadas pelo **usuário autenticado**, filtradas por status.<br><br>
+                    Retorna as cobranças criadas pelo **usuário autenticado**, filtradas por status, em páginas
+                    (mais recentes primeiro). Para a próxima página, envie o `nextCursor` recebido em `cursor`.<br><br>
                     **Status possíveis:**<br>
                     - `PENDING`: Ainda não pagas<br>
+                    - `PROCESSING`: Cartão aguardando o autorizador externo<br>
                     - `PAID`: Pagas<br>
-                    - `CANCELED`: Canceladas
+                    - `CANCELED`: Canceladas<br><br>
+                    **Paginação:** `limit` (padrão 50, máximo 500; valores maiores valem 500), `cursor`, e `from`/`to` para filtrar pela data de criação.
                     """,
             security = @SecurityRequirement(name = "bearerAuth"),
             responses = {
                     @ApiResponse(responseCode = "200", description = "Lista de cobranças enviadas retornada com sucesso",
-                            content = @Content(schema = @Schema(implementation = ChargeResponse.class))),
-                    @ApiResponse(responseCode = "401", description = "Não autenticado", content = @Content)
+                            content = @Content(schema = @Schema(implementation = ChargePageResponse.class))),
+                    @ApiResponse(responseCode = "401", description = "Não autenticado", content = @Content),
+                    @ApiResponse(responseCode = "422", description = "Cursor ou limite inválido", content = @Content)
             }
     )
-    public ResponseEntity<List<ChargeResponse>> sent(
+    public ResponseEntity<ChargePageResponse> sent(
             @RequestParam ChargeStatus status,
+            @Valid @ParameterObject ChargePageRequest page,
             Principal principal
     ) {
-        return ResponseEntity.ok(chargeService.listSent(principal.getName(), status));
+        return ResponseEntity.ok(chargeService.listSent(principal.getName(), status, page));
     }
 
     @GetMapping("/received")
     @Operation(
             summary = "Listar cobranças recebidas (destinatário)",
             description = """
-                    Retorna todas as cobranças que o **usuário autenticado recebeu**, filtradas por status.<br><br>
+                    Retorna as cobranças que o **usuário autenticado recebeu**, filtradas por status, em páginas
+                    (mais recentes primeiro). Para a próxima página, envie o `nextCursor` recebido em `cursor`.<br><br>
                     **Status possíveis:**<br>
                     - `PENDING`: Ainda não pagas<br>
+                    - `PROCESSING`: Cartão aguardando o autorizador externo<br>
                     - `PAID`: Pagas<br>
-                    - `CANCELED`: Canceladas
+                    - `CANCELED`: Canceladas<br><br>
+                    **Paginação:** `limit` (padrão 50, máximo 500; valores maiores valem 500), `cursor`, e `from`/`to` para filtrar pela data de criação.
                     """,
             security = @SecurityRequirement(name = "bearerAuth"),
             responses = {
                     @ApiResponse(responseCode = "200", description = "Lista de cobranças recebidas retornada com sucesso",
-                            content = @Content(schema = @Schema(implementation = ChargeResponse.class))),
-                    @ApiResponse(responseCode = "401", description = "Não autenticado", content = @Content)
+                            content = @Content(schema = @Schema(implementation = ChargePageResponse.class))),
+                    @ApiResponse(responseCode = "401", description = "Não autenticado", content = @Content),
+                    @ApiResponse(responseCode = "422", description = "Cursor ou limite inválido", content = @Content)
             }
     )
-    public ResponseEntity<List<ChargeResponse>> received(
+    public ResponseEntity<ChargePageResponse> received(
             @RequestParam ChargeStatus status,
+            @Valid @ParameterObject ChargePageRequest page,
             Principal principal
     ) {
-        return ResponseEntity.ok(chargeService.listReceived(principal.getName(), status));
+        return ResponseEntity.ok(chargeService.listReceived(principal.getName(), status, page));
+    }
+
+    @GetMapping("/export")
+    @Operation(
+            summary = "Exportar cobranças",
+            description = """
+                    Exporta as cobranças criadas (`direction=SENT`, padrão) ou recebidas (`RECEIVED`) pelo
+                    **usuário autenticado**, em ordem de id, escritas na resposta à medida que são lidas do banco.<br><br>
+                    **Formatos:** `NDJSON` (um objeto JSON por linha, padrão) ou `CSV` (com cabeçalho).<br>
+                    **Filtros opcionais:** `status` e `from`/`to` pela data de criação.
+                    """,
+            security = @SecurityRequirement(name = "bearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Arquivo de exportação", content = {
+                            @Content(mediaType = NDJSON),
+                            @Content(mediaType = CSV)
+                    }),
+                    @ApiResponse(responseCode = "401", description = "Não autenticado", content = @Content)
+            }
+    )
+    public void export(
+            @ParameterObject ChargeExportRequest request,
+            Principal principal,
+            HttpServletResponse response
+    ) throws IOException {
+        boolean csv = request.getFormat() == ExportFormat.CSV;
+        response.setContentType(csv ? CSV : NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(csv ? "charges.csv" : "charges.ndjson").build().toString());
+        chargeExportService.export(principal.getName(), request, response.getOutputStream());
     }
 
     @PostMapping("/{id}/cancel")
@@ -1,9 +1,18 @@
 package com.nimble.gateway.controller;
 
+import com.nimble.gateway.dto.request.BatchPaymentRequest;
 import com.nimble.gateway.dto.request.DepositRequest;
 import com.nimble.gateway.dto.request.PaymentRequest;
+import com.nimble.gateway.dto.response.BatchPaymentResponse;
+import com.nimble.gateway.dto.response.PaymentStatusResponse;
+import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.enums.PaymentMethod;
+import com.nimble.gateway.service.IdempotencyService;
 import com.nimble.gateway.service.PaymentService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -16,17 +25,31 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.security.Principal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/payments")
 @Tag(name = "Pagamentos", description = "Endpoints de depósito e pagamento de cobranças")
 public class PaymentController {
 
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final PaymentService paymentService;
+    private final IdempotencyService idempotencyService;
+    // pagamentos efetivados por método; repetições pela Idempotency-Key não contam de novo
+    private final Map<PaymentMethod, Counter> paid = new EnumMap<>(PaymentMethod.class);
 
-    public PaymentController(PaymentService paymentService) {
+    public PaymentController(PaymentService paymentService, IdempotencyService idempotencyService,
+                             MeterRegistry meterRegistry) {
         this.paymentService = paymentService;
+        this.idempotencyService = idempotencyService;
+        for (PaymentMethod method : PaymentMethod.values()) {
+            paid.put(method, Counter.builder("payments.paid").tag("method", method.name()).register(meterRegistry));
+        }
     }
 
     @PostMapping("/deposit")
@@ -49,14 +72,18 @@ public class PaymentController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "Saldo atualizado retornado no corpo"),
                     @ApiResponse(responseCode = "401", description = "Não autenticado"),
+                    @ApiResponse(responseCode = "409", description = "Requisição com a mesma Idempotency-Key ainda em processamento"),
                     @ApiResponse(responseCode = "422", description = "Depósito não autorizado pelo autorizador externo")
             }
     )
     public ResponseEntity<BigDecimal> deposit(
             @Valid @org.springframework.web.bind.annotation.RequestBody DepositRequest request,
+            @Parameter(description = "Chave única da operação; repetições devolvem a resposta original sem depositar de novo")
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             Principal principal
     ) {
-        BigDecimal newBalance = paymentService.deposit(principal.getName(), request);
+        BigDecimal newBalance = idempotencyService.execute(principal.getName(), idempotencyKey, "deposit", request,
+                BigDecimal.class, () -> paymentService.deposit(principal.getName(), request));
         return ResponseEntity.ok(newBalance);
     }
 
@@ -67,6 +94,9 @@ public class PaymentController {
                     Paga uma cobrança PENDING:
                     - **BALANCE**: verifica saldo do destinatário, debita pagador e credita originador.
                     - **CARD**: consulta autorizador externo; se aprovado, credita originador (não mexe no saldo do pagador).
+                    Com `payments.asyncCard.enabled`, o cartão responde 202 na hora com a cobrança em PROCESSING e o
+                    autorizador é consultado em segundo plano; o resultado sai em `GET /api/v1/payments/{chargeId}`
+                    (header `Location`).
                     Somente o destinatário da cobrança pode pagar.
                     """,
             security = @SecurityRequirement(name = "bearerAuth"),
@@ -98,16 +128,113 @@ public class PaymentController {
             ),
             responses = {
                     @ApiResponse(responseCode = "200", description = "Pagamento realizado"),
+                    @ApiResponse(responseCode = "202", description = "Cartão em processamento (modo assíncrono)"),
                     @ApiResponse(responseCode = "401", description = "Não autenticado"),
                     @ApiResponse(responseCode = "404", description = "Cobrança/usuário não encontrado"),
-                    @ApiResponse(responseCode = "422", description = "Regra de negócio (saldo insuficiente, não é o destinatário, cobrança não pendente, cartão não autorizado, etc.)")
+                    @ApiResponse(responseCode = "409", description = "Requisição com a mesma Idempotency-Key ainda em processamento"),
+                    @ApiResponse(responseCode = "422", description = "Regra de negócio (saldo insuficiente, não é o destinatário, cobrança não pendente, cartão não autorizado, etc.)"),
+                    @ApiResponse(responseCode = "503", description = "Fila de pagamentos com cartão cheia (modo assíncrono); tentar de novo após Retry-After")
             }
     )
-    public ResponseEntity<Void> pay(
+    public ResponseEntity<PaymentStatusResponse> pay(
             @Valid @org.springframework.web.bind.annotation.RequestBody PaymentRequest request,
+            @Parameter(description = "Chave única da operação; repetições devolvem a resposta original sem consultar o autorizador")
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            Principal principal
+    ) {
+        // respostas guardadas antes do modo assíncrono voltam nulas: eram pagamentos concluídos
+        ChargeStatus status = idempotencyService.execute(principal.getName(), idempotencyKey, "pay", request,
+                ChargeStatus.class, () -> {
+                    ChargeStatus result = paymentService.pay(principal.getName(), request);
+                    // em PROCESSING quem conta é o pipeline, quando o autorizador aprovar
+                    if (result == ChargeStatus.PAID) paid.get(request.getMethod()).increment();
+                    return result;
+                });
+        if (status != ChargeStatus.PROCESSING) return ResponseEntity.ok().build();
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/payments/" + request.getChargeId()))
+                .body(PaymentStatusResponse.builder()
+                        .chargeId(request.getChargeId()).status(status).paymentMethod(PaymentMethod.CARD).build());
+    }
+
+    @GetMapping("/{chargeId}")
+    @Operation(
+            summary = "Situação do pagamento",
+            description = """
+                    Status do pagamento de uma cobrança, para acompanhar o cartão assíncrono:
+                    - `PROCESSING`: aguardando o autorizador externo.
+                    - `PAID`: liquidado.
+                    - `PENDING` com `error`: a última tentativa foi recusada e a cobrança pode ser paga de novo.
+                    Só o originador e o destinatário enxergam a cobrança.
+                    """,
+            security = @SecurityRequirement(name = "bearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Situação atual"),
+                    @ApiResponse(responseCode = "401", description = "Não autenticado"),
+                    @ApiResponse(responseCode = "404", description = "Cobrança não encontrada")
+            }
+    )
+    public ResponseEntity<PaymentStatusResponse> status(@PathVariable Long chargeId, Principal principal) {
+        return ResponseEntity.ok(paymentService.status(principal.getName(), chargeId));
+    }
+
+    @PostMapping("/pay/batch")
+    @Operation(
+            summary = "Pagar cobranças em lote",
+            description = """
+                    Paga até 500 cobranças PENDING em uma única transação, com as mesmas regras do pagamento individual.
+                    O autorizador é consultado uma vez por cartão; o saldo é consumido na ordem dos itens.
+                    Cada item é pago ou recusado isoladamente e o resultado vem na mesma ordem do pedido.
+                    """,
+            security = @SecurityRequirement(name = "bearerAuth"),
+            requestBody = @RequestBody(
+                    required = true,
+                    content = @Content(
+                            schema = @Schema(implementation = BatchPaymentRequest.class),
+                            examples = @ExampleObject(
+                                    name = "Lote misto",
+                                    value = """
+                                            {
+                                              "items": [
+                                                { "chargeId": 2, "method": "BALANCE" },
+                                                { "chargeId": 3, "method": "BALANCE" },
+                                                {
+                                                  "chargeId": 4,
+                                                  "method": "CARD",
+                                                  "cardNumber": "4111111111111111",
+                                                  "cardExpiration": "12/29",
+                                                  "cardCvv": "123"
+                                                }
+                                              ]
+                                            }
+                                            """
+                            )
+                    )
+            ),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Resultado por item"),
+                    @ApiResponse(responseCode = "400", description = "Lote vazio, acima de 500 itens ou item inválido"),
+                    @ApiResponse(responseCode = "401", description = "Não autenticado"),
+                    @ApiResponse(responseCode = "409", description = "Requisição com a mesma Idempotency-Key ainda em processamento")
+            }
+    )
+    public ResponseEntity<BatchPaymentResponse> payBatch(
+            @Valid @org.springframework.web.bind.annotation.RequestBody BatchPaymentRequest request,
+            @Parameter(description = "Chave única da operação; repetições devolvem o resultado original sem pagar de novo")
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             Principal principal
     ) {
-        paymentService.pay(principal.getName(), request);
-        return ResponseEntity.ok().build();
+        BatchPaymentResponse response = idempotencyService.execute(principal.getName(), idempotencyKey, "payBatch",
+                request, BatchPaymentResponse.class,
+                () -> countPaid(request.getItems(), paymentService.payBatch(principal.getName(), request)));
+        return ResponseEntity.ok(response);
+    }
+
+    private BatchPaymentResponse countPaid(List<PaymentRequest> items, BatchPaymentResponse response) {
+        for (int i = 0; i < items.size(); i++) {
+            PaymentMethod method = items.get(i).getMethod();
+            if (method != null && response.getItems().get(i).isPaid()) paid.get(method).increment();
+        }
+        return response;
     }
-}
\ No newline at end of file
+}
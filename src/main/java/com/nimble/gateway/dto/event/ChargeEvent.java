@@ -0,0 +1,28 @@
+package com.nimble.gateway.dto.event;
+
+import com.nimble.gateway.enums.ChargeEventType;
+import com.nimble.gateway.enums.PaymentMethod;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Mudança de estado de uma cobrança, como sai do outbox para os consumidores. {@code id} cresce com a gravação e
+ * serve para descartar repetições: a entrega é pelo menos uma vez.
+ */
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class ChargeEvent {
+
+    private Long id;
+    private ChargeEventType type;
+    private Long chargeId;
+    private String originatorCpf;
+    private String recipientCpf;
+    private BigDecimal amount;
+    private PaymentMethod paymentMethod;
+    private OffsetDateTime occurredAt;
+}
@@ -0,0 +1,19 @@
+package com.nimble.gateway.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Schema(name = "BatchChargeRequest", description = "Criação de várias cobranças em uma única requisição")
+@Data
+public class BatchChargeRequest {
+
+    @NotEmpty
+    @Size(max = 10000)
+    @Valid
+    private List<ChargeRequest> items;
+}
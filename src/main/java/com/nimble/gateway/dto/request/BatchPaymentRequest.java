@@ -0,0 +1,19 @@
+package com.nimble.gateway.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Schema(name = "BatchPaymentRequest", description = "Pagamento de várias cobranças em uma única requisição")
+@Data
+public class BatchPaymentRequest {
+
+    @NotEmpty
+    @Size(max = 500)
+    @Valid
+    private List<PaymentRequest> items;
+}
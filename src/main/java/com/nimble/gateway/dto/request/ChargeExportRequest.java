@@ -0,0 +1,32 @@
+package com.nimble.gateway.dto.request;
+
+import com.nimble.gateway.enums.ChargeDirection;
+import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.enums.ExportFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.OffsetDateTime;
+
+@Schema(name = "ChargeExportRequest", description = "Filtros da exportação de cobranças")
+@Data
+public class ChargeExportRequest {
+
+    @Schema(description = "NDJSON (padrão) ou CSV")
+    private ExportFormat format = ExportFormat.NDJSON;
+
+    @Schema(description = "SENT (padrão): cobranças criadas pelo usuário | RECEIVED: cobranças recebidas")
+    private ChargeDirection direction = ChargeDirection.SENT;
+
+    @Schema(description = "Somente neste status; vazio para todos")
+    private ChargeStatus status;
+
+    @Schema(description = "Criadas a partir de (inclusive)", example = "2025-01-01T00:00:00-03:00")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private OffsetDateTime from;
+
+    @Schema(description = "Criadas antes de (exclusive)", example = "2025-02-01T00:00:00-03:00")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private OffsetDateTime to;
+}
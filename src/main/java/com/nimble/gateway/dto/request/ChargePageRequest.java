@@ -0,0 +1,28 @@
+package com.nimble.gateway.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.OffsetDateTime;
+
+@Schema(name = "ChargePageRequest", description = "Paginação por cursor das listagens de cobranças")
+@Data
+public class ChargePageRequest {
+
+    @Schema(description = "nextCursor devolvido pela página anterior; vazio para a primeira página")
+    private String cursor;
+
+    @Schema(description = "Itens por página (padrão 50; acima de 500 vale 500)", example = "50")
+    @Min(1)
+    private Integer limit;
+
+    @Schema(description = "Criadas a partir de (inclusive)", example = "2025-01-01T00:00:00-03:00")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private OffsetDateTime from;
+
+    @Schema(description = "Criadas antes de (exclusive)", example = "2025-02-01T00:00:00-03:00")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private OffsetDateTime to;
+}
@@ -0,0 +1,23 @@
+package com.nimble.gateway.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class BatchPaymentResponse {
+
+    private int paid;
+    private int rejected;
+    private List<Item> items; // na mesma ordem do pedido
+
+    @Data @Builder @NoArgsConstructor @AllArgsConstructor
+    public static class Item {
+        private Long chargeId;
+        private boolean paid;
+        private String error;
+    }
+}
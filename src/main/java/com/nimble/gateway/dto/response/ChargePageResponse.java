@@ -0,0 +1,15 @@
+package com.nimble.gateway.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class ChargePageResponse {
+
+    private List<ChargeResponse> items; // mais recentes primeiro
+    private String nextCursor; // null na última página
+}
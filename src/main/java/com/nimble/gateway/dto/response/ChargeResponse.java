@@ -1,13 +1,17 @@
 package com.nimble.gateway.dto.response;
 
 import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.util.Cpf;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 
-@Data @Builder
+// a ordem dos campos é a do construtor usado nas projeções de ChargeRepository
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
 public class ChargeResponse {
 
     private Long id;
@@ -16,5 +20,12 @@ public class ChargeResponse {
     private BigDecimal amount;
     private String description;
     private ChargeStatus status;
+    private OffsetDateTime createdAt;
     private OffsetDateTime paidAt;
+
+    // projeções: users.cpf chega como número
+    public ChargeResponse(Long id, long originatorCpf, long recipientCpf, BigDecimal amount, String description,
+                          ChargeStatus status, OffsetDateTime createdAt, OffsetDateTime paidAt) {
+        this(id, Cpf.format(originatorCpf), Cpf.format(recipientCpf), amount, description, status, createdAt, paidAt);
+    }
 }
\ No newline at end of file
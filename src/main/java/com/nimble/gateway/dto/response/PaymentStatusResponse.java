@@ -0,0 +1,21 @@
+package com.nimble.gateway.dto.response;
+
+import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.enums.PaymentMethod;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class PaymentStatusResponse {
+
+    private Long chargeId;
+    private ChargeStatus status;
+    private PaymentMethod paymentMethod;
+    private OffsetDateTime paidAt;
+    // motivo da última liquidação assíncrona recusada (a cobrança voltou a PENDING)
+    private String error;
+}
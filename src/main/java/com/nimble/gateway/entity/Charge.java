@@ -9,17 +9,26 @@ import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 
 @Entity
-@Table(name = "charges")
+// listagens paginadas por chave: filtram por (usuário, status) e seguem o id em ordem decrescente
+@Table(name = "charges", indexes = {
+        @Index(name = "idx_charges_originator_status_id", columnList = "originator_id, status, id"),
+        @Index(name = "idx_charges_recipient_status_id", columnList = "recipient_id, status, id")
+})
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Charge {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // sequência com alocação em blocos (pooled): o id sai sem ida ao banco, o que libera o batch de inserts
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "charges_seq")
+    @SequenceGenerator(name = "charges_seq", sequenceName = "charges_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne(optional = false)
+    // LAZY: escritas só precisam do id (a referência não carrega o usuário); leituras que precisam do CPF
+    // usam join fetch ou projeção em ChargeRepository
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     private User originator;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     private User recipient;
 
     @Column(nullable = false)
@@ -31,10 +40,22 @@ public class Charge {
     @Column(nullable = false)
     private ChargeStatus status = ChargeStatus.PENDING;
 
+    @Column(updatable = false)
+    private OffsetDateTime createdAt; // null em cobranças anteriores à coluna
+
     private OffsetDateTime paidAt;
 
     @Enumerated(EnumType.STRING)
     private PaymentMethod paymentMethod;
 
-    private String paidByCpf; // cpf de quem efetuou o pagamento
+    // quem efetuou o pagamento
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "paid_by_id")
+    private User paidBy;
+
+    // PROCESSING: quando o cartão entrou na fila de liquidação assíncrona
+    private OffsetDateTime processingStartedAt;
+
+    // motivo da última liquidação assíncrona recusada; limpo na próxima tentativa
+    private String settlementError;
 }
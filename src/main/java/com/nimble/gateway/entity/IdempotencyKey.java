@@ -0,0 +1,45 @@
+package com.nimble.gateway.entity;
+
+import com.nimble.gateway.enums.IdempotencyStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Resposta já entregue para um {@code Idempotency-Key}, por usuário. Enquanto a primeira execução
+ * não termina a linha fica em {@link IdempotencyStatus#IN_PROGRESS} e serve de reserva da chave.
+ */
+@Entity
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"owner_cpf", "idempotency_key"}))
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class IdempotencyKey {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String ownerCpf;
+
+    @Column(nullable = false)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private String operation;
+
+    @Column(nullable = false, length = 64)
+    private String requestHash; // sha-256 do corpo: a mesma chave com outro corpo é recusada
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private IdempotencyStatus status;
+
+    @Column(columnDefinition = "text")
+    private String responseBody;
+
+    @Column(nullable = false)
+    private OffsetDateTime createdAt;
+
+    private OffsetDateTime completedAt;
+}
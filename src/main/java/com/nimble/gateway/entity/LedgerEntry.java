@@ -0,0 +1,42 @@
+package com.nimble.gateway.entity;
+
+import com.nimble.gateway.enums.LedgerEntryType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Partida do razão, somente inserida. Cada operação grava um lançamento ({@code journalId}) cujas partidas
+ * somam zero; {@code userId} nulo é a contrapartida externa (autorizador / rede de cartão).
+ */
+@Entity
+@Table(name = "ledger_entries", indexes = {
+        @Index(name = "idx_ledger_entries_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_ledger_entries_journal_id", columnList = "journal_id")
+})
+@Getter @NoArgsConstructor @AllArgsConstructor @Builder
+public class LedgerEntry {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private UUID journalId;
+
+    private Long userId;
+
+    @Column(nullable = false)
+    private BigDecimal amount; // positivo credita a conta, negativo debita
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LedgerEntryType type;
+
+    private Long chargeId;
+
+    @Column(nullable = false)
+    private OffsetDateTime createdAt;
+}
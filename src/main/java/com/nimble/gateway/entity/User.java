@@ -1,8 +1,10 @@
 package com.nimble.gateway.entity;
 
+import com.nimble.gateway.util.Cpf;
 import jakarta.persistence.*;
 import lombok.*;
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 
 @Entity @Table(name="users")
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
@@ -15,8 +17,9 @@ public class User {
     @Column(nullable=false)
     private String name;
 
+    // número (bigint): chave compacta; getCpf() devolve os 11 dígitos, como a API e o JWT usam
     @Column(nullable=false, unique=true)
-    private String cpf;
+    private long cpf;
 
     @Column(nullable=false, unique=true)
     private String email;
@@ -24,6 +27,31 @@ public class User {
     @Column(nullable=false)
     private String passwordHash;
 
+    // saldo consolidado até snapshotEntryId; o saldo atual soma os lançamentos posteriores (BalanceService#balanceOf)
     @Column(nullable=false)
     private BigDecimal balance = BigDecimal.ZERO;
-}
\ No newline at end of file
+
+    private Long snapshotEntryId; // null: saldo anterior ao razão, ainda sem lançamento de abertura
+
+    private OffsetDateTime snapshotAt;
+
+    public String getCpf() {
+        return Cpf.format(cpf);
+    }
+
+    public long getCpfNumber() {
+        return cpf;
+    }
+
+    public static class UserBuilder {
+
+        public UserBuilder cpf(long cpf) {
+            this.cpf = cpf;
+            return this;
+        }
+
+        public UserBuilder cpf(String cpf) {
+            return cpf(Cpf.parse(cpf).value());
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.nimble.gateway.enums;
+
+public enum ChargeDirection {
+    SENT, // usuário é o originador
+    RECEIVED // usuário é o destinatário
+}
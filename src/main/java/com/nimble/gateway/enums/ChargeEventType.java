@@ -0,0 +1,6 @@
+package com.nimble.gateway.enums;
+
+public enum ChargeEventType {
+
+    CREATED, PAID, CANCELLED
+}
@@ -2,5 +2,8 @@ package com.nimble.gateway.enums;
 
 public enum ChargeStatus {
 
-    PENDING, PAID, CANCELLED
+    PENDING,
+    PROCESSING, // cartão aguardando o autorizador (payments.asyncCard)
+    PAID,
+    CANCELLED
 }
@@ -0,0 +1,6 @@
+package com.nimble.gateway.enums;
+
+public enum ExportFormat {
+    NDJSON, // um objeto JSON por linha
+    CSV
+}
@@ -0,0 +1,6 @@
+package com.nimble.gateway.enums;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
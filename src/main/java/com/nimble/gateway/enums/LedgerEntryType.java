@@ -0,0 +1,8 @@
+package com.nimble.gateway.enums;
+
+public enum LedgerEntryType {
+    OPENING, // saldo anterior ao razão
+    DEPOSIT,
+    PAYMENT,
+    REFUND
+}
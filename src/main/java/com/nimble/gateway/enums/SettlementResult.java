@@ -0,0 +1,39 @@
+package com.nimble.gateway.enums;
+
+import com.nimble.gateway.exception.BusinessException;
+import com.nimble.gateway.exception.NotFoundException;
+
+/**
+ * Códigos devolvidos pelas funções de liquidação no banco, com a mesma mensagem que o caminho JPA usa.
+ */
+public enum SettlementResult {
+
+    OK(null, false),
+    AUTHORIZATION_REQUIRED(null, false),
+    CHARGE_NOT_FOUND("Cobrança não encontrada", true),
+    PAYER_NOT_FOUND("Pagador não encontrado", true),
+    NOT_PENDING("Cobrança não está pendente", false),
+    NOT_RECIPIENT("Apenas o destinatário pode pagar esta cobrança", false),
+    INSUFFICIENT_FUNDS("Saldo insuficiente", false),
+    INVALID_METHOD("Método de pagamento inválido", false),
+    NOT_ORIGINATOR("Apenas o originador pode cancelar esta cobrança", false),
+    ALREADY_CANCELLED("Cobrança já está cancelada", false),
+    UNKNOWN_PAYMENT_METHOD("Método de pagamento desconhecido para cancelamento", false),
+    REFUND_INSUFFICIENT_FUNDS("Saldo do originador insuficiente para estorno", false),
+    REVERSAL_INSUFFICIENT_FUNDS("Saldo do originador insuficiente para reversão", false),
+    INVALID_STATE("Estado da cobrança inválido para cancelamento", false);
+
+    private final String message;
+    private final boolean notFound;
+
+    SettlementResult(String message, boolean notFound) {
+        this.message = message;
+        this.notFound = notFound;
+    }
+
+    /** Lança a exceção correspondente quando o código é uma recusa. */
+    public void throwIfRejected() {
+        if (message == null) return;
+        throw notFound ? new NotFoundException(message) : new BusinessException(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.nimble.gateway.exception;
+
+public class AuthorizerUnavailableException extends RuntimeException {
+
+    public AuthorizerUnavailableException(String msg, Throwable cause){
+        super(msg, cause);
+    }
+}
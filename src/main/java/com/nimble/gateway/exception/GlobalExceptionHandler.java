@@ -1,24 +1,85 @@
 package com.nimble.gateway.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    static final String OTHER_KEY = "outros";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxKeys;
+    // as mensagens são literais fixos: um contador por mensagem, criado na primeira ocorrência e reaproveitado
+    private final Map<String, Counter> businessErrors = new ConcurrentHashMap<>();
+    private final Map<String, Counter> notFoundErrors = new ConcurrentHashMap<>();
+    private final Counter businessOther;
+    private final Counter notFoundOther;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry,
+                                  @Value("${errors.metrics.maxKeys:200}") int maxKeys) {
+        this.meterRegistry = meterRegistry;
+        this.maxKeys = maxKeys;
+        this.businessOther = errorCounter("business", OTHER_KEY);
+        this.notFoundOther = errorCounter("not_found", OTHER_KEY);
+    }
+
+    private Counter errorCounter(String type, String key) {
+        return Counter.builder("api.errors").tag("type", type).tag("key", key).register(meterRegistry);
+    }
+
+    // acima do teto de chaves (mensagem montada com dado variável, por exemplo) tudo cai em "outros"
+    private void count(Map<String, Counter> counters, Counter other, String type, String message) {
+        if (message == null) {
+            other.increment();
+            return;
+        }
+        Counter counter = counters.get(message);
+        if (counter == null) {
+            counter = counters.size() >= maxKeys ? other
+                    : counters.computeIfAbsent(message, key -> errorCounter(type, key));
+        }
+        counter.increment();
+    }
+
     @ExceptionHandler(NotFoundException.class)
     public ResponseEntity<?> notFound(NotFoundException ex){
+        count(notFoundErrors, notFoundOther, "not_found", ex.getMessage());
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", ex.getMessage()));
     }
 
     @ExceptionHandler(BusinessException.class)
     public ResponseEntity<?> business(BusinessException ex){
+        count(businessErrors, businessOther, "business", ex.getMessage());
         return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", ex.getMessage()));
     }
 
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<?> idempotencyConflict(IdempotencyConflictException ex){
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(AuthorizerUnavailableException.class)
+    public ResponseEntity<?> authorizerUnavailable(AuthorizerUnavailableException ex){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<?> overloaded(ServiceOverloadedException ex){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<?> validation(MethodArgumentNotValidException ex){
         Map<String,String> errors = new HashMap<>();
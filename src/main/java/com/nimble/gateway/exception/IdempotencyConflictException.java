@@ -0,0 +1,8 @@
+package com.nimble.gateway.exception;
+
+public class IdempotencyConflictException extends RuntimeException {
+
+    public IdempotencyConflictException(String msg){
+        super(msg);
+    }
+}
@@ -0,0 +1,8 @@
+package com.nimble.gateway.exception;
+
+public class ServiceOverloadedException extends RuntimeException {
+
+    public ServiceOverloadedException(String msg){
+        super(msg);
+    }
+}
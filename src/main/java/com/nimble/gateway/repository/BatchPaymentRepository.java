@@ -0,0 +1,88 @@
+package com.nimble.gateway.repository;
+
+import com.nimble.gateway.enums.LedgerEntryType;
+import com.nimble.gateway.enums.PaymentMethod;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Escritas do pagamento em lote com JDBC batching: uma ida ao banco para as transições das cobranças e outra
+ * para as partidas do razão, em vez de um UPDATE/INSERT por cobrança.
+ */
+@Repository
+public class BatchPaymentRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BatchPaymentRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // mesma ordem e mesmas travas do BalanceService: id crescente, crédito FOR KEY SHARE, débito FOR NO KEY UPDATE
+    public void lockAccounts(Long debitUserId, Collection<Long> creditUserIds) {
+        NavigableSet<Long> credits = new TreeSet<>(creditUserIds);
+        if (debitUserId == null) {
+            lockForCredit(credits);
+            return;
+        }
+        credits.remove(debitUserId);
+        lockForCredit(credits.headSet(debitUserId, false));
+        jdbcTemplate.query("select id from users where id = ? for no key update", rs -> { }, debitUserId);
+        lockForCredit(credits.tailSet(debitUserId, false));
+    }
+
+    private void lockForCredit(Collection<Long> userIds) {
+        if (userIds.isEmpty()) return;
+        jdbcTemplate.query("select id from users where id = any(?) order by id for key share", rs -> { },
+                (Object) userIds.toArray(Long[]::new));
+    }
+
+    // transição PENDING -> PAID por cobrança; 0 na posição significa que outra operação chegou antes
+    public int[] markPaid(List<Settled> charges, Long payerId, OffsetDateTime paidAt) {
+        if (charges.isEmpty()) return new int[0];
+        return jdbcTemplate.batchUpdate("""
+                update charges set status = 'PAID', paid_at = ?, payment_method = ?, paid_by_id = ?
+                 where id = ? and status = 'PENDING'
+                """, charges, charges.size(), (ps, c) -> {
+            ps.setObject(1, paidAt);
+            ps.setString(2, c.method().name());
+            ps.setLong(3, payerId);
+            ps.setLong(4, c.chargeId());
+        })[0];
+    }
+
+    public void revertToPending(List<Long> chargeIds) {
+        if (chargeIds.isEmpty()) return;
+        jdbcTemplate.update("""
+                update charges set status = 'PENDING', paid_at = null, payment_method = null, paid_by_id = null
+                 where id = any(?) and status = 'PAID'
+                """, (Object) chargeIds.toArray(Long[]::new));
+    }
+
+    // as partidas de um único lançamento; a soma precisa dar zero
+    public void post(UUID journalId, LedgerEntryType type, List<Posting> postings) {
+        if (postings.isEmpty()) return;
+        jdbcTemplate.batchUpdate("""
+                insert into ledger_entries (journal_id, user_id, amount, type, charge_id, created_at)
+                values (?, ?, ?, ?, ?, now())
+                """, postings, postings.size(), (ps, p) -> {
+            ps.setObject(1, journalId);
+            ps.setObject(2, p.userId());
+            ps.setBigDecimal(3, p.amount());
+            ps.setString(4, type.name());
+            ps.setObject(5, p.chargeId());
+        });
+    }
+
+    public record Settled(Long chargeId, PaymentMethod method) { }
+
+    public record Posting(Long userId, BigDecimal amount, Long chargeId) { }
+}
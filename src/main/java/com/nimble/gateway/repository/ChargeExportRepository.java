@@ -0,0 +1,79 @@
+package com.nimble.gateway.repository;
+
+import com.nimble.gateway.dto.request.ChargeExportRequest;
+import com.nimble.gateway.enums.ChargeDirection;
+import com.nimble.gateway.util.Cpf;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Leitura da exportação direto do JDBC, sem entidades nem contexto de persistência: cada linha vira um
+ * {@link ExportedCharge} entregue ao consumidor e descartado. O driver do PostgreSQL só usa cursor (em vez de
+ * trazer o resultado inteiro) com fetch size definido e dentro de uma transação, então o chamador abre uma.
+ */
+@Repository
+public class ChargeExportRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ChargeExportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record ExportedCharge(Long id, String originatorCpf, String recipientCpf, BigDecimal amount,
+                                 String description, String status, String paymentMethod,
+                                 OffsetDateTime createdAt, OffsetDateTime paidAt, String paidByCpf) { }
+
+    public void stream(long ownerCpf, ChargeExportRequest filter, int fetchSize, Consumer<ExportedCharge> sink) {
+        StringBuilder sql = new StringBuilder("""
+                select c.id, o.cpf, r.cpf, c.amount, c.description, c.status, c.payment_method,
+                       c.created_at, c.paid_at, p.cpf
+                  from charges c
+                  join users o on o.id = c.originator_id
+                  join users r on r.id = c.recipient_id
+                  left join users p on p.id = c.paid_by_id
+                """);
+        List<Object> args = new ArrayList<>();
+        sql.append(filter.getDirection() == ChargeDirection.RECEIVED ? " where r.cpf = ?" : " where o.cpf = ?");
+        args.add(ownerCpf);
+        if (filter.getStatus() != null) {
+            sql.append(" and c.status = ?");
+            args.add(filter.getStatus().name());
+        }
+        if (filter.getFrom() != null) {
+            sql.append(" and c.created_at >= ?");
+            args.add(filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            sql.append(" and c.created_at < ?");
+            args.add(filter.getTo());
+        }
+        sql.append(" order by c.id");
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString());
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) ps.setObject(i + 1, args.get(i));
+            return ps;
+        }, rs -> {
+            sink.accept(new ExportedCharge(
+                    rs.getLong(1),
+                    Cpf.format(rs.getLong(2)),
+                    Cpf.format(rs.getLong(3)),
+                    rs.getBigDecimal(4),
+                    rs.getString(5),
+                    rs.getString(6),
+                    rs.getString(7),
+                    rs.getObject(8, OffsetDateTime.class),
+                    rs.getObject(9, OffsetDateTime.class),
+                    rs.getObject(10) == null ? null : Cpf.format(rs.getLong(10))));
+        });
+    }
+}
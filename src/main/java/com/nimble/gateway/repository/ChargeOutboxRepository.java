@@ -0,0 +1,67 @@
+package com.nimble.gateway.repository;
+
+import com.nimble.gateway.dto.event.ChargeEvent;
+import com.nimble.gateway.enums.ChargeEventType;
+import com.nimble.gateway.enums.PaymentMethod;
+import com.nimble.gateway.util.Cpf;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Tabela {@code charge_outbox} (migração V5). As funções de {@code R__settlement_functions.sql} gravam nela
+ * direto; o caminho JPA grava por aqui, sempre dentro da transação que muda a cobrança.
+ */
+@Repository
+public class ChargeOutboxRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ChargeOutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void append(List<ChargeEvent> events) {
+        if (events.isEmpty()) return;
+        jdbcTemplate.batchUpdate("""
+                insert into charge_outbox (type, charge_id, originator_cpf, recipient_cpf, amount, payment_method, occurred_at)
+                values (?, ?, ?, ?, ?, ?, ?)
+                """, events, events.size(), (ps, e) -> {
+            ps.setString(1, e.getType().name());
+            ps.setLong(2, e.getChargeId());
+            ps.setLong(3, Cpf.parse(e.getOriginatorCpf()).value());
+            ps.setLong(4, Cpf.parse(e.getRecipientCpf()).value());
+            ps.setBigDecimal(5, e.getAmount());
+            ps.setString(6, e.getPaymentMethod() == null ? null : e.getPaymentMethod().name());
+            ps.setObject(7, e.getOccurredAt());
+        });
+    }
+
+    // os mais antigos ainda não entregues; linhas travadas por outro relay ficam para ele
+    public List<ChargeEvent> lockOldest(int limit) {
+        return jdbcTemplate.query("""
+                select id, type, charge_id, originator_cpf, recipient_cpf, amount, payment_method, occurred_at
+                  from charge_outbox order by id limit ? for update skip locked
+                """, (rs, i) -> {
+            String method = rs.getString("payment_method");
+            return ChargeEvent.builder()
+                    .id(rs.getLong("id"))
+                    .type(ChargeEventType.valueOf(rs.getString("type")))
+                    .chargeId(rs.getLong("charge_id"))
+                    .originatorCpf(Cpf.format(rs.getLong("originator_cpf")))
+                    .recipientCpf(Cpf.format(rs.getLong("recipient_cpf")))
+                    .amount(rs.getBigDecimal("amount"))
+                    .paymentMethod(method == null ? null : PaymentMethod.valueOf(method))
+                    .occurredAt(rs.getObject("occurred_at", OffsetDateTime.class))
+                    .build();
+        }, limit);
+    }
+
+    public void delete(Collection<Long> ids) {
+        if (ids.isEmpty()) return;
+        jdbcTemplate.update("delete from charge_outbox where id = any(?)", (Object) ids.toArray(Long[]::new));
+    }
+}
@@ -1,15 +1,116 @@
 package com.nimble.gateway.repository;
 
+import com.nimble.gateway.dto.response.ChargeResponse;
 import com.nimble.gateway.entity.Charge;
 import com.nimble.gateway.entity.User;
 import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.enums.PaymentMethod;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ChargeRepository extends JpaRepository<Charge, Long> {
 
-    List<Charge> findByOriginatorAndStatus(User originator, ChargeStatus status);
+    // cobrança com originador e destinatário em um SELECT, para as regras que comparam CPF
+    @Query("select c from Charge c join fetch c.originator join fetch c.recipient where c.id = :id")
+    Optional<Charge> findWithUsersById(@Param("id") Long id);
 
-    List<Charge> findByRecipientAndStatus(User recipient, ChargeStatus status);
+    // paginação por chave: próxima página = ids abaixo do último visto, pelo índice (usuário, status, id).
+    // projeção direto no DTO: um SELECT só com as colunas da resposta, sem entidades gerenciadas.
+    // o cast dá tipo ao parâmetro nulo; sem ele o PostgreSQL não infere o tipo de "? is null"
+    @Query("""
+            select new com.nimble.gateway.dto.response.ChargeResponse(
+                   c.id, o.cpf, r.cpf, c.amount, c.description, c.status, c.createdAt, c.paidAt)
+            from Charge c join c.originator o join c.recipient r
+            where c.originator = :user and c.status = :status and c.id < :beforeId
+              and (cast(:from as OffsetDateTime) is null or c.createdAt >= :from)
+              and (cast(:to as OffsetDateTime) is null or c.createdAt < :to)
+            order by c.id desc
+            """)
+    List<ChargeResponse> findSentPage(@Param("user") User originator, @Param("status") ChargeStatus status,
+                              @Param("beforeId") Long beforeId, @Param("from") OffsetDateTime from,
+                              @Param("to") OffsetDateTime to, Limit limit);
+
+    @Query("""
+            select new com.nimble.gateway.dto.response.ChargeResponse(
+                   c.id, o.cpf, r.cpf, c.amount, c.description, c.status, c.createdAt, c.paidAt)
+            from Charge c join c.originator o join c.recipient r
+            where c.recipient = :user and c.status = :status and c.id < :beforeId
+              and (cast(:from as OffsetDateTime) is null or c.createdAt >= :from)
+              and (cast(:to as OffsetDateTime) is null or c.createdAt < :to)
+            order by c.id desc
+            """)
+    List<ChargeResponse> findReceivedPage(@Param("user") User recipient, @Param("status") ChargeStatus status,
+                                  @Param("beforeId") Long beforeId, @Param("from") OffsetDateTime from,
+                                  @Param("to") OffsetDateTime to, Limit limit);
+
+    // valida um lote inteiro em uma consulta, já com originador e destinatário
+    @Query("select c from Charge c join fetch c.originator join fetch c.recipient where c.id in :ids")
+    List<Charge> findAllWithUsersByIdIn(@Param("ids") Collection<Long> ids);
+
+    // transições condicionais: 0 linhas afetadas significa que outra operação mudou a cobrança antes
+    @Modifying
+    @Query("""
+            update Charge c set c.status = com.nimble.gateway.enums.ChargeStatus.PAID,
+                   c.paidAt = :paidAt, c.paymentMethod = :method, c.paidBy = :payer
+            where c.id = :id and c.status = com.nimble.gateway.enums.ChargeStatus.PENDING
+            """)
+    int markPaid(@Param("id") Long id, @Param("paidAt") OffsetDateTime paidAt,
+                 @Param("method") PaymentMethod method, @Param("payer") User payer);
+
+    @Modifying
+    @Query("update Charge c set c.status = :to where c.id = :id and c.status = :from")
+    int updateStatus(@Param("id") Long id, @Param("from") ChargeStatus from, @Param("to") ChargeStatus to);
+
+    // liquidação assíncrona de cartão: PENDING -> PROCESSING -> PAID, ou de volta a PENDING com o motivo.
+    // processingStartedAt identifica a tentativa: quem conclui ou devolve só mexe na tentativa que começou, nunca
+    // numa nova que a varredura de presas e um novo pagamento tenham aberto no meio
+    @Modifying
+    @Query("""
+            update Charge c set c.status = com.nimble.gateway.enums.ChargeStatus.PROCESSING,
+                   c.paymentMethod = com.nimble.gateway.enums.PaymentMethod.CARD, c.paidBy = :payer,
+                   c.processingStartedAt = :startedAt, c.settlementError = null
+            where c.id = :id and c.status = com.nimble.gateway.enums.ChargeStatus.PENDING
+            """)
+    int markProcessing(@Param("id") Long id, @Param("payer") User payer, @Param("startedAt") OffsetDateTime startedAt);
+
+    @Modifying
+    @Query("""
+            update Charge c set c.status = com.nimble.gateway.enums.ChargeStatus.PAID, c.paidAt = :paidAt,
+                   c.processingStartedAt = null
+            where c.id = :id and c.status = com.nimble.gateway.enums.ChargeStatus.PROCESSING
+              and c.processingStartedAt = :startedAt
+            """)
+    int completeProcessing(@Param("id") Long id, @Param("startedAt") OffsetDateTime startedAt,
+                           @Param("paidAt") OffsetDateTime paidAt);
+
+    @Modifying
+    @Query("""
+            update Charge c set c.status = com.nimble.gateway.enums.ChargeStatus.PENDING, c.paymentMethod = null,
+                   c.paidBy = null, c.processingStartedAt = null, c.settlementError = :error
+            where c.id = :id and c.status = com.nimble.gateway.enums.ChargeStatus.PROCESSING
+              and c.processingStartedAt = :startedAt
+            """)
+    int revertProcessing(@Param("id") Long id, @Param("startedAt") OffsetDateTime startedAt,
+                         @Param("error") String error);
+
+    // pelo índice parcial idx_charges_processing
+    @Query("""
+            select c.id as id, c.processingStartedAt as processingStartedAt from Charge c
+            where c.status = com.nimble.gateway.enums.ChargeStatus.PROCESSING and c.processingStartedAt < :before
+            order by c.processingStartedAt
+            """)
+    List<ProcessingAttempt> findProcessingStartedBefore(@Param("before") OffsetDateTime before, Limit limit);
+
+    interface ProcessingAttempt {
+        Long getId();
+        OffsetDateTime getProcessingStartedAt();
+    }
 }
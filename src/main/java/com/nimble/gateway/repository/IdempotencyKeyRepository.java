@@ -0,0 +1,63 @@
+package com.nimble.gateway.repository;
+
+import com.nimble.gateway.entity.IdempotencyKey;
+import com.nimble.gateway.enums.IdempotencyStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+
+    Optional<IdempotencyKey> findByOwnerCpfAndIdempotencyKey(String ownerCpf, String idempotencyKey);
+
+    // reserva a chave; 0 linhas afetadas significa que outra requisição chegou antes
+    @Transactional
+    @Modifying
+    @Query(value = """
+            insert into idempotency_keys (owner_cpf, idempotency_key, operation, request_hash, status, created_at)
+            values (:ownerCpf, :key, :operation, :requestHash, 'IN_PROGRESS', :now)
+            on conflict (owner_cpf, idempotency_key) do nothing
+            """, nativeQuery = true)
+    int reserve(@Param("ownerCpf") String ownerCpf, @Param("key") String key, @Param("operation") String operation,
+                @Param("requestHash") String requestHash, @Param("now") OffsetDateTime now);
+
+    // retoma uma reserva abandonada (a instância que a fez caiu antes de concluir)
+    @Transactional
+    @Modifying
+    @Query("""
+            update IdempotencyKey k set k.createdAt = :now
+            where k.ownerCpf = :ownerCpf and k.idempotencyKey = :key and k.status = :status and k.createdAt < :staleBefore
+            """)
+    int takeOver(@Param("ownerCpf") String ownerCpf, @Param("key") String key, @Param("status") IdempotencyStatus status,
+                 @Param("staleBefore") OffsetDateTime staleBefore, @Param("now") OffsetDateTime now);
+
+    // conclui só a própria reserva (identificada pelo created_at); 0 linhas significa que ela foi retomada
+    @Transactional
+    @Modifying
+    @Query("""
+            update IdempotencyKey k set k.status = :status, k.responseBody = :responseBody, k.completedAt = :now
+            where k.ownerCpf = :ownerCpf and k.idempotencyKey = :key and k.status = :reserved and k.createdAt = :reservedAt
+            """)
+    int complete(@Param("ownerCpf") String ownerCpf, @Param("key") String key, @Param("reserved") IdempotencyStatus reserved,
+                 @Param("reservedAt") OffsetDateTime reservedAt, @Param("status") IdempotencyStatus status,
+                 @Param("responseBody") String responseBody, @Param("now") OffsetDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            delete from IdempotencyKey k
+            where k.ownerCpf = :ownerCpf and k.idempotencyKey = :key and k.status = :status and k.createdAt = :reservedAt
+            """)
+    int release(@Param("ownerCpf") String ownerCpf, @Param("key") String key, @Param("status") IdempotencyStatus status,
+                @Param("reservedAt") OffsetDateTime reservedAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.status = :status and k.completedAt < :before")
+    int purge(@Param("status") IdempotencyStatus status, @Param("before") OffsetDateTime before);
+}
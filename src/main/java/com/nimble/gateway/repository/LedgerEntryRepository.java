@@ -0,0 +1,67 @@
+package com.nimble.gateway.repository;
+
+import com.nimble.gateway.entity.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    List<LedgerEntry> findByChargeIdOrderById(Long chargeId);
+
+    // as duas partidas de um lançamento em um único insert; conta nula é a contrapartida externa
+    @Modifying
+    @Query(value = """
+            insert into ledger_entries (journal_id, user_id, amount, type, charge_id, created_at)
+            values (:journalId, cast(:fromUserId as bigint), -:amount, :type, cast(:chargeId as bigint), now()),
+                   (:journalId, cast(:toUserId as bigint), :amount, :type, cast(:chargeId as bigint), now())
+            """, nativeQuery = true)
+    int post(@Param("journalId") UUID journalId, @Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId,
+             @Param("amount") BigDecimal amount, @Param("type") String type, @Param("chargeId") Long chargeId);
+
+    // transforma o saldo anterior ao razão em lançamento de abertura contra a contrapartida externa
+    @Modifying
+    @Query(value = """
+            insert into ledger_entries (journal_id, user_id, amount, type, created_at)
+            select :journalId, x.user_id, x.amount, 'OPENING', now()
+              from users u
+             cross join lateral (values (u.id, u.balance), (cast(null as bigint), -u.balance)) as x(user_id, amount)
+             where u.id = :id and u.snapshot_entry_id is null and u.balance <> 0
+            """, nativeQuery = true)
+    int openBalance(@Param("id") Long userId, @Param("journalId") UUID journalId);
+
+    // contas com lançamentos posteriores ao próprio snapshot, paginadas por id da conta
+    @Query(value = """
+            select u.id from users u
+             where u.id > :afterId
+               and exists (select 1 from ledger_entries e
+                            where e.user_id = u.id and e.id > coalesce(u.snapshot_entry_id, 0))
+             order by u.id limit :limit
+            """, nativeQuery = true)
+    List<Long> findPendingAccounts(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    // saldo atual x saldo refeito só a partir do razão (mais o saldo ainda não aberto das contas antigas)
+    @Query(value = """
+            select u.id as userId,
+                   u.balance + coalesce((select sum(e.amount) from ledger_entries e
+                                          where e.user_id = u.id and e.id > coalesce(u.snapshot_entry_id, 0)), 0) as balance,
+                   coalesce((select sum(e.amount) from ledger_entries e where e.user_id = u.id), 0)
+                       + case when u.snapshot_entry_id is null then u.balance else 0 end as replayed
+              from users u where u.id > :afterId order by u.id limit :limit
+            """, nativeQuery = true)
+    List<ReplayedAccount> replayAccounts(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    @Query("select e.journalId from LedgerEntry e group by e.journalId having sum(e.amount) <> 0")
+    List<UUID> findUnbalancedJournals();
+
+    interface ReplayedAccount {
+        Long getUserId();
+        BigDecimal getBalance();
+        BigDecimal getReplayed();
+    }
+}
@@ -0,0 +1,51 @@
+package com.nimble.gateway.repository;
+
+import com.nimble.gateway.dto.response.ChargeResponse;
+import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.enums.PaymentMethod;
+import com.nimble.gateway.enums.SettlementResult;
+import com.nimble.gateway.util.Cpf;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Liquidação de pagamento/cancelamento em uma única chamada às funções de {@code db/migration/R__settlement_functions.sql},
+ * instaladas pelo Flyway.
+ */
+@Repository
+@ConditionalOnProperty(name = "payments.fastPath", havingValue = "true")
+public class SettlementRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SettlementRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public SettlementResult pay(Long chargeId, String payerCpf, PaymentMethod method, boolean cardAuthorized) {
+        String code = jdbcTemplate.queryForObject("select nimble_pay_charge(?, ?, ?, ?)", String.class,
+                chargeId, Cpf.parse(payerCpf).value(), method.name(), cardAuthorized);
+        return SettlementResult.valueOf(code);
+    }
+
+    public Cancellation cancel(Long chargeId, String requesterCpf, boolean cardAuthorized) {
+        return jdbcTemplate.queryForObject("select * from nimble_cancel_charge(?, ?, ?)", (rs, i) -> {
+            SettlementResult result = SettlementResult.valueOf(rs.getString("result"));
+            if (result != SettlementResult.OK) return new Cancellation(result, null);
+            return new Cancellation(result, ChargeResponse.builder()
+                    .id(chargeId)
+                    .originatorCpf(requesterCpf)
+                    .recipientCpf(Cpf.format(rs.getLong("recipient_cpf")))
+                    .amount(rs.getBigDecimal("amount"))
+                    .description(rs.getString("description"))
+                    .status(ChargeStatus.CANCELLED)
+                    .paidAt(rs.getObject("paid_at", OffsetDateTime.class))
+                    .build());
+        }, chargeId, Cpf.parse(requesterCpf).value(), cardAuthorized);
+    }
+
+    public record Cancellation(SettlementResult result, ChargeResponse charge) { }
+}
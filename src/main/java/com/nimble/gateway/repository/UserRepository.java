@@ -2,12 +2,87 @@ package com.nimble.gateway.repository;
 
 import com.nimble.gateway.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
-    Optional<User> findByCpf(String cpf);
+    Optional<User> findByCpf(long cpf);
 
     Optional<User> findByEmail(String email);
+
+    boolean existsByCpf(long cpf);
+
+    List<User> findByCpfIn(Collection<Long> cpfs);
+
+    // só as colunas de identidade, para o cache de UserIdentityService
+    Optional<Identity> findIdentityByCpf(long cpf);
+
+    Optional<Identity> findIdentityByEmail(String email);
+
+    // travas por conta antes de lançar no razão: créditos não se bloqueiam entre si nem com débitos,
+    // débitos da mesma conta são serializados e o snapshot exclui ambos
+    @Query(value = "select id from users where id = :id for key share", nativeQuery = true)
+    Optional<Long> lockForCredit(@Param("id") Long id);
+
+    @Query(value = "select id from users where id = :id for no key update", nativeQuery = true)
+    Optional<Long> lockForDebit(@Param("id") Long id);
+
+    @Query(value = "select id from users where id = :id for update", nativeQuery = true)
+    Optional<Long> lockForSnapshot(@Param("id") Long id);
+
+    // saldo atual: snapshot mais os lançamentos posteriores a ele
+    @Query(value = """
+            select u.balance + coalesce((select sum(e.amount) from ledger_entries e
+                                          where e.user_id = u.id and e.id > coalesce(u.snapshot_entry_id, 0)), 0)
+            from users u where u.id = :id
+            """, nativeQuery = true)
+    Optional<BigDecimal> findBalanceById(@Param("id") Long id);
+
+    // saldo anterior ao razão já virou lançamento de abertura: zera a base antes de consolidar
+    @Modifying
+    @Query(value = "update users set balance = 0, snapshot_entry_id = 0 where id = :id and snapshot_entry_id is null",
+            nativeQuery = true)
+    int resetOpenedBalance(@Param("id") Long id);
+
+    // consolida no snapshot os lançamentos posteriores a ele
+    @Modifying
+    @Query(value = """
+            update users u set balance = u.balance + s.total, snapshot_entry_id = s.last_id, snapshot_at = now()
+            from (select sum(e.amount) as total, max(e.id) as last_id
+                    from ledger_entries e join users x on x.id = e.user_id
+                   where x.id = :id and e.id > x.snapshot_entry_id) s
+            where u.id = :id and s.last_id is not null
+            """, nativeQuery = true)
+    int foldSnapshot(@Param("id") Long id);
+
+    // reconstrói o snapshot somando todo o razão da conta
+    @Modifying
+    @Query(value = """
+            update users u set balance = s.total, snapshot_entry_id = s.last_id, snapshot_at = now()
+            from (select coalesce(sum(e.amount), 0) as total, coalesce(max(e.id), 0) as last_id
+                    from ledger_entries e where e.user_id = :id) s
+            where u.id = :id
+            """, nativeQuery = true)
+    int rebuildSnapshot(@Param("id") Long id);
+
+    // atualiza só o hash, sem sobrescrever o saldo com uma cópia antiga da entidade
+    @Transactional
+    @Modifying
+    @Query("update User u set u.passwordHash = :passwordHash where u.id = :id")
+    int updatePasswordHash(@Param("id") Long id, @Param("passwordHash") String passwordHash);
+
+    interface Identity {
+        Long getId();
+        long getCpf();
+        String getEmail();
+        String getName();
+    }
 }
@@ -2,6 +2,7 @@ package com.nimble.gateway.security;
 
 import com.nimble.gateway.entity.User;
 import com.nimble.gateway.repository.UserRepository;
+import com.nimble.gateway.util.Cpf;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
 
@@ -18,7 +19,7 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User u = userRepository.findByCpf(username)
+        User u = Cpf.tryParse(username).flatMap(cpf -> userRepository.findByCpf(cpf.value()))
                 .orElseGet(() -> userRepository.findByEmail(username).orElse(null));
         if (u == null) throw new UsernameNotFoundException("User not found");
         return org.springframework.security.core.userdetails.User
@@ -1,8 +1,13 @@
 package com.nimble.gateway.security;
 
+import com.nimble.gateway.util.RequestTimings;
+import com.nimble.gateway.util.RequestTimings.Phase;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -11,14 +16,26 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtTokenUtil jwtTokenUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final PrincipalMode mode;
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
+    private final Timer validTokens;
+    private final Timer invalidTokens;
 
-    public JwtAuthenticationFilter(JwtTokenUtil jwtTokenUtil, CustomUserDetailsService uds) {
+    public JwtAuthenticationFilter(JwtTokenUtil jwtTokenUtil, CustomUserDetailsService uds, PrincipalCache principalCache,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${jwt.principalMode:STATELESS}") PrincipalMode mode) {
         this.jwtTokenUtil = jwtTokenUtil; this.userDetailsService = uds;
+        this.principalCache = principalCache; this.mode = mode;
+        this.validTokens = Timer.builder("jwt.verification").tag("outcome", "valid").register(meterRegistry);
+        this.invalidTokens = Timer.builder("jwt.verification").tag("outcome", "invalid").register(meterRegistry);
     }
 
     @Override
@@ -29,13 +46,45 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (StringUtils.hasText(bearer) && bearer.startsWith("Bearer ")) {
             String token = bearer.substring(7);
             try {
-                String subject = jwtTokenUtil.getSubject(token);
-                UserDetails user = userDetailsService.loadUserByUsername(subject);
-                var auth = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
-                auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
-                SecurityContextHolder.getContext().setAuthentication(auth);
+                String subject = verify(token);
+                var auth = authenticate(subject);
+                if (auth != null) {
+                    auth.setDetails(detailsSource.buildDetails(req));
+                    SecurityContextHolder.getContext().setAuthentication(auth);
+                }
             } catch (Exception ignored) {}
         }
         chain.doFilter(req, res);
     }
+
+    // só a verificação do token (assinatura, exp ou acerto no cache de já verificados), sem a carga do principal
+    private String verify(String token) {
+        long start = System.nanoTime();
+        RequestTimings.begin(Phase.AUTH);
+        try {
+            String subject = jwtTokenUtil.getSubject(token);
+            validTokens.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return subject;
+        } catch (RuntimeException e) {
+            invalidTokens.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } finally {
+            RequestTimings.end(Phase.AUTH);
+        }
+    }
+
+    // o subject do token é o CPF, que é tudo o que os controllers usam do principal
+    private UsernamePasswordAuthenticationToken authenticate(String subject) {
+        switch (mode) {
+            case DATABASE -> {
+                UserDetails user = userDetailsService.loadUserByUsername(subject);
+                return UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+            }
+            case CACHED -> {
+                if (!principalCache.exists(subject)) return null;
+            }
+            case STATELESS -> { }
+        }
+        return UsernamePasswordAuthenticationToken.authenticated(subject, null, Collections.emptyList());
+    }
 }
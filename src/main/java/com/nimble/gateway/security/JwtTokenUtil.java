@@ -1,23 +1,47 @@
 package com.nimble.gateway.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenUtil {
 
     private final Key key;
     private final long expirationMs;
+    private final JwtParser parser;
+    private final MessageDigest sha256;
+
+    // tokens já verificados, pela digest SHA-256; cada entrada vence junto com o exp do próprio token
+    private final Cache<ByteBuffer, Verified> verified;
 
     public JwtTokenUtil(@Value("${jwt.secret}") String secret,
-                        @Value("${jwt.expirationMs}") long expirationMs) {
+                        @Value("${jwt.expirationMs}") long expirationMs,
+                        @Value("${jwt.verifiedCacheSize:100000}") long verifiedCacheSize) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
         this.expirationMs = expirationMs;
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        try {
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new UntilTokenExpiration())
+                .build();
     }
 
     public String generateToken(String subject){
@@ -27,7 +51,45 @@ public class JwtTokenUtil {
     }
 
     public String getSubject(String token){
-        return Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        ByteBuffer digest = digest(token);
+        Verified hit = verified.getIfPresent(digest);
+        if (hit != null && hit.expiresAtMs() > System.currentTimeMillis()) return hit.subject();
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            verified.put(digest, new Verified(claims.getSubject(), claims.getExpiration().getTime()));
+        }
+        return claims.getSubject();
+    }
+
+    private ByteBuffer digest(String token) {
+        MessageDigest md;
+        try {
+            md = (MessageDigest) sha256.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        return ByteBuffer.wrap(md.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private record Verified(String subject, long expiresAtMs) { }
+
+    private static final class UntilTokenExpiration implements Expiry<ByteBuffer, Verified> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Verified value, long currentTime) {
+            long remainingMs = value.expiresAtMs() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Verified value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Verified value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
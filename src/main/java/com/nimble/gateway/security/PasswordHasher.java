@@ -0,0 +1,103 @@
+package com.nimble.gateway.security;
+
+import com.nimble.gateway.exception.ServiceOverloadedException;
+import com.nimble.gateway.util.RequestTimings;
+import com.nimble.gateway.util.RequestTimings.Phase;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executa o BCrypt em um pool próprio, do tamanho dos núcleos e com fila limitada. Uma rajada de
+ * logins disputa só esse pool; quando a fila enche a requisição é recusada (503) em vez de
+ * roubar CPU e threads do tráfego de pagamentos.
+ */
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer hashTimer;
+    private final Timer verifyTimer;
+    private final Counter rejected;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                          @Value("${security.bcrypt.threads:0}") int threads,
+                          @Value("${security.bcrypt.queueCapacity:64}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new NamedThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+
+        this.hashTimer = Timer.builder("bcrypt.duration").tag("operation", "hash").register(meterRegistry);
+        this.verifyTimer = Timer.builder("bcrypt.duration").tag("operation", "verify").register(meterRegistry);
+        this.rejected = Counter.builder("bcrypt.rejected").register(meterRegistry);
+        Gauge.builder("bcrypt.queue.size", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("bcrypt.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return await(encodeAsync(rawPassword));
+    }
+
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        return submit(hashTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return await(submit(verifyTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /** Indica se o hash foi gerado com custo menor que o configurado e deve ser refeito. */
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> timer.record(task), executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new ServiceOverloadedException("Muitas autenticações simultâneas, tente novamente"));
+        }
+    }
+
+    // na thread da requisição: conta a fila do pool junto com o hash
+    private static <T> T await(CompletableFuture<T> future) {
+        RequestTimings.begin(Phase.BCRYPT);
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        } finally {
+            RequestTimings.end(Phase.BCRYPT);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "bcrypt-" + sequence.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.nimble.gateway.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimble.gateway.repository.UserRepository;
+import com.nimble.gateway.util.Cpf;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Cache curto de "a conta com este CPF ainda existe?", usado no modo {@link PrincipalMode#CACHED}.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, Boolean> existing;
+
+    public PrincipalCache(UserRepository userRepository,
+                          @Value("${jwt.principalCache.ttlMs:30000}") long ttlMs,
+                          @Value("${jwt.principalCache.maxSize:10000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.existing = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public boolean exists(String cpf) {
+        return existing.get(cpf, key -> Cpf.tryParse(key).map(c -> userRepository.existsByCpf(c.value())).orElse(false));
+    }
+
+    public void invalidate(String cpf) {
+        existing.invalidate(cpf);
+    }
+}
@@ -0,0 +1,16 @@
+package com.nimble.gateway.security;
+
+/**
+ * Como o {@link JwtAuthenticationFilter} monta o principal a partir do token.
+ */
+public enum PrincipalMode {
+
+    /** Só as claims verificadas do JWT; nenhuma consulta ao banco. */
+    STATELESS,
+
+    /** Claims do JWT + confirmação de que a conta existe, com cache curto e limitado. */
+    CACHED,
+
+    /** Carrega o usuário do banco a cada requisição (comportamento anterior). */
+    DATABASE
+}
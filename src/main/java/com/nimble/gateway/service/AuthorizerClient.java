@@ -1,6 +1,17 @@
 package com.nimble.gateway.service;
 
+import reactor.core.publisher.Mono;
+
 public interface AuthorizerClient {
 
+    /**
+     * Consulta bloqueante; recusa do autorizador retorna {@code false} e falha de
+     * comunicação lança {@link com.nimble.gateway.exception.AuthorizerUnavailableException}.
+     */
     boolean isApproved();
+
+    /**
+     * Consulta não bloqueante; falhas de comunicação são propagadas como erro do {@link Mono}.
+     */
+    Mono<Boolean> isApprovedAsync();
 }
@@ -0,0 +1,26 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.enums.LedgerEntryType;
+
+import java.math.BigDecimal;
+
+/**
+ * Movimentações de saldo lançadas no razão ({@code ledger_entries}) em partidas dobradas. Nenhuma operação
+ * reescreve o saldo da conta: o saldo é o último snapshot mais os lançamentos posteriores.
+ */
+public interface BalanceService {
+
+    /** Crédito vindo de fora da plataforma (depósito, pagamento com cartão). */
+    void credit(Long userId, BigDecimal amount, LedgerEntryType type, Long chargeId);
+
+    /**
+     * Débito para fora da plataforma (reversão de cartão). Lança {@link com.nimble.gateway.exception.BusinessException}
+     * com a mensagem informada se o saldo não cobrir o débito.
+     */
+    void debit(Long userId, BigDecimal amount, LedgerEntryType type, Long chargeId, String insufficientFundsMessage);
+
+    void transfer(Long fromUserId, Long toUserId, BigDecimal amount, LedgerEntryType type, Long chargeId,
+                  String insufficientFundsMessage);
+
+    BigDecimal balanceOf(Long userId);
+}
@@ -0,0 +1,13 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.dto.response.PaymentStatusResponse;
+
+/**
+ * Gancho de conclusão da liquidação assíncrona de cartão ({@code payments.asyncCard.enabled}). Todo bean que
+ * implementa é chamado depois do commit, com a cobrança em {@code PAID} ou de volta em {@code PENDING} com o motivo.
+ * Roda na thread do pipeline: trabalho lento aqui atrasa as próximas liquidações.
+ */
+public interface CardSettlementCallback {
+
+    void onSettled(PaymentStatusResponse result);
+}
@@ -0,0 +1,18 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.dto.event.ChargeEvent;
+
+import java.util.List;
+
+/**
+ * Destino dos eventos de cobrança drenados do outbox. A implementação é escolhida por {@code outbox.sink}; com
+ * outro valor que não {@code log} ou {@code file}, a aplicação precisa registrar o próprio bean.
+ */
+public interface ChargeEventPublisher {
+
+    /**
+     * Entrega o lote, em ordem de id. Lançar exceção devolve o lote inteiro ao outbox para a próxima rodada,
+     * então o destino pode receber o mesmo evento mais de uma vez.
+     */
+    void publish(List<ChargeEvent> events);
+}
@@ -0,0 +1,14 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.dto.request.ChargeExportRequest;
+
+import java.io.OutputStream;
+
+public interface ChargeExportService {
+
+    /**
+     * Escreve as cobranças do usuário em {@code out} à medida que são lidas do banco, em ordem de id, sem
+     * montar a lista em memória. Se o cliente desconectar, a leitura é interrompida e o método retorna.
+     */
+    void export(String ownerCpf, ChargeExportRequest request, OutputStream out);
+}
@@ -1,18 +1,30 @@
 package com.nimble.gateway.service;
 
+import com.nimble.gateway.dto.request.BatchChargeRequest;
+import com.nimble.gateway.dto.request.ChargePageRequest;
 import com.nimble.gateway.dto.request.ChargeRequest;
+import com.nimble.gateway.dto.response.BatchChargeResponse;
+import com.nimble.gateway.dto.response.ChargePageResponse;
 import com.nimble.gateway.dto.response.ChargeResponse;
 import com.nimble.gateway.enums.ChargeStatus;
 
-import java.util.List;
-
 public interface ChargeService {
 
     ChargeResponse create(String originatorCpf, ChargeRequest request);
 
-    List<ChargeResponse> listSent(String originatorCpf, ChargeStatus status);
+    /**
+     * Cria várias cobranças do mesmo originador de uma vez. Cada item é validado isoladamente (destinatário
+     * inexistente ou o próprio originador viram erro no item); os válidos são gravados juntos.
+     */
+    BatchChargeResponse createBatch(String originatorCpf, BatchChargeRequest request);
+
+    /**
+     * Página de cobranças do usuário, mais recentes primeiro. A próxima página é pedida com o
+     * {@code nextCursor} da anterior; {@code from}/{@code to} filtram pela data de criação.
+     */
+    ChargePageResponse listSent(String originatorCpf, ChargeStatus status, ChargePageRequest page);
 
-    List<ChargeResponse> listReceived(String recipientCpf, ChargeStatus status);
+    ChargePageResponse listReceived(String recipientCpf, ChargeStatus status, ChargePageRequest page);
 
     ChargeResponse cancel(Long chargeId, String requesterCpf);
 }
@@ -0,0 +1,13 @@
+package com.nimble.gateway.service;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    /**
+     * Executa {@code action} uma única vez por ({@code ownerCpf}, {@code key}); repetições devolvem a resposta
+     * guardada. Sem chave, apenas executa.
+     */
+    <T> T execute(String ownerCpf, String key, String operation, Object request,
+                  Class<T> responseType, Supplier<T> action);
+}
@@ -0,0 +1,28 @@
+package com.nimble.gateway.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+public interface LedgerService {
+
+    /** Consolida no snapshot de cada conta os lançamentos que chegaram desde a última execução. */
+    int snapshot();
+
+    /** Consolida uma conta, abrindo no razão o saldo anterior a ele se ainda não foi aberto. */
+    void snapshot(Long userId);
+
+    /**
+     * Refaz o saldo de todas as contas a partir do razão e compara com o saldo atual. Com {@code rebuild}
+     * os snapshots são reescritos com o valor refeito.
+     */
+    ReplayReport replay(boolean rebuild);
+
+    record Drift(Long userId, BigDecimal balance, BigDecimal replayed) { }
+
+    record ReplayReport(long accounts, List<Drift> drifts, List<UUID> unbalancedJournals) {
+        public boolean consistent() {
+            return drifts.isEmpty() && unbalancedJournals.isEmpty();
+        }
+    }
+}
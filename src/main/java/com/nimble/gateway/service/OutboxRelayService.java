@@ -0,0 +1,7 @@
+package com.nimble.gateway.service;
+
+public interface OutboxRelayService {
+
+    /** Entrega ao {@link ChargeEventPublisher} os eventos pendentes no outbox e devolve quantos saíram. */
+    int relay();
+}
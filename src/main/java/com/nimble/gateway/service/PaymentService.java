@@ -1,7 +1,11 @@
 package com.nimble.gateway.service;
 
+import com.nimble.gateway.dto.request.BatchPaymentRequest;
 import com.nimble.gateway.dto.request.DepositRequest;
 import com.nimble.gateway.dto.request.PaymentRequest;
+import com.nimble.gateway.dto.response.BatchPaymentResponse;
+import com.nimble.gateway.dto.response.PaymentStatusResponse;
+import com.nimble.gateway.enums.ChargeStatus;
 
 import java.math.BigDecimal;
 
@@ -9,5 +13,14 @@ public interface PaymentService {
 
     BigDecimal deposit(String cpf, DepositRequest request);
 
-    void pay(String payerCpf, PaymentRequest request);
-}
\ No newline at end of file
+    /**
+     * Devolve o status em que a cobrança ficou: {@code PAID}, ou {@code PROCESSING} para cartão com
+     * {@code payments.asyncCard.enabled}, em que o autorizador é consultado em segundo plano.
+     */
+    ChargeStatus pay(String payerCpf, PaymentRequest request);
+
+    BatchPaymentResponse payBatch(String payerCpf, BatchPaymentRequest request);
+
+    /** Situação do pagamento de uma cobrança; só o originador e o destinatário a enxergam. */
+    PaymentStatusResponse status(String cpf, Long chargeId);
+}
@@ -0,0 +1,22 @@
+package com.nimble.gateway.service;
+
+import java.util.Optional;
+
+/**
+ * Parte imutável da conta (id, CPF, e-mail, nome) em cache local. Saldo e hash de senha nunca passam por
+ * aqui: quem precisa deles carrega o {@code User} do banco.
+ */
+public interface UserIdentityService {
+
+    Optional<UserIdentity> findByCpf(String cpf);
+
+    Optional<UserIdentity> findByEmail(String email);
+
+    /** Descarta localmente a conta; chamado pelas notificações de alteração vindas do banco. */
+    void evict(long cpf);
+
+    /** Descarta tudo, para quando notificações podem ter sido perdidas. */
+    void evictAll();
+
+    record UserIdentity(Long id, String cpf, String email, String name) { }
+}
@@ -1,47 +1,74 @@
 package com.nimble.gateway.service.impl;
 
+import com.nimble.gateway.exception.AuthorizerUnavailableException;
 import com.nimble.gateway.service.AuthorizerClient;
+import com.nimble.gateway.util.RequestTimings;
+import com.nimble.gateway.util.RequestTimings.Phase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.Map;
 
 @Service
 public class AuthorizerClientImpl implements AuthorizerClient {
 
+    private static final ParameterizedTypeReference<Map<String, Object>> BODY = new ParameterizedTypeReference<>() {};
+
     private final WebClient webClient;
+    private final String path;
+    private final Duration callTimeout;
 
-    public AuthorizerClientImpl(WebClient.Builder builder) {
-        this.webClient = builder.baseUrl("https://zsy6tx7aql.execute-api.sa-east-1.amazonaws.com").build();
+    public AuthorizerClientImpl(WebClient authorizerWebClient,
+                                @Value("${authorizer.path:/authorizer}") String path,
+                                @Value("${authorizer.callTimeoutMs:3000}") long callTimeoutMs) {
+        this.webClient = authorizerWebClient;
+        this.path = path;
+        this.callTimeout = Duration.ofMillis(callTimeoutMs);
     }
 
     @Override
     public boolean isApproved() {
+        RequestTimings.begin(Phase.AUTHORIZER);
         try {
-            var response = webClient.get()
-                    .uri("/authorizer")
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .block();
-
-            if (response == null) return false;
-
-
-            /* acesso o data.authorized
-                {
-                "status": "success",
-                "data": {
-                "authorized": true
-                }
-            }*/
-            Object data = response.get("data");
-            if (data instanceof Map<?, ?> dataMap) {
-                Object authorized = dataMap.get("authorized");
-                return Boolean.TRUE.equals(authorized);
-            }
-            return false;
-        } catch (Exception e) {
-            return false;
+            return Boolean.TRUE.equals(isApprovedAsync().block());
+        } catch (RuntimeException e) {
+            throw new AuthorizerUnavailableException("Autorizador externo indisponível", e);
+        } finally {
+            RequestTimings.end(Phase.AUTHORIZER);
+        }
+    }
+
+    @Override
+    public Mono<Boolean> isApprovedAsync() {
+        return webClient.get()
+                .uri(path)
+                .exchangeToMono(response -> {
+                    // 5xx é falha do autorizador; 4xx é recusa (o corpo ainda traz data.authorized=false)
+                    if (response.statusCode().is5xxServerError()) return response.createError();
+                    return response.bodyToMono(BODY)
+                            .map(AuthorizerClientImpl::authorized)
+                            .onErrorReturn(false);
+                })
+                .defaultIfEmpty(false)
+                .timeout(callTimeout);
+    }
+
+    /* acesso o data.authorized
+        {
+        "status": "success",
+        "data": {
+        "authorized": true
+        }
+    }*/
+    private static boolean authorized(Map<String, Object> response) {
+        Object data = response.get("data");
+        if (data instanceof Map<?, ?> dataMap) {
+            return Boolean.TRUE.equals(dataMap.get("authorized"));
         }
+        return false;
     }
-}
\ No newline at end of file
+}
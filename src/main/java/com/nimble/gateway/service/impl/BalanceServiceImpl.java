@@ -0,0 +1,81 @@
+package com.nimble.gateway.service.impl;
+
+import com.nimble.gateway.enums.LedgerEntryType;
+import com.nimble.gateway.exception.BusinessException;
+import com.nimble.gateway.exception.NotFoundException;
+import com.nimble.gateway.repository.LedgerEntryRepository;
+import com.nimble.gateway.repository.UserRepository;
+import com.nimble.gateway.service.BalanceService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Service
+public class BalanceServiceImpl implements BalanceService {
+
+    private final UserRepository userRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+
+    public BalanceServiceImpl(UserRepository userRepository, LedgerEntryRepository ledgerEntryRepository) {
+        this.userRepository = userRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+    }
+
+    @Override
+    @Transactional
+    public void credit(Long userId, BigDecimal amount, LedgerEntryType type, Long chargeId) {
+        lockForCredit(userId);
+        ledgerEntryRepository.post(UUID.randomUUID(), null, userId, amount, type.name(), chargeId);
+    }
+
+    @Override
+    @Transactional
+    public void debit(Long userId, BigDecimal amount, LedgerEntryType type, Long chargeId,
+                      String insufficientFundsMessage) {
+        lockForDebit(userId);
+        checkFunds(userId, amount, insufficientFundsMessage);
+        ledgerEntryRepository.post(UUID.randomUUID(), userId, null, amount, type.name(), chargeId);
+    }
+
+    // as contas são travadas sempre em ordem crescente de id; o débito só bloqueia outros débitos da mesma conta,
+    // então transferências cruzadas A→B e B→A não esperam uma pela outra
+    @Override
+    @Transactional
+    public void transfer(Long fromUserId, Long toUserId, BigDecimal amount, LedgerEntryType type, Long chargeId,
+                         String insufficientFundsMessage) {
+        if (fromUserId < toUserId) {
+            lockForDebit(fromUserId);
+            lockForCredit(toUserId);
+        } else {
+            lockForCredit(toUserId);
+            lockForDebit(fromUserId);
+        }
+        checkFunds(fromUserId, amount, insufficientFundsMessage);
+        ledgerEntryRepository.post(UUID.randomUUID(), fromUserId, toUserId, amount, type.name(), chargeId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BigDecimal balanceOf(Long userId) {
+        return userRepository.findBalanceById(userId)
+                .orElseThrow(() -> new NotFoundException("Usuário não encontrado"));
+    }
+
+    private void lockForCredit(Long userId) {
+        if (userRepository.lockForCredit(userId).isEmpty())
+            throw new NotFoundException("Usuário não encontrado");
+    }
+
+    private void lockForDebit(Long userId) {
+        if (userRepository.lockForDebit(userId).isEmpty())
+            throw new NotFoundException("Usuário não encontrado");
+    }
+
+    // com o débito da conta travado, nenhum outro débito concorrente pode invalidar a leitura
+    private void checkFunds(Long userId, BigDecimal amount, String insufficientFundsMessage) {
+        if (balanceOf(userId).compareTo(amount) < 0)
+            throw new BusinessException(insufficientFundsMessage);
+    }
+}
@@ -0,0 +1,104 @@
+package com.nimble.gateway.service.impl;
+
+import com.nimble.gateway.enums.PaymentMethod;
+import com.nimble.gateway.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fila limitada da liquidação assíncrona de cartão ({@code payments.asyncCard.enabled}): {@code workers} threads
+ * consultam o autorizador em paralelo e até {@code queueCapacity} pagamentos esperam a vez. Cheia, a fila recusa
+ * na entrada, antes de a cobrança sair de PENDING, e o cliente recebe 503 com Retry-After. Os workers ficam abaixo
+ * do bulkhead do autorizador para sobrar vaga às chamadas síncronas.
+ */
+@Component
+public class CardSettlementPipeline implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CardSettlementPipeline.class);
+
+    private final boolean enabled;
+    private final int capacity;
+    private final Semaphore slots;
+    private final ExecutorService workers;
+    private final long shutdownTimeoutMs;
+    private final Counter approved;
+    private final Counter declined;
+    private final Counter paid;
+
+    public CardSettlementPipeline(@Value("${payments.asyncCard.enabled:false}") boolean enabled,
+                                  @Value("${payments.asyncCard.workers:16}") int workers,
+                                  @Value("${payments.asyncCard.queueCapacity:200}") int queueCapacity,
+                                  @Value("${payments.asyncCard.shutdownTimeoutMs:10000}") long shutdownTimeoutMs,
+                                  MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.capacity = workers + queueCapacity;
+        this.slots = new Semaphore(capacity);
+        // fila do executor sem limite: quem limita é o semáforo, reservado antes de a cobrança mudar de estado
+        this.workers = enabled
+                ? Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("card-settlement-", 0).daemon().factory())
+                : null;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        Gauge.builder("payments.card.async.inflight", slots, s -> capacity - s.availablePermits()).register(meterRegistry);
+        this.approved = Counter.builder("payments.card.async").tag("outcome", "approved").register(meterRegistry);
+        this.declined = Counter.builder("payments.card.async").tag("outcome", "declined").register(meterRegistry);
+        // o mesmo contador do PaymentController: pagamento efetivado é contado quando liquida
+        this.paid = Counter.builder("payments.paid").tag("method", PaymentMethod.CARD.name()).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reserva um lugar, roda {@code admit} na thread do chamador e enfileira {@code settle}. Se {@code admit} falha,
+     * o lugar volta e a exceção segue para o chamador.
+     */
+    public void submit(Runnable admit, Runnable settle) {
+        if (!slots.tryAcquire())
+            throw new ServiceOverloadedException("Muitos pagamentos com cartão em processamento, tente novamente");
+        try {
+            admit.run();
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+        workers.execute(() -> {
+            try {
+                settle.run();
+            } catch (RuntimeException e) {
+                // a cobrança fica em PROCESSING até a varredura de presas devolvê-la a PENDING
+                log.error("Falha na liquidação assíncrona de cartão", e);
+            } finally {
+                slots.release();
+            }
+        });
+    }
+
+    void settled(boolean approved) {
+        if (approved) {
+            this.approved.increment();
+            paid.increment();
+        } else {
+            declined.increment();
+        }
+    }
+
+    // termina o que já entrou na fila; o que passar do prazo fica para a varredura de presas
+    @Override
+    public void destroy() throws InterruptedException {
+        if (workers == null) return;
+        workers.shutdown();
+        if (!workers.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) workers.shutdownNow();
+    }
+}
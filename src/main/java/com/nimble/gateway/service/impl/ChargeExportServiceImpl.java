@@ -0,0 +1,129 @@
+package com.nimble.gateway.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.nimble.gateway.dto.request.ChargeExportRequest;
+import com.nimble.gateway.enums.ExportFormat;
+import com.nimble.gateway.repository.ChargeExportRepository;
+import com.nimble.gateway.repository.ChargeExportRepository.ExportedCharge;
+import com.nimble.gateway.service.ChargeExportService;
+import com.nimble.gateway.util.Cpf;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+
+@Service
+public class ChargeExportServiceImpl implements ChargeExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChargeExportServiceImpl.class);
+
+    static final String CSV_HEADER =
+            "id,originatorCpf,recipientCpf,amount,description,status,paymentMethod,createdAt,paidAt,paidByCpf";
+
+    private final ChargeExportRepository repository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+    private final int fetchSize;
+
+    public ChargeExportServiceImpl(ChargeExportRepository repository, ObjectMapper objectMapper,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${charges.export.fetchSize:1000}") int fetchSize) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public void export(String ownerCpf, ChargeExportRequest request, OutputStream out) {
+        long owner = Cpf.parse(ownerCpf).value();
+        try {
+            // a transação mantém o cursor do driver aberto; cada bloco de fetchSize linhas é escrito e descartado
+            readOnlyTx.executeWithoutResult(status -> {
+                if (request.getFormat() == ExportFormat.CSV) writeCsv(owner, request, out);
+                else writeNdjson(owner, request, out);
+            });
+        } catch (UncheckedIOException e) {
+            // cliente desconectou: a exceção já fechou o cursor e encerrou a transação
+            log.debug("Exportação de cobranças interrompida: {}", e.getMessage());
+        }
+    }
+
+    private void writeNdjson(long owner, ChargeExportRequest request, OutputStream out) {
+        // gerador com buffer próprio e sem flush por objeto: o buffer do container decide quando enviar
+        ObjectWriter rowWriter = objectMapper.writerFor(ExportedCharge.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            repository.stream(owner, request, fetchSize, charge -> {
+                try {
+                    rowWriter.writeValue(generator, charge);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeCsv(long owner, ChargeExportRequest request, OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+            repository.stream(owner, request, fetchSize, charge -> {
+                try {
+                    writer.write(csvLine(charge));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String csvLine(ExportedCharge c) {
+        return String.join(",",
+                String.valueOf(c.id()),
+                c.originatorCpf(),
+                c.recipientCpf(),
+                c.amount().toPlainString(),
+                csv(c.description()),
+                c.status(),
+                nullToEmpty(c.paymentMethod()),
+                timestamp(c.createdAt()),
+                timestamp(c.paidAt()),
+                nullToEmpty(c.paidByCpf())) + '\n';
+    }
+
+    // RFC 4180: aspas em volta quando há separador, aspas ou quebra de linha; aspas internas dobradas
+    private static String csv(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String timestamp(OffsetDateTime value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -1,19 +1,43 @@
 package com.nimble.gateway.service.impl;
 
+import com.nimble.gateway.dto.event.ChargeEvent;
+import com.nimble.gateway.dto.request.BatchChargeRequest;
+import com.nimble.gateway.dto.request.ChargePageRequest;
 import com.nimble.gateway.dto.request.ChargeRequest;
+import com.nimble.gateway.dto.response.BatchChargeResponse;
+import com.nimble.gateway.dto.response.ChargePageResponse;
 import com.nimble.gateway.dto.response.ChargeResponse;
 import com.nimble.gateway.entity.Charge;
 import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.ChargeEventType;
 import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.enums.LedgerEntryType;
 import com.nimble.gateway.exception.BusinessException;
 import com.nimble.gateway.exception.NotFoundException;
+import com.nimble.gateway.repository.ChargeOutboxRepository;
 import com.nimble.gateway.repository.ChargeRepository;
 import com.nimble.gateway.repository.UserRepository;
 import com.nimble.gateway.service.AuthorizerClient;
+import com.nimble.gateway.service.BalanceService;
 import com.nimble.gateway.service.ChargeService;
+import com.nimble.gateway.service.UserIdentityService;
+import com.nimble.gateway.service.UserIdentityService.UserIdentity;
+import com.nimble.gateway.util.Cpf;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.nimble.gateway.enums.PaymentMethod;
@@ -21,71 +45,189 @@ import com.nimble.gateway.enums.PaymentMethod;
 @Service
 public class ChargeServiceImpl implements ChargeService {
 
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+    private static final String CURSOR_PREFIX = "id:";
+
     private final ChargeRepository chargeRepository;
     private final UserRepository userRepository;
+    private final UserIdentityService identities;
     private final AuthorizerClient authorizer;
+    private final BalanceService balanceService;
+    private final ChargeOutboxRepository outboxRepository;
+    private final TransactionTemplate tx;
 
-    public ChargeServiceImpl(ChargeRepository chargeRepository, UserRepository userRepository, AuthorizerClient authorizer) {
+    public ChargeServiceImpl(ChargeRepository chargeRepository, UserRepository userRepository,
+                             UserIdentityService identities, AuthorizerClient authorizer,
+                             BalanceService balanceService, ChargeOutboxRepository outboxRepository,
+                             PlatformTransactionManager transactionManager) {
         this.chargeRepository = chargeRepository;
         this.userRepository = userRepository;
+        this.identities = identities;
         this.authorizer = authorizer;
+        this.balanceService = balanceService;
+        this.outboxRepository = outboxRepository;
+        this.tx = new TransactionTemplate(transactionManager);
     }
 
     @Override
     public ChargeResponse create(String originatorCpf, ChargeRequest request) {
-        User originator = userRepository.findByCpf(originatorCpf)
+        UserIdentity originator = identities.findByCpf(originatorCpf)
                 .orElseThrow(() -> new NotFoundException("Originador não encontrado"));
 
-        User recipient = userRepository.findByCpf(request.getRecipientCpf())
+        UserIdentity recipient = identities.findByCpf(request.getRecipientCpf())
                 .orElseThrow(() -> new NotFoundException("Destinatário não encontrado"));
 
-        if (originator.getCpf().equals(recipient.getCpf())) {
+        if (originator.cpf().equals(recipient.cpf())) {
             throw new BusinessException("Não é permitido criar cobrança para si mesmo");
         }
 
+        // referências pelo id: o insert só precisa das chaves, sem carregar as contas
         Charge c = Charge.builder()
-                .originator(originator)
-                .recipient(recipient)
+                .originator(userRepository.getReferenceById(originator.id()))
+                .recipient(userRepository.getReferenceById(recipient.id()))
                 .amount(request.getAmount())
                 .description(request.getDescription())
                 .status(ChargeStatus.PENDING)
+                .createdAt(OffsetDateTime.now())
                 .build();
 
-        c = chargeRepository.save(c);
-        return toResponse(c);
+        Charge saved = tx.execute(status -> {
+            Charge charge = chargeRepository.save(c);
+            outboxRepository.append(List.of(event(ChargeEventType.CREATED, charge, originator.cpf(), recipient.cpf())));
+            return charge;
+        });
+        return toResponse(saved, originator.cpf(), recipient.cpf());
     }
 
     @Override
-    public List<ChargeResponse> listSent(String originatorCpf, ChargeStatus status) {
-        User originator = userRepository.findByCpf(originatorCpf)
-                .orElseThrow(() -> new NotFoundException("Usuário não encontrado"));
-        return chargeRepository.findByOriginatorAndStatus(originator, status)
-                .stream().map(this::toResponse).collect(Collectors.toList());
+    public BatchChargeResponse createBatch(String originatorCpf, BatchChargeRequest request) {
+        UserIdentity identity = identities.findByCpf(originatorCpf)
+                .orElseThrow(() -> new NotFoundException("Originador não encontrado"));
+        User originator = userRepository.getReferenceById(identity.id());
+
+        // todos os destinatários em uma consulta só
+        List<ChargeRequest> items = request.getItems();
+        Map<Long, User> recipients = userRepository.findByCpfIn(items.stream()
+                        .map(item -> Cpf.tryParse(item.getRecipientCpf())).flatMap(Optional::stream)
+                        .map(Cpf::value).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(User::getCpfNumber, Function.identity()));
+
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Charge> charges = new ArrayList<>(items.size());
+        List<BatchChargeResponse.Item> results = new ArrayList<>(items.size());
+        for (ChargeRequest item : items) {
+            User recipient = Cpf.tryParse(item.getRecipientCpf()).map(cpf -> recipients.get(cpf.value())).orElse(null);
+            String error = recipient == null ? "Destinatário não encontrado"
+                    : recipient.getId().equals(originator.getId()) ? "Não é permitido criar cobrança para si mesmo"
+                    : null;
+            results.add(BatchChargeResponse.Item.builder().error(error).build());
+            charges.add(error == null ? Charge.builder()
+                    .originator(originator)
+                    .recipient(recipient)
+                    .amount(item.getAmount())
+                    .description(item.getDescription())
+                    .status(ChargeStatus.PENDING)
+                    .createdAt(now)
+                    .build() : null);
+        }
+
+        // ids vêm da sequência em blocos; os inserts saem no flush do commit, agrupados em batches do JDBC
+        List<Charge> valid = charges.stream().filter(Objects::nonNull).toList();
+        tx.executeWithoutResult(status -> {
+            chargeRepository.saveAll(valid);
+            outboxRepository.append(valid.stream()
+                    .map(c -> event(ChargeEventType.CREATED, c, identity.cpf(), c.getRecipient().getCpf())).toList());
+        });
+
+        for (int i = 0; i < charges.size(); i++) {
+            if (charges.get(i) != null) results.get(i).setId(charges.get(i).getId());
+        }
+        return BatchChargeResponse.builder()
+                .created(valid.size())
+                .rejected(items.size() - valid.size())
+                .items(results)
+                .build();
     }
 
+    // read-only nos serviços: com readReplica.enabled as listagens vão para a réplica
     @Override
-    public List<ChargeResponse> listReceived(String recipientCpf, ChargeStatus status) {
-        User recipient = userRepository.findByCpf(recipientCpf)
+    @Transactional(readOnly = true)
+    public ChargePageResponse listSent(String originatorCpf, ChargeStatus status, ChargePageRequest page) {
+        User originator = userReference(originatorCpf);
+        int limit = pageSize(page);
+        return toPage(chargeRepository.findSentPage(originator, status, decodeCursor(page.getCursor()),
+                page.getFrom(), page.getTo(), Limit.of(limit + 1)), limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ChargePageResponse listReceived(String recipientCpf, ChargeStatus status, ChargePageRequest page) {
+        User recipient = userReference(recipientCpf);
+        int limit = pageSize(page);
+        return toPage(chargeRepository.findReceivedPage(recipient, status, decodeCursor(page.getCursor()),
+                page.getFrom(), page.getTo(), Limit.of(limit + 1)), limit);
+    }
+
+    private User userReference(String cpf) {
+        UserIdentity identity = identities.findByCpf(cpf)
                 .orElseThrow(() -> new NotFoundException("Usuário não encontrado"));
-        return chargeRepository.findByRecipientAndStatus(recipient, status)
-                .stream().map(this::toResponse).collect(Collectors.toList());
+        return userRepository.getReferenceById(identity.id());
+    }
+
+    // limite acima do máximo é reduzido em vez de recusado; o cliente segue pelo nextCursor
+    private static int pageSize(ChargePageRequest page) {
+        return page.getLimit() == null ? DEFAULT_PAGE_SIZE : Math.min(page.getLimit(), MAX_PAGE_SIZE);
+    }
+
+    // busca um item além do limite só para saber se existe próxima página
+    private static ChargePageResponse toPage(List<ChargeResponse> charges, int limit) {
+        boolean hasNext = charges.size() > limit;
+        List<ChargeResponse> items = hasNext ? charges.subList(0, limit) : charges;
+        return ChargePageResponse.builder()
+                .items(items)
+                .nextCursor(hasNext ? encodeCursor(items.get(items.size() - 1).getId()) : null)
+                .build();
     }
 
-    private ChargeResponse toResponse(Charge c) {
+    // cursor opaco: o cliente só devolve o que recebeu, o formato pode mudar sem quebrar a API
+    static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return Long.MAX_VALUE;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (raw.startsWith(CURSOR_PREFIX)) return Long.parseLong(raw.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            // cai no erro abaixo
+        }
+        throw new BusinessException("Cursor de paginação inválido");
+    }
+
+    // pacote: mapeamento medido em ChargeMappingBenchmark
+    static ChargeResponse toResponse(Charge c) {
+        return toResponse(c, c.getOriginator().getCpf(), c.getRecipient().getCpf());
+    }
+
+    static ChargeResponse toResponse(Charge c, String originatorCpf, String recipientCpf) {
         return ChargeResponse.builder()
                 .id(c.getId())
-                .originatorCpf(c.getOriginator().getCpf())
-                .recipientCpf(c.getRecipient().getCpf())
+                .originatorCpf(originatorCpf)
+                .recipientCpf(recipientCpf)
                 .amount(c.getAmount())
                 .description(c.getDescription())
                 .status(c.getStatus())
+                .createdAt(c.getCreatedAt())
                 .paidAt(c.getPaidAt())
                 .build();
     }
 
     @Override
     public ChargeResponse cancel(Long chargeId, String requesterCpf) {
-        Charge charge = chargeRepository.findById(chargeId)
+        Charge charge = chargeRepository.findWithUsersById(chargeId)
                 .orElseThrow(() -> new NotFoundException("Cobrança não encontrada"));
 
         // só o originador pode cancelar
@@ -98,9 +240,8 @@ public class ChargeServiceImpl implements ChargeService {
         }
 
         if (charge.getStatus() == ChargeStatus.PENDING) {
-            charge.setStatus(ChargeStatus.CANCELLED);
-            chargeRepository.save(charge);
-            return toResponse(charge);
+            tx.executeWithoutResult(status -> markCancelled(charge));
+            return cancelledResponse(charge);
         }
 
         if (charge.getStatus() == ChargeStatus.PAID) {
@@ -110,22 +251,19 @@ public class ChargeServiceImpl implements ChargeService {
                 throw new BusinessException("Método de pagamento desconhecido para cancelamento");
             }
 
-            User originator = userRepository.findById(charge.getOriginator().getId())
-                    .orElseThrow(() -> new NotFoundException("Originador não encontrado"));
-
-            // quem pagou foi o destinatário
-            User payer = userRepository.findByCpf(charge.getPaidByCpf())
-                    .orElseThrow(() -> new NotFoundException("Pagador não encontrado"));
+            Long originatorId = charge.getOriginator().getId();
 
             if (charge.getPaymentMethod() == PaymentMethod.BALANCE) {
+                // quem pagou foi o destinatário
+                if (charge.getPaidBy() == null) throw new NotFoundException("Pagador não encontrado");
+                Long payerId = charge.getPaidBy().getId();
+
                 // estorno: tirar do originador e devolver ao pagador
-                if (originator.getBalance().compareTo(charge.getAmount()) < 0) {
-                    throw new BusinessException("Saldo do originador insuficiente para estorno");
-                }
-                originator.setBalance(originator.getBalance().subtract(charge.getAmount()));
-                payer.setBalance(payer.getBalance().add(charge.getAmount()));
-                userRepository.save(originator);
-                userRepository.save(payer);
+                tx.executeWithoutResult(status -> {
+                    markCancelled(charge);
+                    balanceService.transfer(originatorId, payerId, charge.getAmount(), LedgerEntryType.REFUND,
+                            charge.getId(), "Saldo do originador insuficiente para estorno");
+                });
 
             } else if (charge.getPaymentMethod() == PaymentMethod.CARD) {
                 // consulta autorizador externo
@@ -133,18 +271,44 @@ public class ChargeServiceImpl implements ChargeService {
                     throw new BusinessException("Autorizador externo recusou o cancelamento");
                 }
                 // reverte crédito concedido ao originador na liquidação do cartão
-                if (originator.getBalance().compareTo(charge.getAmount()) < 0) {
-                    throw new BusinessException("Saldo do originador insuficiente para reversão");
-                }
-                originator.setBalance(originator.getBalance().subtract(charge.getAmount()));
-                userRepository.save(originator);
+                tx.executeWithoutResult(status -> {
+                    markCancelled(charge);
+                    balanceService.debit(originatorId, charge.getAmount(), LedgerEntryType.REFUND, charge.getId(),
+                            "Saldo do originador insuficiente para reversão");
+                });
             }
 
-            charge.setStatus(ChargeStatus.CANCELLED);
-            chargeRepository.save(charge);
-            return toResponse(charge);
+            return cancelledResponse(charge);
         }
 
         throw new BusinessException("Estado da cobrança inválido para cancelamento");
     }
-}
\ No newline at end of file
+
+    // transição condicional a partir do status lido; falha se outra operação alterou a cobrança nesse meio tempo
+    private void markCancelled(Charge charge) {
+        if (chargeRepository.updateStatus(charge.getId(), charge.getStatus(), ChargeStatus.CANCELLED) == 0) {
+            throw new BusinessException("Cobrança foi alterada por outra operação, tente novamente");
+        }
+        outboxRepository.append(List.of(event(ChargeEventType.CANCELLED, charge,
+                charge.getOriginator().getCpf(), charge.getRecipient().getCpf())));
+    }
+
+    // CPFs passados à parte: na criação as contas são só referências, sem CPF carregado
+    static ChargeEvent event(ChargeEventType type, Charge c, String originatorCpf, String recipientCpf) {
+        return ChargeEvent.builder()
+                .type(type)
+                .chargeId(c.getId())
+                .originatorCpf(originatorCpf)
+                .recipientCpf(recipientCpf)
+                .amount(c.getAmount())
+                .paymentMethod(c.getPaymentMethod())
+                .occurredAt(OffsetDateTime.now())
+                .build();
+    }
+
+    private ChargeResponse cancelledResponse(Charge charge) {
+        ChargeResponse response = toResponse(charge);
+        response.setStatus(ChargeStatus.CANCELLED);
+        return response;
+    }
+}
@@ -0,0 +1,70 @@
+package com.nimble.gateway.service.impl;
+
+import com.nimble.gateway.dto.request.BatchChargeRequest;
+import com.nimble.gateway.dto.request.ChargePageRequest;
+import com.nimble.gateway.dto.request.ChargeRequest;
+import com.nimble.gateway.dto.response.BatchChargeResponse;
+import com.nimble.gateway.dto.response.ChargePageResponse;
+import com.nimble.gateway.dto.response.ChargeResponse;
+import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.enums.SettlementResult;
+import com.nimble.gateway.exception.BusinessException;
+import com.nimble.gateway.repository.SettlementRepository;
+import com.nimble.gateway.service.AuthorizerClient;
+import com.nimble.gateway.service.ChargeService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cancelamento liquidado por uma única função no banco; o restante delega ao {@link ChargeServiceImpl}.
+ */
+@Primary
+@Service
+@ConditionalOnProperty(name = "payments.fastPath", havingValue = "true")
+public class FastPathChargeService implements ChargeService {
+
+    private final ChargeServiceImpl jpaPath;
+    private final SettlementRepository settlementRepository;
+    private final AuthorizerClient authorizer;
+
+    public FastPathChargeService(ChargeServiceImpl jpaPath, SettlementRepository settlementRepository,
+                                 AuthorizerClient authorizer) {
+        this.jpaPath = jpaPath;
+        this.settlementRepository = settlementRepository;
+        this.authorizer = authorizer;
+    }
+
+    @Override
+    public ChargeResponse create(String originatorCpf, ChargeRequest request) {
+        return jpaPath.create(originatorCpf, request);
+    }
+
+    @Override
+    public BatchChargeResponse createBatch(String originatorCpf, BatchChargeRequest request) {
+        return jpaPath.createBatch(originatorCpf, request);
+    }
+
+    @Override
+    public ChargePageResponse listSent(String originatorCpf, ChargeStatus status, ChargePageRequest page) {
+        return jpaPath.listSent(originatorCpf, status, page);
+    }
+
+    @Override
+    public ChargePageResponse listReceived(String recipientCpf, ChargeStatus status, ChargePageRequest page) {
+        return jpaPath.listReceived(recipientCpf, status, page);
+    }
+
+    @Override
+    public ChargeResponse cancel(Long chargeId, String requesterCpf) {
+        var cancellation = settlementRepository.cancel(chargeId, requesterCpf, false);
+        if (cancellation.result() == SettlementResult.AUTHORIZATION_REQUIRED) {
+            // consulta autorizador externo
+            if (!authorizer.isApproved())
+                throw new BusinessException("Autorizador externo recusou o cancelamento");
+            cancellation = settlementRepository.cancel(chargeId, requesterCpf, true);
+        }
+        cancellation.result().throwIfRejected();
+        return cancellation.charge();
+    }
+}
@@ -0,0 +1,78 @@
+package com.nimble.gateway.service.impl;
+
+import com.nimble.gateway.dto.request.BatchPaymentRequest;
+import com.nimble.gateway.dto.request.DepositRequest;
+import com.nimble.gateway.dto.request.PaymentRequest;
+import com.nimble.gateway.dto.response.BatchPaymentResponse;
+import com.nimble.gateway.dto.response.PaymentStatusResponse;
+import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.enums.PaymentMethod;
+import com.nimble.gateway.enums.SettlementResult;
+import com.nimble.gateway.exception.BusinessException;
+import com.nimble.gateway.repository.SettlementRepository;
+import com.nimble.gateway.service.AuthorizerClient;
+import com.nimble.gateway.service.PaymentService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+
+/**
+ * Pagamento liquidado por uma única função no banco (status, destinatário, saldos e transição da cobrança).
+ * Cartão faz uma chamada de validação, consulta o autorizador e só então liquida.
+ * Com {@code payments.fastPath=false} vale o {@link PaymentServiceImpl}, que também atende o cartão assíncrono.
+ */
+@Primary
+@Service
+@ConditionalOnProperty(name = "payments.fastPath", havingValue = "true")
+public class FastPathPaymentService implements PaymentService {
+
+    private final PaymentServiceImpl jpaPath;
+    private final SettlementRepository settlementRepository;
+    private final AuthorizerClient authorizer;
+    private final CardSettlementPipeline cardSettlement;
+
+    public FastPathPaymentService(PaymentServiceImpl jpaPath, SettlementRepository settlementRepository,
+                                  AuthorizerClient authorizer, CardSettlementPipeline cardSettlement) {
+        this.jpaPath = jpaPath;
+        this.settlementRepository = settlementRepository;
+        this.authorizer = authorizer;
+        this.cardSettlement = cardSettlement;
+    }
+
+    @Override
+    public BigDecimal deposit(String cpf, DepositRequest request) {
+        return jpaPath.deposit(cpf, request);
+    }
+
+    @Override
+    public ChargeStatus pay(String payerCpf, PaymentRequest request) {
+        // a resposta sai antes do autorizador: uma ida a mais ao banco não pesa
+        if (request.getMethod() == PaymentMethod.CARD && cardSettlement.isEnabled()) return jpaPath.pay(payerCpf, request);
+
+        if (request.getMethod() == PaymentMethod.CARD
+                && (request.getCardNumber() == null || request.getCardExpiration() == null || request.getCardCvv() == null))
+            throw new BusinessException("Dados de cartão incompletos");
+
+        SettlementResult result = settlementRepository.pay(request.getChargeId(), payerCpf, request.getMethod(), false);
+        if (result == SettlementResult.AUTHORIZATION_REQUIRED) {
+            if (!authorizer.isApproved())
+                throw new BusinessException("Pagamento via cartão não autorizado pelo autorizador externo");
+            result = settlementRepository.pay(request.getChargeId(), payerCpf, request.getMethod(), true);
+        }
+        result.throwIfRejected();
+        return ChargeStatus.PAID;
+    }
+
+    // o lote já liquida tudo em uma transação com escritas em lote
+    @Override
+    public BatchPaymentResponse payBatch(String payerCpf, BatchPaymentRequest request) {
+        return jpaPath.payBatch(payerCpf, request);
+    }
+
+    @Override
+    public PaymentStatusResponse status(String cpf, Long chargeId) {
+        return jpaPath.status(cpf, chargeId);
+    }
+}
@@ -0,0 +1,55 @@
+package com.nimble.gateway.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.dto.event.ChargeEvent;
+import com.nimble.gateway.service.ChargeEventPublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@code outbox.sink=file}: acrescenta os eventos, um JSON por linha, em {@code outbox.file.path}. Serve para
+ * desenvolvimento e testes locais; o arquivo só cresce.
+ */
+@Service
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "file")
+public class FileChargeEventPublisher implements ChargeEventPublisher {
+
+    private final ObjectMapper objectMapper;
+    private final Path path;
+    // trava em vez de synchronized: com threads virtuais, I/O dentro de synchronized prende a carrier thread
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public FileChargeEventPublisher(ObjectMapper objectMapper,
+                                    @Value("${outbox.file.path:charge-events.jsonl}") String path) {
+        this.objectMapper = objectMapper;
+        this.path = Path.of(path);
+    }
+
+    // um relay por vez no arquivo: linhas de lotes diferentes não se misturam
+    @Override
+    public void publish(List<ChargeEvent> events) {
+        lock.lock();
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (ChargeEvent event : events) {
+                out.write(objectMapper.writeValueAsString(event));
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.nimble.gateway.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimble.gateway.entity.IdempotencyKey;
+import com.nimble.gateway.enums.IdempotencyStatus;
+import com.nimble.gateway.exception.BusinessException;
+import com.nimble.gateway.exception.IdempotencyConflictException;
+import com.nimble.gateway.repository.IdempotencyKeyRepository;
+import com.nimble.gateway.service.IdempotencyService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * A tabela {@code idempotency_keys} é a fonte da verdade (vale entre instâncias); o cache na frente evita ir ao
+ * banco nas repetições e o mapa de execuções em andamento faz duplicatas simultâneas na mesma instância
+ * esperarem a primeira em vez de rodarem de novo. Execuções que falham liberam a chave para nova tentativa.
+ * <p>
+ * A ação e a conclusão da chave rodam na mesma transação (a ação entra nela), então uma queda no meio não deixa o
+ * dinheiro movido com a chave em andamento. Quem retoma uma reserva abandonada troca o {@code created_at}; se a
+ * execução original ainda estava viva, a conclusão dela não acha mais a própria reserva e tudo é desfeito com 409.
+ * Em troca, a conexão do banco fica presa durante a ação inteira das requisições com Idempotency-Key.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_INTERVAL_MS = 50;
+
+    private final IdempotencyKeyRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration inFlightTimeout;
+    private final Cache<String, Stored> completed;
+    private final ConcurrentMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    private final TransactionTemplate tx;
+
+    private record Stored(String operation, String requestHash, String responseBody) {}
+
+    // resultado da reserva: a resposta guardada, se outra execução já concluiu, ou o created_at da nossa reserva
+    private record Reservation(Stored done, OffsetDateTime reservedAt) {}
+
+    private record Completed<T>(T response, String body) {}
+
+    public IdempotencyServiceImpl(IdempotencyKeyRepository repository, ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${idempotency.ttlHours:24}") long ttlHours,
+                                  @Value("${idempotency.cacheSize:10000}") long cacheSize,
+                                  @Value("${idempotency.inFlightTimeoutMs:10000}") long inFlightTimeoutMs) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofHours(ttlHours);
+        this.inFlightTimeout = Duration.ofMillis(inFlightTimeoutMs);
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public <T> T execute(String ownerCpf, String key, String operation, Object request,
+                         Class<T> responseType, Supplier<T> action) {
+        if (key == null || key.isBlank()) return action.get();
+        if (key.length() > MAX_KEY_LENGTH)
+            throw new BusinessException("Idempotency-Key deve ter no máximo " + MAX_KEY_LENGTH + " caracteres");
+
+        String scope = ownerCpf + ':' + key;
+        String requestHash = fingerprint(operation, request);
+        long deadline = System.nanoTime() + inFlightTimeout.toNanos();
+
+        while (true) {
+            Stored stored = completed.getIfPresent(scope);
+            if (stored != null) return replay(stored, operation, requestHash, responseType);
+
+            CompletableFuture<Void> mine = new CompletableFuture<>();
+            CompletableFuture<Void> running = inFlight.putIfAbsent(scope, mine);
+            if (running != null) {
+                // duplicata nesta instância: espera a primeira e reavalia (resposta guardada ou chave liberada)
+                await(running, deadline);
+                continue;
+            }
+            try {
+                Reservation reservation = reserve(ownerCpf, key, scope, operation, requestHash, deadline);
+                if (reservation.done() != null) return replay(reservation.done(), operation, requestHash, responseType);
+                return runAndStore(ownerCpf, key, scope, operation, requestHash, reservation.reservedAt(), action);
+            } finally {
+                inFlight.remove(scope, mine);
+                mine.complete(null);
+            }
+        }
+    }
+
+    // reserva a chave no banco; devolve a resposta guardada se outra execução já concluiu
+    private Reservation reserve(String ownerCpf, String key, String scope, String operation,
+                                String requestHash, long deadline) {
+        while (true) {
+            // na precisão da coluna (microssegundos), para a conclusão achar a reserva pela igualdade
+            OffsetDateTime now = OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            if (repository.reserve(ownerCpf, key, operation, requestHash, now) == 1) return new Reservation(null, now);
+
+            IdempotencyKey existing = repository.findByOwnerCpfAndIdempotencyKey(ownerCpf, key).orElse(null);
+            if (existing == null) continue; // liberada entre o insert e a leitura
+
+            Stored stored = new Stored(existing.getOperation(), existing.getRequestHash(), existing.getResponseBody());
+            if (existing.getStatus() == IdempotencyStatus.COMPLETED) {
+                completed.put(scope, stored);
+                return new Reservation(stored, null);
+            }
+            checkSameRequest(stored, operation, requestHash);
+
+            // em andamento em outra instância: espera concluir ou retoma se a reserva foi abandonada
+            if (repository.takeOver(ownerCpf, key, IdempotencyStatus.IN_PROGRESS,
+                    now.minus(inFlightTimeout), now) == 1) return new Reservation(null, now);
+            if (System.nanoTime() - deadline > 0) throw stillRunning();
+            sleep(POLL_INTERVAL_MS);
+        }
+    }
+
+    private <T> T runAndStore(String ownerCpf, String key, String scope, String operation, String requestHash,
+                              OffsetDateTime reservedAt, Supplier<T> action) {
+        Completed<T> done;
+        try {
+            done = tx.execute(status -> {
+                T response = action.get();
+                String body = toJson(response);
+                // 0 linhas: a reserva foi retomada por outra execução, que vai (ou já foi) rodar a ação
+                if (repository.complete(ownerCpf, key, IdempotencyStatus.IN_PROGRESS, reservedAt,
+                        IdempotencyStatus.COMPLETED, body, OffsetDateTime.now()) == 0)
+                    throw takenOver();
+                return new Completed<>(response, body);
+            });
+        } catch (RuntimeException e) {
+            repository.release(ownerCpf, key, IdempotencyStatus.IN_PROGRESS, reservedAt);
+            throw e;
+        }
+        completed.put(scope, new Stored(operation, requestHash, done.body()));
+        return done.response();
+    }
+
+    private <T> T replay(Stored stored, String operation, String requestHash, Class<T> responseType) {
+        checkSameRequest(stored, operation, requestHash);
+        try {
+            return objectMapper.readValue(stored.responseBody(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Resposta guardada inválida para a Idempotency-Key", e);
+        }
+    }
+
+    private static void checkSameRequest(Stored stored, String operation, String requestHash) {
+        if (!stored.operation().equals(operation) || !stored.requestHash().equals(requestHash))
+            throw new BusinessException("Idempotency-Key já utilizada com outra requisição");
+    }
+
+    private void await(CompletableFuture<Void> running, long deadline) {
+        try {
+            running.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw stillRunning();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw stillRunning();
+        } catch (ExecutionException e) {
+            // a execução original sempre completa normalmente; nada a fazer
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw stillRunning();
+        }
+    }
+
+    private static IdempotencyConflictException stillRunning() {
+        return new IdempotencyConflictException("Requisição com esta Idempotency-Key ainda em processamento");
+    }
+
+    private static IdempotencyConflictException takenOver() {
+        return new IdempotencyConflictException("Requisição com esta Idempotency-Key retomada por outra execução");
+    }
+
+    private String fingerprint(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toJson(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purgeIntervalMs:3600000}")
+    public void purgeExpired() {
+        repository.purge(IdempotencyStatus.COMPLETED, OffsetDateTime.now().minus(ttl));
+    }
+}
@@ -0,0 +1,104 @@
+package com.nimble.gateway.service.impl;
+
+import com.nimble.gateway.exception.NotFoundException;
+import com.nimble.gateway.repository.LedgerEntryRepository;
+import com.nimble.gateway.repository.LedgerEntryRepository.ReplayedAccount;
+import com.nimble.gateway.repository.UserRepository;
+import com.nimble.gateway.service.LedgerService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * O snapshot trava a conta com {@code FOR UPDATE}, que espera os créditos e débitos em andamento nela; assim
+ * nenhum lançamento com id menor que o consolidado pode aparecer depois. O job escolhe as contas comparando o
+ * razão com o {@code snapshot_entry_id} de cada uma no banco, sem cursor em memória: vale igual em todas as
+ * instâncias e depois de reiniciar.
+ */
+@Service
+public class LedgerServiceImpl implements LedgerService {
+
+    private final UserRepository userRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+
+    public LedgerServiceImpl(UserRepository userRepository, LedgerEntryRepository ledgerEntryRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${ledger.snapshotBatchSize:500}") int batchSize) {
+        this.userRepository = userRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.snapshotIntervalMs:60000}")
+    @Override
+    public int snapshot() {
+        int accounts = 0;
+        long afterId = 0;
+        List<Long> pending;
+        do {
+            pending = ledgerEntryRepository.findPendingAccounts(afterId, batchSize);
+            for (Long userId : pending) {
+                snapshot(userId);
+                accounts++;
+                afterId = userId;
+            }
+        } while (pending.size() == batchSize);
+        return accounts;
+    }
+
+    @Override
+    public void snapshot(Long userId) {
+        tx.executeWithoutResult(status -> {
+            lockForSnapshot(userId);
+            openBalance(userId);
+            userRepository.foldSnapshot(userId);
+        });
+    }
+
+    @Override
+    public ReplayReport replay(boolean rebuild) {
+        long accounts = 0;
+        List<Drift> drifts = new ArrayList<>();
+        long afterId = 0;
+        List<ReplayedAccount> page;
+        do {
+            page = ledgerEntryRepository.replayAccounts(afterId, batchSize);
+            for (ReplayedAccount account : page) {
+                accounts++;
+                if (account.getBalance().compareTo(account.getReplayed()) != 0)
+                    drifts.add(new Drift(account.getUserId(), account.getBalance(), account.getReplayed()));
+                if (rebuild) rebuild(account.getUserId());
+                afterId = account.getUserId();
+            }
+        } while (page.size() == batchSize);
+        return new ReplayReport(accounts, drifts, ledgerEntryRepository.findUnbalancedJournals());
+    }
+
+    private void rebuild(Long userId) {
+        tx.executeWithoutResult(status -> {
+            lockForSnapshot(userId);
+            openBalance(userId);
+            userRepository.rebuildSnapshot(userId);
+        });
+    }
+
+    private void lockForSnapshot(Long userId) {
+        if (userRepository.lockForSnapshot(userId).isEmpty())
+            throw new NotFoundException("Usuário não encontrado");
+    }
+
+    // contas anteriores ao razão: o saldo vira lançamento de abertura e a base do snapshot passa a zero
+    private void openBalance(Long userId) {
+        ledgerEntryRepository.openBalance(userId, UUID.randomUUID());
+        userRepository.resetOpenedBalance(userId);
+    }
+}
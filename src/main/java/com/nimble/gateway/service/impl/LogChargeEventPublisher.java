@@ -0,0 +1,40 @@
+package com.nimble.gateway.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.dto.event.ChargeEvent;
+import com.nimble.gateway.service.ChargeEventPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Destino padrão ({@code outbox.sink=log}): uma linha JSON por evento no logger {@code charge-events}, para quem já
+ * coleta o log da aplicação.
+ */
+@Service
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "log", matchIfMissing = true)
+public class LogChargeEventPublisher implements ChargeEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger("charge-events");
+
+    private final ObjectMapper objectMapper;
+
+    public LogChargeEventPublisher(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void publish(List<ChargeEvent> events) {
+        for (ChargeEvent event : events) {
+            try {
+                log.info("{}", objectMapper.writeValueAsString(event));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Evento de cobrança não serializável: " + event.getId(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.nimble.gateway.service.impl;
+
+import com.nimble.gateway.dto.event.ChargeEvent;
+import com.nimble.gateway.repository.ChargeOutboxRepository;
+import com.nimble.gateway.service.ChargeEventPublisher;
+import com.nimble.gateway.service.OutboxRelayService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Cada lote é travado com {@code FOR UPDATE SKIP LOCKED}, entregue e apagado na mesma transação: várias instâncias
+ * do gateway drenam o outbox em paralelo sem pegar o mesmo evento. Se a entrega falha, o rollback solta as linhas
+ * e o lote volta na próxima rodada. A ordem é garantida só dentro de um lote; entre instâncias, lotes vizinhos
+ * podem chegar fora de ordem.
+ */
+@Service
+public class OutboxRelayServiceImpl implements OutboxRelayService {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelayServiceImpl.class);
+
+    private final ChargeOutboxRepository outboxRepository;
+    private final ChargeEventPublisher publisher;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+
+    public OutboxRelayServiceImpl(ChargeOutboxRepository outboxRepository, ChargeEventPublisher publisher,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${outbox.relay.batchSize:500}") int batchSize) {
+        this.outboxRepository = outboxRepository;
+        this.publisher = publisher;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.intervalMs:1000}")
+    @Override
+    public int relay() {
+        int relayed = 0;
+        int batch;
+        do {
+            try {
+                batch = tx.execute(status -> relayBatch());
+            } catch (RuntimeException e) {
+                log.warn("Falha ao entregar eventos de cobrança, nova tentativa na próxima rodada: {}", e.getMessage());
+                break;
+            }
+            relayed += batch;
+        } while (batch == batchSize);
+        return relayed;
+    }
+
+    private int relayBatch() {
+        List<ChargeEvent> events = outboxRepository.lockOldest(batchSize);
+        if (events.isEmpty()) return 0;
+        publisher.publish(events);
+        outboxRepository.delete(events.stream().map(ChargeEvent::getId).toList());
+        return events.size();
+    }
+}
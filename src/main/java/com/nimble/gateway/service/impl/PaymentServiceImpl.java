@@ -1,51 +1,111 @@
 package com.nimble.gateway.service.impl;
 
+import com.nimble.gateway.dto.event.ChargeEvent;
+import com.nimble.gateway.dto.request.BatchPaymentRequest;
 import com.nimble.gateway.dto.request.DepositRequest;
 import com.nimble.gateway.dto.request.PaymentRequest;
+import com.nimble.gateway.dto.response.BatchPaymentResponse;
+import com.nimble.gateway.dto.response.PaymentStatusResponse;
 import com.nimble.gateway.entity.Charge;
-import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.ChargeEventType;
 import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.enums.LedgerEntryType;
 import com.nimble.gateway.enums.PaymentMethod;
 import com.nimble.gateway.exception.BusinessException;
 import com.nimble.gateway.exception.NotFoundException;
+import com.nimble.gateway.repository.BatchPaymentRepository;
+import com.nimble.gateway.repository.BatchPaymentRepository.Posting;
+import com.nimble.gateway.repository.BatchPaymentRepository.Settled;
+import com.nimble.gateway.repository.ChargeOutboxRepository;
 import com.nimble.gateway.repository.ChargeRepository;
+import com.nimble.gateway.repository.ChargeRepository.ProcessingAttempt;
 import com.nimble.gateway.repository.UserRepository;
 import com.nimble.gateway.service.AuthorizerClient;
+import com.nimble.gateway.service.BalanceService;
+import com.nimble.gateway.service.CardSettlementCallback;
 import com.nimble.gateway.service.PaymentService;
+import com.nimble.gateway.service.UserIdentityService;
+import com.nimble.gateway.service.UserIdentityService.UserIdentity;
+import com.nimble.gateway.util.RequestTimings;
+import com.nimble.gateway.util.RequestTimings.Phase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class PaymentServiceImpl implements PaymentService {
 
+    private static final Logger log = LoggerFactory.getLogger(PaymentServiceImpl.class);
+    private static final String CARD_DECLINED = "Pagamento via cartão não autorizado pelo autorizador externo";
+    private static final String AUTHORIZER_UNAVAILABLE = "Autorizador externo indisponível";
+    private static final String SETTLEMENT_INTERRUPTED = "Liquidação do cartão interrompida, tente novamente";
+
     private final UserRepository userRepository;
+    private final UserIdentityService identities;
     private final ChargeRepository chargeRepository;
     private final AuthorizerClient authorizer;
+    private final BalanceService balanceService;
+    private final BatchPaymentRepository batchPaymentRepository;
+    private final ChargeOutboxRepository outboxRepository;
+    private final CardSettlementPipeline cardSettlement;
+    private final ObjectProvider<CardSettlementCallback> callbacks;
+    private final Duration stuckAfter;
+    private final int maxAuthorizerCalls;
+    private final TransactionTemplate tx;
 
-    public PaymentServiceImpl(UserRepository userRepository, AuthorizerClient authorizer,
-                              ChargeRepository chargeRepository) {
+    public PaymentServiceImpl(UserRepository userRepository, UserIdentityService identities, AuthorizerClient authorizer,
+                              ChargeRepository chargeRepository, BalanceService balanceService,
+                              BatchPaymentRepository batchPaymentRepository, ChargeOutboxRepository outboxRepository,
+                              CardSettlementPipeline cardSettlement, ObjectProvider<CardSettlementCallback> callbacks,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${payments.asyncCard.stuckAfterMs:120000}") long stuckAfterMs,
+                              @Value("${payments.batch.maxAuthorizerCalls:10}") int maxAuthorizerCalls) {
         this.userRepository = userRepository;
+        this.identities = identities;
         this.authorizer = authorizer;
         this.chargeRepository = chargeRepository;
+        this.balanceService = balanceService;
+        this.batchPaymentRepository = batchPaymentRepository;
+        this.outboxRepository = outboxRepository;
+        this.cardSettlement = cardSettlement;
+        this.callbacks = callbacks;
+        this.stuckAfter = Duration.ofMillis(stuckAfterMs);
+        this.maxAuthorizerCalls = maxAuthorizerCalls;
+        this.tx = new TransactionTemplate(transactionManager);
     }
 
     @Override
     public BigDecimal deposit(String cpf, DepositRequest request) {
         if (!authorizer.isApproved()) throw new BusinessException("Depósito não autorizado pelo autorizador externo");
 
-        User user = userRepository.findByCpf(cpf)
-                .orElseThrow(() -> new NotFoundException("Usuário não encontrado"));
+        Long userId = identities.findByCpf(cpf)
+                .orElseThrow(() -> new NotFoundException("Usuário não encontrado")).id();
 
-        user.setBalance(user.getBalance().add(request.getAmount()));
-        userRepository.save(user);
-        return user.getBalance();
+        return tx.execute(status -> {
+            balanceService.credit(userId, request.getAmount(), LedgerEntryType.DEPOSIT, null);
+            return balanceService.balanceOf(userId);
+        });
     }
 
     @Override
-    public void pay(String payerCpf, PaymentRequest request) {
-        Charge charge = chargeRepository.findById(request.getChargeId())
+    public ChargeStatus pay(String payerCpf, PaymentRequest request) {
+        Charge charge = chargeRepository.findWithUsersById(request.getChargeId())
                 .orElseThrow(() -> new NotFoundException("Cobrança não encontrada"));
 
         if (charge.getStatus() != ChargeStatus.PENDING)
@@ -55,38 +115,290 @@ public class PaymentServiceImpl implements PaymentService {
         if (!charge.getRecipient().getCpf().equals(payerCpf))
             throw new BusinessException("Apenas o destinatário pode pagar esta cobrança");
 
-        User payer = userRepository.findByCpf(payerCpf)
-                .orElseThrow(() -> new NotFoundException("Pagador não encontrado"));
-        User originator = userRepository.findByCpf(charge.getOriginator().getCpf())
-                .orElseThrow(() -> new NotFoundException("Originador não encontrado"));
-
-        if (request.getMethod() == PaymentMethod.BALANCE) {
-            if (payer.getBalance().compareTo(charge.getAmount()) < 0)
-                throw new BusinessException("Saldo insuficiente");
-            payer.setBalance(payer.getBalance().subtract(charge.getAmount()));
-            originator.setBalance(originator.getBalance().add(charge.getAmount()));
-            userRepository.save(payer);
-            userRepository.save(originator);
-
-        } else if (request.getMethod() == PaymentMethod.CARD) {
+        if (request.getMethod() == PaymentMethod.CARD) {
             // checagem simples: precisa vir dados de cartão
             if (request.getCardNumber() == null || request.getCardExpiration() == null || request.getCardCvv() == null)
                 throw new BusinessException("Dados de cartão incompletos");
 
-            if (!authorizer.isApproved())
-                throw new BusinessException("Pagamento via cartão não autorizado pelo autorizador externo");
+            if (cardSettlement.isEnabled()) return payCardAsync(charge);
 
-            // credita diretamente o originador
-            originator.setBalance(originator.getBalance().add(charge.getAmount()));
-            userRepository.save(originator);
-        } else {
+            // fora da transação: não segura conexão do banco durante a chamada HTTP
+            if (!authorizer.isApproved())
+                throw new BusinessException(CARD_DECLINED);
+        } else if (request.getMethod() != PaymentMethod.BALANCE) {
             throw new BusinessException("Método de pagamento inválido");
         }
 
-        charge.setStatus(ChargeStatus.PAID);
-        charge.setPaidAt(OffsetDateTime.now());
-        charge.setPaymentMethod(request.getMethod());
-        charge.setPaidByCpf(payerCpf);
-        chargeRepository.save(charge);
+        Long payerId = charge.getRecipient().getId();
+        Long originatorId = charge.getOriginator().getId();
+
+        tx.executeWithoutResult(status -> {
+            // a transição PENDING -> PAID trava a cobrança; um segundo pagamento simultâneo cai aqui
+            if (chargeRepository.markPaid(charge.getId(), OffsetDateTime.now(), request.getMethod(), charge.getRecipient()) == 0)
+                throw new BusinessException("Cobrança não está pendente");
+
+            if (request.getMethod() == PaymentMethod.BALANCE) {
+                balanceService.transfer(payerId, originatorId, charge.getAmount(), LedgerEntryType.PAYMENT, charge.getId(),
+                        "Saldo insuficiente");
+            } else {
+                // credita diretamente o originador
+                balanceService.credit(originatorId, charge.getAmount(), LedgerEntryType.PAYMENT, charge.getId());
+            }
+            outboxRepository.append(List.of(paidEvent(charge, request.getMethod())));
+        });
+        return ChargeStatus.PAID;
+    }
+
+    // a requisição só leva a cobrança a PROCESSING; o autorizador é consultado no pipeline
+    private ChargeStatus payCardAsync(Charge charge) {
+        // na precisão da coluna (microssegundos), para a conclusão achar a tentativa pela igualdade
+        OffsetDateTime startedAt = OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        cardSettlement.submit(
+                () -> tx.executeWithoutResult(status -> {
+                    if (chargeRepository.markProcessing(charge.getId(), charge.getRecipient(), startedAt) == 0)
+                        throw new BusinessException("Cobrança não está pendente");
+                }),
+                () -> settleCard(charge, startedAt));
+        return ChargeStatus.PROCESSING;
+    }
+
+    // thread do pipeline: aprovado liquida como o pagamento síncrono; recusa ou falha devolve a cobrança a PENDING
+    private void settleCard(Charge charge, OffsetDateTime startedAt) {
+        String error;
+        try {
+            error = authorizer.isApproved() ? null : CARD_DECLINED;
+        } catch (RuntimeException e) {
+            error = AUTHORIZER_UNAVAILABLE;
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        String reason = error;
+        Boolean settled = tx.execute(status -> reason == null
+                ? completeCard(charge, startedAt, now)
+                : chargeRepository.revertProcessing(charge.getId(), startedAt, reason) == 1);
+        // false: a varredura de presas já devolveu esta tentativa (e talvez outra já esteja em andamento)
+        if (!Boolean.TRUE.equals(settled)) return;
+
+        cardSettlement.settled(error == null);
+        notifySettled(PaymentStatusResponse.builder()
+                .chargeId(charge.getId())
+                .status(error == null ? ChargeStatus.PAID : ChargeStatus.PENDING)
+                .paymentMethod(error == null ? PaymentMethod.CARD : null)
+                .paidAt(error == null ? now : null)
+                .error(error)
+                .build());
+    }
+
+    private boolean completeCard(Charge charge, OffsetDateTime startedAt, OffsetDateTime paidAt) {
+        if (chargeRepository.completeProcessing(charge.getId(), startedAt, paidAt) == 0) return false;
+        balanceService.credit(charge.getOriginator().getId(), charge.getAmount(), LedgerEntryType.PAYMENT, charge.getId());
+        outboxRepository.append(List.of(paidEvent(charge, PaymentMethod.CARD)));
+        return true;
+    }
+
+    private void notifySettled(PaymentStatusResponse result) {
+        callbacks.orderedStream().forEach(callback -> {
+            try {
+                callback.onSettled(result);
+            } catch (RuntimeException e) {
+                log.warn("Callback de liquidação de cartão falhou para a cobrança {}: {}", result.getChargeId(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Devolve a PENDING os cartões em PROCESSING há mais de {@code payments.asyncCard.stuckAfterMs}: a instância que
+     * os liquidava caiu ou parou antes de terminar. Roda mesmo com o modo assíncrono desligado, para não deixar presas
+     * as cobranças de quando ele estava ligado.
+     */
+    @Scheduled(fixedDelayString = "${payments.asyncCard.sweepIntervalMs:60000}")
+    public int releaseStuckCardPayments() {
+        int released = 0;
+        for (ProcessingAttempt stuck : chargeRepository.findProcessingStartedBefore(OffsetDateTime.now().minus(stuckAfter), Limit.of(500))) {
+            Integer reverted = tx.execute(status -> chargeRepository.revertProcessing(stuck.getId(),
+                    stuck.getProcessingStartedAt(), SETTLEMENT_INTERRUPTED));
+            if (reverted == null || reverted == 0) continue;
+            released++;
+            notifySettled(PaymentStatusResponse.builder()
+                    .chargeId(stuck.getId()).status(ChargeStatus.PENDING).error(SETTLEMENT_INTERRUPTED).build());
+        }
+        return released;
+    }
+
+    @Override
+    public PaymentStatusResponse status(String cpf, Long chargeId) {
+        Charge charge = chargeRepository.findWithUsersById(chargeId)
+                .filter(c -> c.getOriginator().getCpf().equals(cpf) || c.getRecipient().getCpf().equals(cpf))
+                .orElseThrow(() -> new NotFoundException("Cobrança não encontrada"));
+        return PaymentStatusResponse.builder()
+                .chargeId(charge.getId())
+                .status(charge.getStatus())
+                .paymentMethod(charge.getPaymentMethod())
+                .paidAt(charge.getPaidAt())
+                .error(charge.getStatus() == ChargeStatus.PENDING ? charge.getSettlementError() : null)
+                .build();
+    }
+
+    /**
+     * Valida o lote em uma consulta, consulta o autorizador uma vez por cartão e liquida tudo em uma transação:
+     * uma transição em lote das cobranças e um único lançamento no razão, com o débito do pagador somado.
+     * Cada item é pago ou recusado isoladamente; o saldo é consumido na ordem do pedido.
+     */
+    @Override
+    public BatchPaymentResponse payBatch(String payerCpf, BatchPaymentRequest request) {
+        UserIdentity payer = identities.findByCpf(payerCpf)
+                .orElseThrow(() -> new NotFoundException("Usuário não encontrado"));
+
+        List<PaymentRequest> items = request.getItems();
+        String[] errors = new String[items.size()];
+        Map<Long, Charge> charges = chargeRepository.findAllWithUsersByIdIn(
+                        items.stream().map(PaymentRequest::getChargeId).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Charge::getId, Function.identity()));
+
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            PaymentRequest item = items.get(i);
+            errors[i] = seen.add(item.getChargeId())
+                    ? validate(item, charges.get(item.getChargeId()), payerCpf)
+                    : "Cobrança repetida no lote";
+        }
+
+        // fora da transação, como no pagamento individual
+        authorizeCards(items, errors);
+
+        tx.executeWithoutResult(status -> settle(payer, items, charges, errors));
+
+        List<BatchPaymentResponse.Item> results = new ArrayList<>(items.size());
+        int paid = 0;
+        for (int i = 0; i < items.size(); i++) {
+            if (errors[i] == null) paid++;
+            results.add(BatchPaymentResponse.Item.builder()
+                    .chargeId(items.get(i).getChargeId()).paid(errors[i] == null).error(errors[i]).build());
+        }
+        return BatchPaymentResponse.builder().paid(paid).rejected(items.size() - paid).items(results).build();
+    }
+
+    // mesmas regras e mensagens do pagamento individual
+    private String validate(PaymentRequest item, Charge charge, String payerCpf) {
+        if (charge == null) return "Cobrança não encontrada";
+        if (charge.getStatus() != ChargeStatus.PENDING) return "Cobrança não está pendente";
+        if (!charge.getRecipient().getCpf().equals(payerCpf)) return "Apenas o destinatário pode pagar esta cobrança";
+        if (item.getMethod() == PaymentMethod.CARD) {
+            if (item.getCardNumber() == null || item.getCardExpiration() == null || item.getCardCvv() == null)
+                return "Dados de cartão incompletos";
+        } else if (item.getMethod() != PaymentMethod.BALANCE) {
+            return "Método de pagamento inválido";
+        }
+        return null;
+    }
+
+    // uma consulta por cartão, no máximo maxAuthorizerCalls em voo para o lote não estourar o bulkhead do autorizador;
+    // a resposta vale para todos os itens daquele cartão
+    private void authorizeCards(List<PaymentRequest> items, String[] errors) {
+        Map<List<String>, List<Integer>> byCard = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            PaymentRequest item = items.get(i);
+            if (errors[i] != null || item.getMethod() != PaymentMethod.CARD) continue;
+            byCard.computeIfAbsent(List.of(item.getCardNumber(), item.getCardExpiration(), item.getCardCvv()),
+                    k -> new ArrayList<>()).add(i);
+        }
+        if (byCard.isEmpty()) return;
+
+        List<CardDecision> decisions;
+        RequestTimings.begin(Phase.AUTHORIZER);
+        try {
+            decisions = Flux.fromIterable(byCard.values())
+                    .flatMap(group -> authorizer.isApprovedAsync()
+                            .map(approved -> new CardDecision(group, Boolean.TRUE.equals(approved) ? null : CARD_DECLINED))
+                            .onErrorResume(e -> Mono.just(new CardDecision(group, AUTHORIZER_UNAVAILABLE))),
+                            maxAuthorizerCalls)
+                    .collectList()
+                    .block();
+        } finally {
+            RequestTimings.end(Phase.AUTHORIZER);
+        }
+        for (CardDecision decision : decisions) {
+            for (int i : decision.items()) errors[i] = decision.error();
+        }
+    }
+
+    private record CardDecision(List<Integer> items, String error) { }
+
+    // mesma ordem de travamento do pagamento individual: as cobranças primeiro (por id), depois as contas
+    private void settle(UserIdentity payer, List<PaymentRequest> items, Map<Long, Charge> charges, String[] errors) {
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) if (errors[i] == null) candidates.add(i);
+        if (candidates.isEmpty()) return;
+        candidates.sort(Comparator.comparing(i -> items.get(i).getChargeId()));
+
+        int[] updated = batchPaymentRepository.markPaid(candidates.stream()
+                .map(i -> new Settled(items.get(i).getChargeId(), items.get(i).getMethod())).toList(),
+                payer.id(), OffsetDateTime.now());
+
+        List<Integer> marked = new ArrayList<>();
+        Set<Long> originatorIds = new HashSet<>();
+        boolean debitsPayer = false;
+        for (int k = 0; k < candidates.size(); k++) {
+            int i = candidates.get(k);
+            if (updated[k] == 0) {
+                errors[i] = "Cobrança não está pendente";
+                continue;
+            }
+            marked.add(i);
+            originatorIds.add(charges.get(items.get(i).getChargeId()).getOriginator().getId());
+            debitsPayer |= items.get(i).getMethod() == PaymentMethod.BALANCE;
+        }
+        if (marked.isEmpty()) return;
+
+        // com o pagador travado para débito, o saldo lido não muda até o fim da transação
+        batchPaymentRepository.lockAccounts(debitsPayer ? payer.id() : null, originatorIds);
+        BigDecimal available = debitsPayer
+                ? userRepository.findBalanceById(payer.id()).orElse(BigDecimal.ZERO)
+                : BigDecimal.ZERO;
+
+        // crédito por cobrança (rastreável no razão); débitos somados por conta de origem
+        List<Posting> postings = new ArrayList<>();
+        List<Long> unfunded = new ArrayList<>();
+        BigDecimal fromPayer = BigDecimal.ZERO;
+        BigDecimal fromCards = BigDecimal.ZERO;
+        marked.sort(Comparator.naturalOrder());
+        for (int i : marked) {
+            Charge charge = charges.get(items.get(i).getChargeId());
+            if (items.get(i).getMethod() == PaymentMethod.BALANCE) {
+                if (available.compareTo(charge.getAmount()) < 0) {
+                    errors[i] = "Saldo insuficiente";
+                    unfunded.add(charge.getId());
+                    continue;
+                }
+                available = available.subtract(charge.getAmount());
+                fromPayer = fromPayer.add(charge.getAmount());
+            } else {
+                fromCards = fromCards.add(charge.getAmount());
+            }
+            postings.add(new Posting(charge.getOriginator().getId(), charge.getAmount(), charge.getId()));
+        }
+        // ainda dentro da transação: para os outros a cobrança nunca deixou de estar pendente
+        batchPaymentRepository.revertToPending(unfunded);
+
+        if (fromPayer.signum() > 0) postings.add(new Posting(payer.id(), fromPayer.negate(), null));
+        if (fromCards.signum() > 0) postings.add(new Posting(null, fromCards.negate(), null));
+        batchPaymentRepository.post(UUID.randomUUID(), LedgerEntryType.PAYMENT, postings);
+
+        List<ChargeEvent> events = new ArrayList<>();
+        for (int i : marked) {
+            if (errors[i] == null) events.add(paidEvent(charges.get(items.get(i).getChargeId()), items.get(i).getMethod()));
+        }
+        outboxRepository.append(events);
+    }
+
+    private static ChargeEvent paidEvent(Charge charge, PaymentMethod method) {
+        return ChargeEvent.builder()
+                .type(ChargeEventType.PAID)
+                .chargeId(charge.getId())
+                .originatorCpf(charge.getOriginator().getCpf())
+                .recipientCpf(charge.getRecipient().getCpf())
+                .amount(charge.getAmount())
+                .paymentMethod(method)
+                .occurredAt(OffsetDateTime.now())
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,140 @@
+package com.nimble.gateway.service.impl;
+
+import com.nimble.gateway.exception.AuthorizerUnavailableException;
+import com.nimble.gateway.service.AuthorizerClient;
+import com.nimble.gateway.util.RequestTimings;
+import com.nimble.gateway.util.RequestTimings.Phase;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Camada de resiliência sobre o {@link AuthorizerClientImpl}: circuit breaker (falha rápida quando a
+ * taxa de erro está alta), bulkhead de concorrência e, opcionalmente, uma requisição "hedge" disparada
+ * quando a primeira passa do p95 observado.
+ */
+@Primary
+@Service
+public class ResilientAuthorizerClient implements AuthorizerClient {
+
+    private final AuthorizerClient delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+
+    private final boolean hedgeEnabled;
+    private final long hedgeMinDelayMs;
+    private final long hedgeMaxDelayMs;
+    private final long hedgeMinSamples;
+
+    private final Timer latency;
+    private final Timer approved;
+    private final Timer denied;
+    private final Timer failed;
+    private final Counter hedgesIssued;
+    private final Counter hedgesWon;
+
+    public ResilientAuthorizerClient(AuthorizerClientImpl delegate,
+                                     CircuitBreaker authorizerCircuitBreaker,
+                                     Bulkhead authorizerBulkhead,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${authorizer.hedge.enabled:false}") boolean hedgeEnabled,
+                                     @Value("${authorizer.hedge.minDelayMs:50}") long hedgeMinDelayMs,
+                                     @Value("${authorizer.hedge.maxDelayMs:1000}") long hedgeMaxDelayMs,
+                                     @Value("${authorizer.hedge.minSamples:20}") long hedgeMinSamples) {
+        this.delegate = delegate;
+        this.circuitBreaker = authorizerCircuitBreaker;
+        this.bulkhead = authorizerBulkhead;
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeMinDelayMs = hedgeMinDelayMs;
+        this.hedgeMaxDelayMs = hedgeMaxDelayMs;
+        this.hedgeMinSamples = hedgeMinSamples;
+
+        this.latency = Timer.builder("authorizer.call.latency")
+                .description("Latência das chamadas individuais ao autorizador externo, com falhas e cancelamentos")
+                .publishPercentiles(0.95)
+                .register(meterRegistry);
+        this.approved = decisionTimer(meterRegistry, "approved");
+        this.denied = decisionTimer(meterRegistry, "denied");
+        this.failed = decisionTimer(meterRegistry, "error");
+        this.hedgesIssued = Counter.builder("authorizer.hedge").tag("outcome", "issued").register(meterRegistry);
+        this.hedgesWon = Counter.builder("authorizer.hedge").tag("outcome", "won").register(meterRegistry);
+    }
+
+    // decisão vista pelo chamador: inclui hedge, espera no bulkhead e recusa do circuito aberto
+    private static Timer decisionTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("authorizer.decision")
+                .description("Tempo até a decisão do autorizador, por resultado")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean isApproved() {
+        RequestTimings.begin(Phase.AUTHORIZER);
+        try {
+            return Boolean.TRUE.equals(isApprovedAsync().block());
+        } catch (RuntimeException e) {
+            throw new AuthorizerUnavailableException("Autorizador externo indisponível", e);
+        } finally {
+            RequestTimings.end(Phase.AUTHORIZER);
+        }
+    }
+
+    @Override
+    public Mono<Boolean> isApprovedAsync() {
+        Mono<Boolean> call = hedgeEnabled ? hedged() : timed();
+        Mono<Boolean> guarded = call
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return guarded
+                    .doOnSuccess(r -> (Boolean.TRUE.equals(r) ? approved : denied)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnError(e -> failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    // toda tentativa entra no p95 do hedge: só as bem-sucedidas deixariam de fora as lentas que falham por timeout
+    // e as primárias canceladas quando o hedge vence (essas contam até o cancelamento, um piso da latência real)
+    private Mono<Boolean> timed() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            Runnable record = () -> latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            // antes do sinal seguir adiante (doFinally gravaria depois de o chamador já ter recebido o erro)
+            return delegate.isApprovedAsync().doOnTerminate(record).doOnCancel(record);
+        });
+    }
+
+    // a primeira resposta com valor vence; se a primária falhar antes do atraso, o hedge funciona como retry
+    private Mono<Boolean> hedged() {
+        Mono<Boolean> hedge = Mono.delay(Duration.ofMillis(hedgeDelayMs()))
+                .then(Mono.defer(() -> {
+                    hedgesIssued.increment();
+                    return timed().doOnNext(r -> hedgesWon.increment());
+                }));
+        return Mono.firstWithValue(timed(), hedge);
+    }
+
+    long hedgeDelayMs() {
+        if (latency.count() < hedgeMinSamples) return hedgeMaxDelayMs;
+        for (ValueAtPercentile p : latency.takeSnapshot().percentileValues()) {
+            long p95 = (long) p.value(TimeUnit.MILLISECONDS);
+            return Math.max(hedgeMinDelayMs, Math.min(hedgeMaxDelayMs, p95));
+        }
+        return hedgeMaxDelayMs;
+    }
+}
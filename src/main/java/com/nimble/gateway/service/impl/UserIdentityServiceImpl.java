@@ -0,0 +1,95 @@
+package com.nimble.gateway.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimble.gateway.repository.UserRepository;
+import com.nimble.gateway.service.UserIdentityService;
+import com.nimble.gateway.util.Cpf;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Só guarda contas encontradas: uma consulta sem resultado sempre volta ao banco, então um cadastro novo
+ * aparece na hora. Alterações e exclusões chegam pelo LISTEN/NOTIFY (UserIdentityInvalidationListener); o TTL
+ * limita o tempo de uma entrada velha se alguma notificação se perder. Cada invalidação avança uma geração; uma
+ * leitura do banco que começou antes dela não entra no cache, para não regravar o valor velho por cima da evicção.
+ */
+@Service
+public class UserIdentityServiceImpl implements UserIdentityService {
+
+    private final UserRepository userRepository;
+    private final Cache<Long, UserIdentity> byCpf;
+    private final Cache<String, Long> cpfByEmail;
+    private final AtomicLong generation = new AtomicLong();
+
+    public UserIdentityServiceImpl(UserRepository userRepository, MeterRegistry meterRegistry,
+                                   @Value("${users.identityCache.ttlMs:600000}") long ttlMs,
+                                   @Value("${users.identityCache.maxSize:100000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.byCpf = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.cpfByEmail = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byCpf, "userIdentity.byCpf");
+        CaffeineCacheMetrics.monitor(meterRegistry, cpfByEmail, "userIdentity.byEmail");
+    }
+
+    @Override
+    public Optional<UserIdentity> findByCpf(String cpf) {
+        Optional<Cpf> parsed = Cpf.tryParse(cpf);
+        if (parsed.isEmpty()) return Optional.empty();
+        long key = parsed.get().value();
+        UserIdentity cached = byCpf.getIfPresent(key);
+        if (cached != null) return Optional.of(cached);
+        long seen = generation.get();
+        return userRepository.findIdentityByCpf(key).map(row -> remember(row, seen));
+    }
+
+    @Override
+    public Optional<UserIdentity> findByEmail(String email) {
+        Long cpf = cpfByEmail.getIfPresent(email);
+        UserIdentity cached = cpf == null ? null : byCpf.getIfPresent(cpf);
+        // o e-mail pode ter mudado depois que o byCpf perdeu a entrada antiga: só vale se ainda bate
+        if (cached != null && cached.email().equals(email)) return Optional.of(cached);
+        long seen = generation.get();
+        return userRepository.findIdentityByEmail(email).map(row -> remember(row, seen));
+    }
+
+    // o compute serializa com o invalidate da mesma chave: ou grava antes da evicção (que então remove), ou vê a
+    // geração nova e mantém o que está lá. O cpfByEmail pode ficar velho sem risco, findByEmail confere o e-mail
+    private UserIdentity remember(UserRepository.Identity row, long seen) {
+        UserIdentity identity = new UserIdentity(row.getId(), Cpf.format(row.getCpf()), row.getEmail(), row.getName());
+        byCpf.asMap().compute(row.getCpf(), (cpf, current) -> generation.get() == seen ? identity : current);
+        cpfByEmail.put(identity.email(), row.getCpf());
+        return identity;
+    }
+
+    @Override
+    public void evict(long cpf) {
+        // pela chave, sem varrer o cpfByEmail; se a conta já saiu do byCpf, sobra no máximo um e-mail apontando
+        // para um CPF ausente, que findByEmail trata como falta
+        generation.incrementAndGet();
+        UserIdentity cached = byCpf.getIfPresent(cpf);
+        byCpf.invalidate(cpf);
+        if (cached != null) cpfByEmail.invalidate(cached.email());
+    }
+
+    @Override
+    public void evictAll() {
+        generation.incrementAndGet();
+        byCpf.invalidateAll();
+        cpfByEmail.invalidateAll();
+    }
+}
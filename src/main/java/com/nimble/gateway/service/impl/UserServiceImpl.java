@@ -3,36 +3,48 @@ package com.nimble.gateway.service.impl;
 import com.nimble.gateway.dto.request.UserRequest;
 import com.nimble.gateway.dto.response.UserResponse;
 import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.LedgerEntryType;
 import com.nimble.gateway.exception.BusinessException;
 import com.nimble.gateway.repository.UserRepository;
 import com.nimble.gateway.security.JwtTokenUtil;
+import com.nimble.gateway.security.PasswordHasher;
+import com.nimble.gateway.service.BalanceService;
 import com.nimble.gateway.service.UserService;
-import com.nimble.gateway.util.CpfValidator;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import com.nimble.gateway.util.Cpf;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class UserServiceImpl implements UserService {
 
+    private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtTokenUtil jwt;
+    private final BalanceService balanceService;
 
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtTokenUtil jwt) {
-        this.userRepository = userRepository; this.passwordEncoder = passwordEncoder; this.jwt = jwt;
+    public UserServiceImpl(UserRepository userRepository, PasswordHasher passwordHasher, JwtTokenUtil jwt,
+                           BalanceService balanceService) {
+        this.userRepository = userRepository; this.passwordHasher = passwordHasher; this.jwt = jwt;
+        this.balanceService = balanceService;
     }
 
     @Override
     public UserResponse register(UserRequest req) {
-        if (!CpfValidator.isValid(req.getCpf())) throw new BusinessException("CPF inválido");
-        userRepository.findByCpf(req.getCpf()).ifPresent(u -> { throw new BusinessException("CPF já cadastrado"); });
+        // normaliza uma vez: daqui em diante o CPF é o número, com ou sem máscara na entrada
+        Cpf cpf = Cpf.tryParse(req.getCpf()).filter(Cpf::isValid)
+                .orElseThrow(() -> new BusinessException("CPF inválido"));
+        userRepository.findByCpf(cpf.value()).ifPresent(u -> { throw new BusinessException("CPF já cadastrado"); });
         userRepository.findByEmail(req.getEmail()).ifPresent(u -> { throw new BusinessException("E-mail já cadastrado"); });
 
         User u = User.builder()
-                .name(req.getName()).cpf(req.getCpf()).email(req.getEmail())
-                .passwordHash(passwordEncoder.encode(req.getPassword()))
+                .name(req.getName()).cpf(cpf.value()).email(req.getEmail())
+                .passwordHash(passwordHasher.encode(req.getPassword()))
                 .balance(BigDecimal.ZERO).build();
 
         userRepository.save(u);
@@ -43,21 +55,34 @@ public class UserServiceImpl implements UserService {
     @Override
     public String login(String username, String password) {
         User u = getByCpfOrEmail(username);
-        if (!passwordEncoder.matches(password, u.getPasswordHash()))
+        if (!passwordHasher.matches(password, u.getPasswordHash()))
             throw new BusinessException("Credenciais inválidas");
+        if (passwordHasher.upgradeEncoding(u.getPasswordHash())) rehash(u.getId(), password);
         return jwt.generateToken(u.getCpf());
     }
 
+    // refaz o hash com o custo atual fora do caminho da resposta; se falhar (pool cheio, banco), o login segue e
+    // tenta de novo no próximo, mas fica no log para uma senha presa no custo antigo não passar despercebida
+    private void rehash(Long userId, String password) {
+        passwordHasher.encodeAsync(password)
+                .thenAccept(hash -> userRepository.updatePasswordHash(userId, hash))
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    log.warn("Falha ao refazer o hash da senha do usuário {}: {}", userId, cause.toString());
+                    return null;
+                });
+    }
+
     @Override
     public User getByCpfOrEmail(String username) {
-        return userRepository.findByCpf(username)
+        return Cpf.tryParse(username).flatMap(cpf -> userRepository.findByCpf(cpf.value()))
                 .orElseGet(() -> userRepository.findByEmail(username)
                         .orElseThrow(() -> new BusinessException("Usuário não encontrado")));
     }
 
+    // só lança no razão: User.balance é o snapshot e não deve receber o saldo atual
     @Override
     public void addBalance(User user, BigDecimal amount) {
-        user.setBalance(user.getBalance().add(amount));
-        userRepository.save(user);
+        balanceService.credit(user.getId(), amount, LedgerEntryType.DEPOSIT, null);
     }
 }
@@ -0,0 +1,56 @@
+package com.nimble.gateway.util;
+
+import java.util.Optional;
+
+/**
+ * CPF normalizado como número: é assim que fica em {@code users.cpf} ({@code bigint}) e como os repositórios
+ * consultam. Os zeros à esquerda voltam na formatação ({@link #toString()}), que é a forma usada na API e no
+ * subject do JWT.
+ */
+public record Cpf(long value) {
+
+    public static final int DIGITS = 11;
+    private static final long MAX = 99_999_999_999L;
+
+    public Cpf {
+        if (value < 0 || value > MAX) throw new IllegalArgumentException("CPF fora do intervalo: " + value);
+    }
+
+    /**
+     * Aceita só dígitos ou a máscara {@code 000.000.000-00}; não confere os dígitos verificadores (ver
+     * {@link #isValid()}).
+     */
+    public static Optional<Cpf> tryParse(String cpf) {
+        if (cpf == null) return Optional.empty();
+        long value = 0;
+        int digits = 0;
+        for (int i = 0; i < cpf.length(); i++) {
+            char ch = cpf.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                if (++digits > DIGITS) return Optional.empty();
+                value = value * 10 + (ch - '0');
+            } else if (ch != '.' && ch != '-') {
+                return Optional.empty();
+            }
+        }
+        return digits == DIGITS ? Optional.of(new Cpf(value)) : Optional.empty();
+    }
+
+    public static Cpf parse(String cpf) {
+        return tryParse(cpf).orElseThrow(() -> new IllegalArgumentException("CPF malformado"));
+    }
+
+    public static String format(long value) {
+        return new Cpf(value).toString();
+    }
+
+    public boolean isValid() {
+        return CpfValidator.isValid(value);
+    }
+
+    @Override
+    public String toString() {
+        String digits = Long.toString(value);
+        return "0".repeat(DIGITS - digits.length()) + digits;
+    }
+}
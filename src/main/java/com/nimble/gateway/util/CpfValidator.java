@@ -1,18 +1,77 @@
 package com.nimble.gateway.util;
 
-public class CpfValidator {
+import java.util.List;
 
-    public static boolean isValid(String cpf) {
+/**
+ * Dígitos verificadores do CPF em uma passada, sem regex nem cópias da entrada: caracteres que não são dígito
+ * são ignorados (com ou sem máscara), e a soma dos dois verificadores é feita enquanto os dígitos são lidos.
+ */
+public final class CpfValidator {
+
+    private CpfValidator() { }
+
+    public static boolean isValid(CharSequence cpf) {
         if (cpf == null) return false;
-        cpf = cpf.replaceAll("\\D", "");
-        if (cpf.length() != 11) return false;
-        if (cpf.matches("(\\d)\\1{10}")) return false;
-        try {
-            int sum=0; for(int i=0;i<9;i++) sum += (cpf.charAt(i)-'0')*(10-i);
-            int d1 = 11 - (sum % 11); d1 = (d1>9)?0:d1;
-            sum=0; for(int i=0;i<10;i++) sum += (cpf.charAt(i)-'0')*(11-i);
-            int d2 = 11 - (sum % 11); d2 = (d2>9)?0:d2;
-            return d1==(cpf.charAt(9)-'0') && d2==(cpf.charAt(10)-'0');
-        } catch(Exception e){ return false; }
+        int digits = 0, sum1 = 0, sum2 = 0, first = -1;
+        boolean allEqual = true;
+        for (int i = 0, n = cpf.length(); i < n; i++) {
+            int d = cpf.charAt(i) - '0';
+            if (d < 0 || d > 9) continue;
+            if (digits == Cpf.DIGITS) return false;
+            if (first < 0) first = d;
+            else if (d != first) allEqual = false;
+
+            if (digits < 9) {
+                sum1 += d * (10 - digits);
+                sum2 += d * (11 - digits);
+            } else if (digits == 9) {
+                if (d != checkDigit(sum1)) return false;
+                sum2 += d * 2;
+            } else if (d != checkDigit(sum2)) {
+                return false;
+            }
+            digits++;
+        }
+        return digits == Cpf.DIGITS && !allEqual;
+    }
+
+    /** CPF já como número (coluna {@code users.cpf}); os zeros à esquerda contam como dígitos. */
+    public static boolean isValid(long cpf) {
+        if (cpf < 0 || cpf > 99_999_999_999L) return false;
+        int d10 = (int) (cpf % 10);
+        int d9 = (int) (cpf / 10 % 10);
+        long rest = cpf / 100;
+        int sum1 = 0, sum2 = d9 * 2;
+        boolean allEqual = d9 == d10;
+        // do nono dígito para o primeiro: pesos 2..10 no primeiro verificador, 3..11 no segundo
+        for (int weight = 2; weight <= 10; weight++, rest /= 10) {
+            int d = (int) (rest % 10);
+            if (d != d10) allEqual = false;
+            sum1 += d * weight;
+            sum2 += d * (weight + 1);
+        }
+        return !allEqual && d9 == checkDigit(sum1) && d10 == checkDigit(sum2);
+    }
+
+    /** Valida uma coluna de CPFs (importação, lote de cobranças): {@code valid[i]} recebe o resultado de {@code cpfs.get(i)}. */
+    public static int validate(List<? extends CharSequence> cpfs, boolean[] valid) {
+        int count = 0;
+        for (int i = 0, n = cpfs.size(); i < n; i++) {
+            if (valid[i] = isValid(cpfs.get(i))) count++;
+        }
+        return count;
+    }
+
+    public static int validate(long[] cpfs, boolean[] valid) {
+        int count = 0;
+        for (int i = 0; i < cpfs.length; i++) {
+            if (valid[i] = isValid(cpfs[i])) count++;
+        }
+        return count;
+    }
+
+    private static int checkDigit(int sum) {
+        int d = 11 - sum % 11;
+        return d > 9 ? 0 : d;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,123 @@
+package com.nimble.gateway.util;
+
+import java.util.Arrays;
+
+/**
+ * Tempo gasto em cada fase da requisição corrente (JWT, banco, autorizador, BCrypt, JSON) e quantos comandos SQL
+ * ela executou. Há uma instância por thread, reaproveitada de uma requisição para a outra: {@link #begin}/{@link #end}
+ * só somam em arrays, sem alocar nada por fase. Fora de uma requisição medida (filtro desligado, threads de pool,
+ * jobs agendados) as chamadas não fazem nada.
+ */
+public final class RequestTimings {
+
+    public enum Phase {
+        AUTH("auth"), DB("db"), AUTHORIZER("authz"), BCRYPT("bcrypt"), JSON("json");
+
+        private final String metricName;
+
+        Phase(String metricName) { this.metricName = metricName; }
+
+        public String metricName() { return metricName; }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final long[] elapsed = new long[PHASES.length];
+    private final long[] startedAt = new long[PHASES.length];
+    // chamadas aninhadas da mesma fase (ex.: isApproved dentro de isApproved) contam uma vez só
+    private final int[] depth = new int[PHASES.length];
+    private int sqlStatements;
+    private long requestStartedAt;
+    private long total;
+    private boolean active;
+
+    private RequestTimings() { }
+
+    /** Começa a medir a requisição da thread corrente, zerando o que sobrou da anterior. */
+    public static RequestTimings start() {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null) {
+            timings = new RequestTimings();
+            CURRENT.set(timings);
+        }
+        Arrays.fill(timings.elapsed, 0);
+        Arrays.fill(timings.depth, 0);
+        timings.sqlStatements = 0;
+        timings.total = 0;
+        timings.active = true;
+        timings.requestStartedAt = System.nanoTime();
+        return timings;
+    }
+
+    /** Encerra a medição; fases ainda abertas (ex.: escrita do corpo em andamento) ficam de fora. */
+    public long finish() {
+        if (active) {
+            active = false;
+            total = System.nanoTime() - requestStartedAt;
+        }
+        return total;
+    }
+
+    public static void begin(Phase phase) {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null || !timings.active) return;
+        int i = phase.ordinal();
+        if (timings.depth[i]++ == 0) timings.startedAt[i] = System.nanoTime();
+    }
+
+    public static void end(Phase phase) {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null || !timings.active) return;
+        int i = phase.ordinal();
+        if (timings.depth[i] > 0 && --timings.depth[i] == 0) timings.elapsed[i] += System.nanoTime() - timings.startedAt[i];
+    }
+
+    public static void sqlExecuted() {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null && timings.active) timings.sqlStatements++;
+    }
+
+    public long elapsedNanos(Phase phase) {
+        return elapsed[phase.ordinal()];
+    }
+
+    public int sqlStatements() {
+        return sqlStatements;
+    }
+
+    /** Tempo desde {@link #start()}, ou o total fechado em {@link #finish()}. */
+    public long totalNanos() {
+        return active ? System.nanoTime() - requestStartedAt : total;
+    }
+
+    /** Valor do cabeçalho {@code Server-Timing}: uma métrica por fase com tempo, mais o total da requisição até aqui. */
+    public void appendServerTiming(StringBuilder out) {
+        for (Phase phase : PHASES) {
+            long nanos = elapsed[phase.ordinal()];
+            if (nanos == 0) continue;
+            out.append(phase.metricName()).append(";dur=");
+            appendMillis(out, nanos);
+            if (phase == Phase.DB) out.append(";desc=\"").append(sqlStatements).append(" sql\"");
+            out.append(", ");
+        }
+        out.append("total;dur=");
+        appendMillis(out, totalNanos());
+    }
+
+    /** Resumo para o log de requisições lentas: todas as fases, com zero inclusive. */
+    public void appendSummary(StringBuilder out) {
+        for (Phase phase : PHASES) {
+            out.append(phase.metricName()).append('=');
+            appendMillis(out, elapsed[phase.ordinal()]);
+            out.append("ms ");
+        }
+        out.append("sql=").append(sqlStatements);
+    }
+
+    // milissegundos com uma casa decimal, sem passar por String.format
+    private static void appendMillis(StringBuilder out, long nanos) {
+        long tenths = nanos / 100_000;
+        out.append(tenths / 10).append('.').append(tenths % 10);
+    }
+}
@@ -0,0 +1,134 @@
+-- Liquidação em uma única chamada ao banco (payments.fastPath=true). Migração repetível: o Flyway
+-- reaplica o arquivo sempre que ele muda, e cada função é CREATE OR REPLACE.
+-- Mesma ordem de travamento do caminho JPA: a cobrança primeiro, depois os usuários por id crescente,
+-- com as mesmas travas do BalanceService (débito: FOR NO KEY UPDATE, crédito: FOR KEY SHARE).
+-- Os saldos mudam só por lançamentos em ledger_entries.
+-- Os códigos de retorno correspondem a com.nimble.gateway.enums.SettlementResult.
+-- Cada transição grava seu evento em charge_outbox, como o caminho JPA (ChargeOutboxRepository).
+
+-- saldo atual: snapshot mais os lançamentos posteriores (UserRepository.findBalanceById)
+CREATE OR REPLACE FUNCTION nimble_balance(p_user_id bigint)
+RETURNS numeric
+LANGUAGE sql STABLE AS $$
+    SELECT u.balance + coalesce((SELECT sum(e.amount) FROM ledger_entries e
+                                  WHERE e.user_id = u.id AND e.id > coalesce(u.snapshot_entry_id, 0)), 0)
+      FROM users u WHERE u.id = p_user_id
+$$;
+
+-- trava as contas do lançamento em ordem de id; conta nula é a contrapartida externa
+CREATE OR REPLACE FUNCTION nimble_lock_accounts(p_debit_id bigint, p_credit_id bigint)
+RETURNS void
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF p_credit_id IS NOT NULL AND (p_debit_id IS NULL OR p_credit_id < p_debit_id) THEN
+        PERFORM 1 FROM users WHERE id = p_credit_id FOR KEY SHARE;
+        PERFORM 1 FROM users WHERE id = p_debit_id FOR NO KEY UPDATE;
+    ELSE
+        PERFORM 1 FROM users WHERE id = p_debit_id FOR NO KEY UPDATE;
+        PERFORM 1 FROM users WHERE id = p_credit_id FOR KEY SHARE;
+    END IF;
+END
+$$;
+
+-- as duas partidas de um lançamento (LedgerEntryRepository.post)
+CREATE OR REPLACE FUNCTION nimble_post(p_from_id bigint, p_to_id bigint, p_amount numeric, p_type varchar,
+                                       p_charge_id bigint)
+RETURNS void
+LANGUAGE sql AS $$
+    INSERT INTO ledger_entries (journal_id, user_id, amount, type, charge_id, created_at)
+    SELECT j.id, x.user_id, x.amount, p_type, p_charge_id, now()
+      FROM (SELECT gen_random_uuid() AS id) j
+     CROSS JOIN (VALUES (p_from_id, -p_amount), (p_to_id, p_amount)) AS x(user_id, amount)
+$$;
+
+CREATE OR REPLACE FUNCTION nimble_pay_charge(p_charge_id bigint, p_payer_cpf bigint, p_method varchar,
+                                             p_card_authorized boolean)
+RETURNS varchar
+LANGUAGE plpgsql AS $$
+DECLARE
+    c record;
+BEGIN
+    SELECT ch.amount, ch.status, ch.originator_id, ch.recipient_id, o.cpf AS originator_cpf, r.cpf AS recipient_cpf
+      INTO c
+      FROM charges ch
+      JOIN users o ON o.id = ch.originator_id
+      JOIN users r ON r.id = ch.recipient_id
+     WHERE ch.id = p_charge_id
+       FOR UPDATE OF ch;
+
+    IF NOT FOUND THEN RETURN 'CHARGE_NOT_FOUND'; END IF;
+    IF c.status <> 'PENDING' THEN RETURN 'NOT_PENDING'; END IF;
+    IF c.recipient_cpf <> p_payer_cpf THEN RETURN 'NOT_RECIPIENT'; END IF;
+
+    IF p_method = 'BALANCE' THEN
+        PERFORM nimble_lock_accounts(c.recipient_id, c.originator_id);
+        IF nimble_balance(c.recipient_id) < c.amount THEN RETURN 'INSUFFICIENT_FUNDS'; END IF;
+        PERFORM nimble_post(c.recipient_id, c.originator_id, c.amount, 'PAYMENT', p_charge_id);
+    ELSIF p_method = 'CARD' THEN
+        -- validações feitas; o chamador consulta o autorizador e chama de novo com p_card_authorized = true
+        IF p_card_authorized IS NOT TRUE THEN RETURN 'AUTHORIZATION_REQUIRED'; END IF;
+        PERFORM nimble_lock_accounts(NULL, c.originator_id);
+        PERFORM nimble_post(NULL, c.originator_id, c.amount, 'PAYMENT', p_charge_id);
+    ELSE
+        RETURN 'INVALID_METHOD';
+    END IF;
+
+    UPDATE charges
+       SET status = 'PAID', paid_at = now(), payment_method = p_method, paid_by_id = c.recipient_id
+     WHERE id = p_charge_id;
+    INSERT INTO charge_outbox (type, charge_id, originator_cpf, recipient_cpf, amount, payment_method, occurred_at)
+    VALUES ('PAID', p_charge_id, c.originator_cpf, c.recipient_cpf, c.amount, p_method, now());
+    RETURN 'OK';
+END
+$$;
+
+CREATE OR REPLACE FUNCTION nimble_cancel_charge(p_charge_id bigint, p_requester_cpf bigint, p_card_authorized boolean,
+                                                OUT result varchar, OUT recipient_cpf bigint, OUT amount numeric,
+                                                OUT description varchar, OUT paid_at timestamptz)
+LANGUAGE plpgsql AS $$
+DECLARE
+    c record;
+    v_payer_id bigint;
+BEGIN
+    SELECT ch.amount, ch.status, ch.payment_method, ch.paid_by_id, ch.originator_id, ch.description, ch.paid_at,
+           o.cpf AS originator_cpf, r.cpf AS recipient_cpf
+      INTO c
+      FROM charges ch
+      JOIN users o ON o.id = ch.originator_id
+      JOIN users r ON r.id = ch.recipient_id
+     WHERE ch.id = p_charge_id
+       FOR UPDATE OF ch;
+
+    IF NOT FOUND THEN result := 'CHARGE_NOT_FOUND'; RETURN; END IF;
+    IF c.originator_cpf <> p_requester_cpf THEN result := 'NOT_ORIGINATOR'; RETURN; END IF;
+    IF c.status = 'CANCELLED' THEN result := 'ALREADY_CANCELLED'; RETURN; END IF;
+
+    IF c.status = 'PAID' THEN
+        IF c.payment_method IS NULL THEN result := 'UNKNOWN_PAYMENT_METHOD'; RETURN; END IF;
+
+        IF c.payment_method = 'BALANCE' THEN
+            v_payer_id := c.paid_by_id;
+            IF v_payer_id IS NULL THEN result := 'PAYER_NOT_FOUND'; RETURN; END IF;
+            PERFORM nimble_lock_accounts(c.originator_id, v_payer_id);
+            IF nimble_balance(c.originator_id) < c.amount THEN result := 'REFUND_INSUFFICIENT_FUNDS'; RETURN; END IF;
+            PERFORM nimble_post(c.originator_id, v_payer_id, c.amount, 'REFUND', p_charge_id);
+        ELSE
+            IF p_card_authorized IS NOT TRUE THEN result := 'AUTHORIZATION_REQUIRED'; RETURN; END IF;
+            PERFORM nimble_lock_accounts(c.originator_id, NULL);
+            IF nimble_balance(c.originator_id) < c.amount THEN result := 'REVERSAL_INSUFFICIENT_FUNDS'; RETURN; END IF;
+            PERFORM nimble_post(c.originator_id, NULL, c.amount, 'REFUND', p_charge_id);
+        END IF;
+    ELSIF c.status <> 'PENDING' THEN
+        result := 'INVALID_STATE'; RETURN;
+    END IF;
+
+    UPDATE charges SET status = 'CANCELLED' WHERE id = p_charge_id;
+    INSERT INTO charge_outbox (type, charge_id, originator_cpf, recipient_cpf, amount, payment_method, occurred_at)
+    VALUES ('CANCELLED', p_charge_id, c.originator_cpf, c.recipient_cpf, c.amount, c.payment_method, now());
+    result := 'OK';
+    recipient_cpf := c.recipient_cpf;
+    amount := c.amount;
+    description := c.description;
+    paid_at := c.paid_at;
+END
+$$;
@@ -0,0 +1,60 @@
+-- Esquema inicial, equivalente ao que o ddl-auto do Hibernate gerava.
+-- Idempotente: bancos criados antes pelo ddl-auto entram com baseline 0 (spring.flyway.baseline-version)
+-- e passam por aqui sem perder dados, ganhando só o que faltar.
+
+create table if not exists users (
+    id                bigint generated by default as identity primary key,
+    name              varchar(255) not null,
+    cpf               varchar(255) not null,
+    email             varchar(255) not null,
+    password_hash     varchar(255) not null,
+    balance           numeric(38,2) not null,
+    snapshot_entry_id bigint,
+    snapshot_at       timestamp(6) with time zone
+);
+alter table users add column if not exists snapshot_entry_id bigint;
+alter table users add column if not exists snapshot_at timestamp(6) with time zone;
+
+-- ids em blocos de 50 (allocationSize de Charge) para o batch de inserts
+create sequence if not exists charges_seq start with 1 increment by 50;
+
+create table if not exists charges (
+    id             bigint primary key,
+    originator_id  bigint not null references users,
+    recipient_id   bigint not null references users,
+    amount         numeric(38,2) not null,
+    description    varchar(255),
+    status         varchar(255) not null check (status in ('PENDING', 'PAID', 'CANCELLED')),
+    created_at     timestamp(6) with time zone,
+    paid_at        timestamp(6) with time zone,
+    payment_method varchar(255) check (payment_method in ('BALANCE', 'CARD')),
+    paid_by_cpf    varchar(255)
+);
+alter table charges add column if not exists created_at timestamp(6) with time zone;
+
+-- bancos em que charges.id era identity: a sequência passa do maior id existente (só avança)
+select setval('charges_seq', (select max(id) from charges))
+ where (select max(id) from charges) > (select last_value from charges_seq);
+
+create table if not exists ledger_entries (
+    id         bigint generated by default as identity primary key,
+    journal_id uuid not null,
+    user_id    bigint,
+    amount     numeric(38,2) not null,
+    type       varchar(255) not null check (type in ('OPENING', 'DEPOSIT', 'PAYMENT', 'REFUND')),
+    charge_id  bigint,
+    created_at timestamp(6) with time zone not null
+);
+
+create table if not exists idempotency_keys (
+    id              bigint generated by default as identity primary key,
+    owner_cpf       varchar(255) not null,
+    idempotency_key varchar(255) not null,
+    operation       varchar(255) not null,
+    request_hash    varchar(64) not null,
+    status          varchar(255) not null check (status in ('IN_PROGRESS', 'COMPLETED')),
+    response_body   text,
+    created_at      timestamp(6) with time zone not null,
+    completed_at    timestamp(6) with time zone,
+    unique (owner_cpf, idempotency_key)
+);
@@ -0,0 +1,21 @@
+-- Índices das consultas quentes. "if not exists": bancos vindos do ddl-auto já podem ter parte deles.
+
+-- os índices das listagens de cobranças ficam na V7, criados com "concurrently" fora de transação
+
+-- saldo atual (lançamentos depois do snapshot) e verificação de lançamentos desbalanceados
+create index if not exists idx_ledger_entries_user_id on ledger_entries (user_id, id);
+create index if not exists idx_ledger_entries_journal_id on ledger_entries (journal_id);
+
+-- login e resolução de CPF/e-mail: índices únicos com nome estável
+create unique index if not exists uk_users_cpf on users (cpf);
+create unique index if not exists uk_users_email on users (email);
+
+-- as constraints únicas que o Hibernate criava (nomes gerados) duplicam os índices acima
+do $$
+declare
+    legacy record;
+begin
+    for legacy in select conname from pg_constraint where conrelid = 'users'::regclass and contype = 'u' loop
+        execute format('alter table users drop constraint %I', legacy.conname);
+    end loop;
+end $$;
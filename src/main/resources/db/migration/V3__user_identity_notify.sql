@@ -0,0 +1,13 @@
+-- avisa as instâncias do gateway quando a identidade de uma conta muda, para descartarem o cache local
+-- (UserIdentityService); mudanças de saldo não disparam nada
+CREATE OR REPLACE FUNCTION notify_user_identity() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('nimble_user_identity', OLD.cpf);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_users_identity_notify ON users;
+CREATE TRIGGER trg_users_identity_notify
+    AFTER UPDATE OF cpf, email, name OR DELETE ON users
+    FOR EACH ROW EXECUTE FUNCTION notify_user_identity();
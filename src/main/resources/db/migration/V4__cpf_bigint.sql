@@ -0,0 +1,33 @@
+-- CPF guardado como número (11 dígitos cabem em bigint) e pagador da cobrança como chave estrangeira.
+-- O ALTER reescreve a tabela users e refaz uk_users_cpf sob lock exclusivo: rodar em janela de manutenção.
+
+-- o trigger de V3 depende da coluna; sai antes da troca de tipo e volta com a função ajustada
+DROP TRIGGER IF EXISTS trg_users_identity_notify ON users;
+
+ALTER TABLE users ALTER COLUMN cpf TYPE bigint USING regexp_replace(cpf, '\D', '', 'g')::bigint;
+
+CREATE OR REPLACE FUNCTION notify_user_identity() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('nimble_user_identity', OLD.cpf::text);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_users_identity_notify
+    AFTER UPDATE OF cpf, email, name OR DELETE ON users
+    FOR EACH ROW EXECUTE FUNCTION notify_user_identity();
+
+ALTER TABLE charges ADD COLUMN IF NOT EXISTS paid_by_id bigint;
+
+UPDATE charges c
+   SET paid_by_id = u.id
+  FROM users u
+ WHERE c.paid_by_cpf IS NOT NULL
+   AND u.cpf = regexp_replace(c.paid_by_cpf, '\D', '', 'g')::bigint;
+
+ALTER TABLE charges DROP COLUMN IF EXISTS paid_by_cpf;
+ALTER TABLE charges ADD CONSTRAINT fk_charges_paid_by FOREIGN KEY (paid_by_id) REFERENCES users (id);
+
+-- assinaturas com CPF varchar; R__settlement_functions recria as funções com bigint
+DROP FUNCTION IF EXISTS nimble_pay_charge(bigint, varchar, varchar, boolean);
+DROP FUNCTION IF EXISTS nimble_cancel_charge(bigint, varchar, boolean);
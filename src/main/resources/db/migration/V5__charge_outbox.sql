@@ -0,0 +1,12 @@
+-- Outbox dos eventos de cobrança: gravados na mesma transação da mudança de estado e apagados pelo relay
+-- depois de entregues (OutboxRelayService). A tabela fica pequena; o relay lê em ordem de id.
+create table if not exists charge_outbox (
+    id             bigint generated by default as identity primary key,
+    type           varchar(32) not null check (type in ('CREATED', 'PAID', 'CANCELLED')),
+    charge_id      bigint not null,
+    originator_cpf bigint not null,
+    recipient_cpf  bigint not null,
+    amount         numeric(38,2) not null,
+    payment_method varchar(255) check (payment_method in ('BALANCE', 'CARD')),
+    occurred_at    timestamp(6) with time zone not null
+);
@@ -0,0 +1,24 @@
+-- Pagamento com cartão assíncrono (payments.asyncCard): a cobrança fica em PROCESSING enquanto o autorizador
+-- responde. processing_started_at permite devolver a PENDING o que ficou preso por uma instância que caiu;
+-- settlement_error guarda o motivo da última liquidação recusada, para a consulta de situação.
+
+-- bancos vindos do ddl-auto podem ter a check de status com outro nome
+do $$
+declare
+    legacy record;
+begin
+    for legacy in select conname from pg_constraint
+                   where conrelid = 'charges'::regclass and contype = 'c'
+                     and pg_get_constraintdef(oid) like '%status%' loop
+        execute format('alter table charges drop constraint %I', legacy.conname);
+    end loop;
+end $$;
+
+alter table charges add constraint charges_status_check
+    check (status in ('PENDING', 'PROCESSING', 'PAID', 'CANCELLED'));
+
+alter table charges add column if not exists processing_started_at timestamp(6) with time zone;
+alter table charges add column if not exists settlement_error varchar(255);
+
+-- varredura das cobranças presas em PROCESSING; parcial, fica do tamanho das que estão em andamento
+create index if not exists idx_charges_processing on charges (processing_started_at) where status = 'PROCESSING';
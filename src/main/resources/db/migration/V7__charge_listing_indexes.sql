@@ -0,0 +1,5 @@
+-- Listagens paginadas de cobranças (ChargeRepository.findSentPage / findReceivedPage). "concurrently" não trava
+-- as escritas em charges enquanto o índice é construído, mas não roda dentro de transação: ver o .sql.conf.
+-- Se a construção falhar, o índice fica inválido; apague-o com "drop index concurrently" antes de repetir.
+create index concurrently if not exists idx_charges_originator_status_id on charges (originator_id, status, id);
+create index concurrently if not exists idx_charges_recipient_status_id on charges (recipient_id, status, id);
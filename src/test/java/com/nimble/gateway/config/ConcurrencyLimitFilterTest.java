@@ -0,0 +1,42 @@
+package com.nimble.gateway.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    @DisplayName("Deve responder 503 quando o limite de requisições simultâneas está ocupado")
+    @Test
+    void recusa_excedente() throws Exception {
+        var filter = new ConcurrencyLimitFilter(1, 50);
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var first = executor.submit(() -> {
+                filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), (req, res) -> {
+                    entered.countDown();
+                    try { release.await(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+                });
+                return null;
+            });
+            assertThat(entered.await(2, TimeUnit.SECONDS)).isTrue();
+
+            var rejected = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest(), rejected, (req, res) -> fail("não deveria executar"));
+            assertThat(rejected.getStatus()).isEqualTo(503);
+
+            release.countDown();
+            first.get(2, TimeUnit.SECONDS);
+        }
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+}
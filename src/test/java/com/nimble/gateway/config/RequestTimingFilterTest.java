@@ -0,0 +1,72 @@
+package com.nimble.gateway.config;
+
+import com.nimble.gateway.util.RequestTimings;
+import com.nimble.gateway.util.RequestTimings.Phase;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RequestTimingFilterTest {
+
+    private static void sleep(long millis) {
+        try { Thread.sleep(millis); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+    }
+
+    @DisplayName("Deve devolver as fases medidas no Server-Timing antes do corpo, com a contagem de SQL")
+    @Test
+    void server_timing() throws Exception {
+        var filter = new RequestTimingFilter(true, 60000, 1.0);
+        var res = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest(), res, (rq, rs) -> {
+            RequestTimings.begin(Phase.DB);
+            sleep(5);
+            RequestTimings.end(Phase.DB);
+            RequestTimings.sqlExecuted();
+            RequestTimings.sqlExecuted();
+            RequestTimings.begin(Phase.AUTHORIZER);
+            RequestTimings.begin(Phase.AUTHORIZER); // aninhada: conta uma vez
+            sleep(5);
+            RequestTimings.end(Phase.AUTHORIZER);
+            RequestTimings.end(Phase.AUTHORIZER);
+            rs.getWriter().write("{}");
+            sleep(5); // depois do cabeçalho: fora dele
+        });
+
+        String header = res.getHeader(RequestTimingFilter.SERVER_TIMING);
+        assertThat(header).matches("db;dur=\\d+\\.\\d;desc=\"2 sql\", authz;dur=\\d+\\.\\d, total;dur=\\d+\\.\\d");
+        assertThat(res.getContentAsString()).isEqualTo("{}");
+    }
+
+    @DisplayName("Deve escrever o cabeçalho em resposta sem corpo e não medir nada fora da requisição")
+    @Test
+    void sem_corpo_e_fora_da_requisicao() throws Exception {
+        var filter = new RequestTimingFilter(true, 60000, 1.0);
+        var res = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest(), res, (rq, rs) -> { });
+        RequestTimings.begin(Phase.DB);
+        RequestTimings.end(Phase.DB);
+        RequestTimings.sqlExecuted();
+
+        assertThat(res.getHeader(RequestTimingFilter.SERVER_TIMING)).startsWith("total;dur=");
+        RequestTimings last = RequestTimings.start();
+        assertThat(last.sqlStatements()).isZero();
+        assertThat(last.elapsedNanos(Phase.DB)).isZero();
+        last.finish();
+    }
+
+    @DisplayName("Não deve expor Server-Timing com o cabeçalho desligado")
+    @Test
+    void cabecalho_desligado() throws Exception {
+        var filter = new RequestTimingFilter(false, 0, 1.0);
+        var res = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest(), res, (rq, rs) -> rs.getWriter().write("{}"));
+
+        assertThat(res.getHeader(RequestTimingFilter.SERVER_TIMING)).isNull();
+    }
+}
@@ -0,0 +1,45 @@
+package com.nimble.gateway.exception;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GlobalExceptionHandlerTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private double count(String type, String key) {
+        return meterRegistry.get("api.errors").tag("type", type).tag("key", key).counter().count();
+    }
+
+    @DisplayName("Deve contar erros de negócio e não encontrado pela mensagem, reaproveitando o contador")
+    @Test
+    void conta_por_mensagem() {
+        var handler = new GlobalExceptionHandler(meterRegistry, 10);
+
+        handler.business(new BusinessException("Saldo insuficiente"));
+        handler.business(new BusinessException("Saldo insuficiente"));
+        assertThat(handler.notFound(new NotFoundException("Cobrança não encontrada")).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+
+        assertThat(count("business", "Saldo insuficiente")).isEqualTo(2);
+        assertThat(count("not_found", "Cobrança não encontrada")).isEqualTo(1);
+        assertThat(meterRegistry.find("api.errors").counters()).hasSize(4); // dois "outros" registrados na subida
+    }
+
+    @DisplayName("Acima do teto de chaves as mensagens novas devem somar em outros")
+    @Test
+    void teto_de_chaves() {
+        var handler = new GlobalExceptionHandler(meterRegistry, 2);
+
+        for (int i = 0; i < 5; i++) handler.business(new BusinessException("erro " + i));
+        handler.business(new BusinessException("erro 0"));
+
+        assertThat(count("business", "erro 0")).isEqualTo(2);
+        assertThat(count("business", "erro 1")).isEqualTo(1);
+        assertThat(count("business", GlobalExceptionHandler.OTHER_KEY)).isEqualTo(3);
+    }
+}
@@ -0,0 +1,88 @@
+package com.nimble.gateway.security;
+
+import com.nimble.gateway.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    private static final String CPF = "39053344705";
+
+    @Mock CustomUserDetailsService userDetailsService;
+    @Mock UserRepository userRepository;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    JwtTokenUtil jwt = new JwtTokenUtil("f6c7a5a8d1b24c0bb1d0a52e3aa9e82d58f3a7f9a1b2c3d4e5f6a7b8c9d0e1f2", 60000, 1000);
+
+    @AfterEach
+    void clear() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private String authenticate(JwtAuthenticationFilter filter, String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        var req = new MockHttpServletRequest();
+        req.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(req, new MockHttpServletResponse(), new MockFilterChain());
+        var auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth == null ? null : auth.getName();
+    }
+
+    @DisplayName("Deve autenticar pelo token sem consultar o banco no modo STATELESS")
+    @Test
+    void stateless_sem_banco() throws Exception {
+        var filter = new JwtAuthenticationFilter(jwt, userDetailsService,
+                new PrincipalCache(userRepository, 30000, 100), meterRegistry, PrincipalMode.STATELESS);
+
+        assertThat(authenticate(filter, jwt.generateToken(CPF))).isEqualTo(CPF);
+        verifyNoInteractions(userDetailsService, userRepository);
+    }
+
+    @DisplayName("Deve consultar a existência da conta uma vez e reaproveitar o cache no modo CACHED")
+    @Test
+    void cached_consulta_uma_vez() throws Exception {
+        when(userRepository.existsByCpf(39053344705L)).thenReturn(true);
+        var filter = new JwtAuthenticationFilter(jwt, userDetailsService,
+                new PrincipalCache(userRepository, 30000, 100), meterRegistry, PrincipalMode.CACHED);
+        String token = jwt.generateToken(CPF);
+
+        assertThat(authenticate(filter, token)).isEqualTo(CPF);
+        assertThat(authenticate(filter, token)).isEqualTo(CPF);
+        verify(userRepository, times(1)).existsByCpf(39053344705L);
+    }
+
+    @DisplayName("Não deve autenticar conta removida no modo CACHED")
+    @Test
+    void cached_conta_inexistente() throws Exception {
+        when(userRepository.existsByCpf(39053344705L)).thenReturn(false);
+        var filter = new JwtAuthenticationFilter(jwt, userDetailsService,
+                new PrincipalCache(userRepository, 30000, 100), meterRegistry, PrincipalMode.CACHED);
+
+        assertThat(authenticate(filter, jwt.generateToken(CPF))).isNull();
+    }
+
+    @DisplayName("Não deve autenticar token com assinatura inválida")
+    @Test
+    void token_invalido() throws Exception {
+        var filter = new JwtAuthenticationFilter(jwt, userDetailsService,
+                new PrincipalCache(userRepository, 30000, 100), meterRegistry, PrincipalMode.STATELESS);
+        String token = jwt.generateToken(CPF);
+
+        assertThat(authenticate(filter, token.substring(0, token.length() - 2) + "xx")).isNull();
+        assertThat(meterRegistry.get("jwt.verification").tag("outcome", "invalid").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("jwt.verification").tag("outcome", "valid").timer().count()).isZero();
+    }
+}
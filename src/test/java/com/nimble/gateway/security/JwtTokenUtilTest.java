@@ -0,0 +1,43 @@
+package com.nimble.gateway.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class JwtTokenUtilTest {
+
+    private static final String SECRET = "f6c7a5a8d1b24c0bb1d0a52e3aa9e82d58f3a7f9a1b2c3d4e5f6a7b8c9d0e1f2";
+
+    @DisplayName("Deve devolver o subject do token, inclusive em verificações repetidas")
+    @Test
+    void subject_repetido() {
+        var jwt = new JwtTokenUtil(SECRET, 60000, 10);
+        String token = jwt.generateToken("39053344705");
+
+        assertThat(jwt.getSubject(token)).isEqualTo("39053344705");
+        assertThat(jwt.getSubject(token)).isEqualTo("39053344705");
+    }
+
+    @DisplayName("Deve recusar token assinado com outra chave mesmo após verificar um token válido")
+    @Test
+    void assinatura_invalida() {
+        var jwt = new JwtTokenUtil(SECRET, 60000, 10);
+        var other = new JwtTokenUtil("0000000000000000000000000000000000000000000000000000000000000000", 60000, 10);
+        jwt.getSubject(jwt.generateToken("39053344705"));
+
+        assertThatThrownBy(() -> jwt.getSubject(other.generateToken("39053344705")))
+                .isInstanceOf(SignatureException.class);
+    }
+
+    @DisplayName("Deve recusar token expirado")
+    @Test
+    void token_expirado() {
+        var jwt = new JwtTokenUtil(SECRET, -1000, 10);
+
+        assertThatThrownBy(() -> jwt.getSubject(jwt.generateToken("39053344705")))
+                .isInstanceOf(ExpiredJwtException.class);
+    }
+}
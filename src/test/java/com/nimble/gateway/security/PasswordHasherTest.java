@@ -0,0 +1,70 @@
+package com.nimble.gateway.security;
+
+import com.nimble.gateway.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    @DisplayName("Deve gerar e conferir hash BCrypt no pool dedicado")
+    @Test
+    void encode_matches() {
+        var hasher = new PasswordHasher(new BCryptPasswordEncoder(4), new SimpleMeterRegistry(), 1, 4);
+
+        String hash = hasher.encode("Secr3t@123");
+
+        assertThat(hasher.matches("Secr3t@123", hash)).isTrue();
+        assertThat(hasher.matches("errada", hash)).isFalse();
+    }
+
+    @DisplayName("Deve pedir novo hash quando o custo configurado é maior que o do hash salvo")
+    @Test
+    void upgrade_encoding() {
+        String weak = new BCryptPasswordEncoder(4).encode("Secr3t@123");
+        var hasher = new PasswordHasher(new BCryptPasswordEncoder(5), new SimpleMeterRegistry(), 1, 4);
+
+        assertThat(hasher.upgradeEncoding(weak)).isTrue();
+        assertThat(hasher.upgradeEncoding(hasher.encode("Secr3t@123"))).isFalse();
+    }
+
+    @DisplayName("Deve recusar com sobrecarga quando a fila do BCrypt está cheia")
+    @Test
+    void fila_cheia_recusa() throws Exception {
+        var release = new CountDownLatch(1);
+        var registry = new SimpleMeterRegistry();
+        var hasher = new PasswordHasher(new BlockingEncoder(release), registry, 1, 1);
+
+        var running = hasher.encodeAsync("a");
+        var queued = hasher.encodeAsync("b");
+
+        assertThatThrownBy(() -> hasher.encode("c")).isInstanceOf(ServiceOverloadedException.class);
+        assertThat(registry.get("bcrypt.rejected").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("bcrypt.queue.size").gauge().value()).isEqualTo(1.0);
+
+        release.countDown();
+        assertThat(running.get(2, TimeUnit.SECONDS)).isEqualTo("a");
+        assertThat(queued.get(2, TimeUnit.SECONDS)).isEqualTo("b");
+    }
+
+    private record BlockingEncoder(CountDownLatch release) implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            try { release.await(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
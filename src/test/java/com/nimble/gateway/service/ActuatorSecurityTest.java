@@ -0,0 +1,74 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.security.JwtTokenUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Actuator com porta de gerenciamento própria, por HTTP de verdade: as portas são fixas por execução porque a
+ * regra de segurança compara a porta local da requisição com {@code management.server.port}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+@AutoConfigureObservability
+class ActuatorSecurityTest extends BaseDatabaseTest {
+
+    private static final int API_PORT = freePort();
+    private static final int MANAGEMENT_PORT = freePort();
+
+    @Autowired JwtTokenUtil jwtTokenUtil;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void ports(DynamicPropertyRegistry registry) {
+        registry.add("server.port", () -> API_PORT);
+        registry.add("management.server.port", () -> MANAGEMENT_PORT);
+    }
+
+    private int get(int port, String path, String token) throws Exception {
+        HttpRequest.Builder req = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+        if (token != null) req.header("Authorization", "Bearer " + token);
+        return http.send(req.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @DisplayName("Métricas sem token só na porta de gerenciamento; health continua aberto")
+    @Test
+    void prometheus_so_na_porta_de_gerenciamento() throws Exception {
+        assertThat(get(MANAGEMENT_PORT, "/actuator/prometheus", null)).isEqualTo(200);
+        assertThat(get(MANAGEMENT_PORT, "/actuator/health", null)).isEqualTo(200);
+        assertThat(get(API_PORT, "/actuator/prometheus", null)).isEqualTo(403);
+        assertThat(get(API_PORT, "/api/v1/charges/sent?status=PENDING", null)).isEqualTo(403);
+    }
+
+    @DisplayName("Com a porta separada, a porta da API não entrega métricas nem com token")
+    @Test
+    void api_sem_metricas() throws Exception {
+        String token = jwtTokenUtil.generateToken(user("0.00").getCpf());
+
+        assertThat(get(API_PORT, "/api/v1/charges/sent?status=PENDING", token)).isEqualTo(200);
+        assertThat(get(API_PORT, "/actuator/prometheus", token)).isNotEqualTo(200);
+    }
+}
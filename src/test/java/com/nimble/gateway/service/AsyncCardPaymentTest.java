@@ -0,0 +1,296 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.dto.request.PaymentRequest;
+import com.nimble.gateway.dto.response.PaymentStatusResponse;
+import com.nimble.gateway.entity.Charge;
+import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.enums.PaymentMethod;
+import com.nimble.gateway.exception.BusinessException;
+import com.nimble.gateway.exception.NotFoundException;
+import com.nimble.gateway.exception.ServiceOverloadedException;
+import com.nimble.gateway.repository.ChargeRepository;
+import com.nimble.gateway.repository.UserRepository;
+import com.nimble.gateway.security.JwtTokenUtil;
+import com.nimble.gateway.service.impl.PaymentServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Cartão assíncrono com 2 workers e 2 lugares de fila; o autorizador simulado só responde quando o teste solta o
+ * {@code gate}, e cada conclusão chega pela fila do callback de teste.
+ */
+@SpringBootTest(properties = {"payments.asyncCard.enabled=true", "payments.asyncCard.workers=2",
+        "payments.asyncCard.queueCapacity=2", "payments.asyncCard.stuckAfterMs=60000"})
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+@AutoConfigureMockMvc
+class AsyncCardPaymentTest {
+
+    private static final AtomicLong CPF_SEQ = new AtomicLong(60_000_000_000L);
+
+    @Autowired PaymentService paymentService;
+    @Autowired PaymentServiceImpl jpaPath;
+    @Autowired UserRepository userRepository;
+    @Autowired ChargeRepository chargeRepository;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired MockMvc mvc;
+    @Autowired JwtTokenUtil jwtTokenUtil;
+    @Autowired BlockingQueue<PaymentStatusResponse> settled;
+    @Autowired MeterRegistry meterRegistry;
+    @MockBean AuthorizerClient authorizerClient;
+
+    private CountDownLatch gate;
+
+    @TestConfiguration
+    static class Callback {
+        @Bean
+        BlockingQueue<PaymentStatusResponse> settled() {
+            return new LinkedBlockingQueue<>();
+        }
+
+        @Bean
+        CardSettlementCallback queueCallback(BlockingQueue<PaymentStatusResponse> settled) {
+            return settled::add;
+        }
+    }
+
+    @BeforeEach
+    void authorizer() {
+        gate = new CountDownLatch(1);
+        settled.clear();
+        authorize(true);
+    }
+
+    private void authorize(boolean approved) {
+        when(authorizerClient.isApproved()).thenAnswer(inv -> {
+            gate.await(30, TimeUnit.SECONDS);
+            return approved;
+        });
+    }
+
+    private User user(String balance) {
+        String cpf = String.valueOf(CPF_SEQ.incrementAndGet());
+        return userRepository.save(User.builder().name("u" + cpf).cpf(cpf).email(cpf + "@test.com")
+                .passwordHash("x").balance(new BigDecimal(balance)).build());
+    }
+
+    private Long charge(User originator, User recipient) {
+        return chargeRepository.save(Charge.builder().originator(originator).recipient(recipient)
+                .amount(new BigDecimal("10.00")).status(ChargeStatus.PENDING).build()).getId();
+    }
+
+    private static PaymentRequest cardPayment(Long chargeId) {
+        PaymentRequest req = new PaymentRequest();
+        req.setChargeId(chargeId);
+        req.setMethod(PaymentMethod.CARD);
+        req.setCardNumber("4111111111111111");
+        req.setCardExpiration("12/29");
+        req.setCardCvv("123");
+        return req;
+    }
+
+    private PaymentStatusResponse nextSettled() throws InterruptedException {
+        PaymentStatusResponse result = settled.poll(30, TimeUnit.SECONDS);
+        assertThat(result).as("liquidação concluída").isNotNull();
+        return result;
+    }
+
+    private BigDecimal balance(User u) {
+        return userRepository.findBalanceById(u.getId()).orElseThrow();
+    }
+
+    @DisplayName("Cartão deve ficar em PROCESSING sem esperar o autorizador e liquidar quando ele aprovar")
+    @Test
+    void aprovado_em_segundo_plano() throws Exception {
+        User originator = user("0.00");
+        User payer = user("0.00");
+        Long id = charge(originator, payer);
+
+        assertThat(paymentService.pay(payer.getCpf(), cardPayment(id))).isEqualTo(ChargeStatus.PROCESSING);
+        assertThat(paymentService.status(payer.getCpf(), id).getStatus()).isEqualTo(ChargeStatus.PROCESSING);
+        assertThatThrownBy(() -> paymentService.pay(payer.getCpf(), cardPayment(id)))
+                .isInstanceOf(BusinessException.class).hasMessage("Cobrança não está pendente");
+
+        gate.countDown();
+        PaymentStatusResponse result = nextSettled();
+
+        assertThat(result.getChargeId()).isEqualTo(id);
+        assertThat(result.getStatus()).isEqualTo(ChargeStatus.PAID);
+        PaymentStatusResponse status = paymentService.status(originator.getCpf(), id);
+        assertThat(status.getStatus()).isEqualTo(ChargeStatus.PAID);
+        assertThat(status.getPaymentMethod()).isEqualTo(PaymentMethod.CARD);
+        assertThat(status.getPaidAt()).isNotNull();
+        assertThat(balance(originator)).isEqualByComparingTo("10.00");
+    }
+
+    @DisplayName("Recusa deve devolver a cobrança a PENDING com o motivo e permitir nova tentativa")
+    @Test
+    void recusa_volta_a_pendente() throws Exception {
+        User originator = user("0.00");
+        User payer = user("0.00");
+        Long id = charge(originator, payer);
+        gate.countDown();
+        authorize(false);
+
+        paymentService.pay(payer.getCpf(), cardPayment(id));
+        assertThat(nextSettled().getError()).isEqualTo("Pagamento via cartão não autorizado pelo autorizador externo");
+
+        PaymentStatusResponse status = paymentService.status(payer.getCpf(), id);
+        assertThat(status.getStatus()).isEqualTo(ChargeStatus.PENDING);
+        assertThat(status.getPaymentMethod()).isNull();
+        assertThat(status.getError()).isEqualTo("Pagamento via cartão não autorizado pelo autorizador externo");
+        assertThat(balance(originator)).isEqualByComparingTo("0.00");
+
+        authorize(true);
+        paymentService.pay(payer.getCpf(), cardPayment(id));
+        assertThat(nextSettled().getStatus()).isEqualTo(ChargeStatus.PAID);
+        assertThat(paymentService.status(payer.getCpf(), id).getError()).isNull();
+    }
+
+    @DisplayName("Com workers e fila ocupados, o pagamento seguinte deve ser recusado sem tocar na cobrança")
+    @Test
+    void fila_cheia() throws Exception {
+        User originator = user("0.00");
+        User payer = user("0.00");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) ids.add(charge(originator, payer));
+
+        for (Long id : ids.subList(0, 4)) paymentService.pay(payer.getCpf(), cardPayment(id));
+        assertThatThrownBy(() -> paymentService.pay(payer.getCpf(), cardPayment(ids.get(4))))
+                .isInstanceOf(ServiceOverloadedException.class);
+        assertThat(paymentService.status(payer.getCpf(), ids.get(4)).getStatus()).isEqualTo(ChargeStatus.PENDING);
+
+        gate.countDown();
+        for (int i = 0; i < 4; i++) assertThat(nextSettled().getStatus()).isEqualTo(ChargeStatus.PAID);
+        assertThat(balance(originator)).isEqualByComparingTo("40.00");
+
+        paymentService.pay(payer.getCpf(), cardPayment(ids.get(4)));
+        assertThat(nextSettled().getChargeId()).isEqualTo(ids.get(4));
+    }
+
+    @DisplayName("Endpoint deve responder 202 com Location e a situação só deve ser visível às partes da cobrança")
+    @Test
+    void endpoint_202_e_situacao() throws Exception {
+        User originator = user("0.00");
+        User payer = user("0.00");
+        User other = user("0.00");
+        Long id = charge(originator, payer);
+
+        var res = mvc.perform(post("/api/v1/payments/pay")
+                        .header("Authorization", "Bearer " + jwtTokenUtil.generateToken(payer.getCpf()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"chargeId\":" + id + ",\"method\":\"CARD\",\"cardNumber\":\"4111111111111111\","
+                                + "\"cardExpiration\":\"12/29\",\"cardCvv\":\"123\"}"))
+                .andReturn().getResponse();
+
+        assertThat(res.getStatus()).isEqualTo(202);
+        assertThat(res.getHeader("Location")).isEqualTo("/api/v1/payments/" + id);
+        assertThat(res.getContentAsString()).contains("\"status\":\"PROCESSING\"");
+
+        var status = mvc.perform(get("/api/v1/payments/" + id)
+                        .header("Authorization", "Bearer " + jwtTokenUtil.generateToken(originator.getCpf())))
+                .andReturn().getResponse();
+        assertThat(status.getStatus()).isEqualTo(200);
+        assertThat(status.getContentAsString()).contains("\"status\":\"PROCESSING\"");
+        assertThatThrownBy(() -> paymentService.status(other.getCpf(), id)).isInstanceOf(NotFoundException.class);
+
+        gate.countDown();
+        assertThat(nextSettled().getStatus()).isEqualTo(ChargeStatus.PAID);
+    }
+
+    @DisplayName("Varredura deve devolver a PENDING o cartão preso em PROCESSING e avisar o callback")
+    @Test
+    void varredura_de_presas() throws Exception {
+        User originator = user("0.00");
+        User payer = user("0.00");
+        Long id = charge(originator, payer);
+        // como se a instância tivesse caído depois de aceitar o pagamento
+        jdbc.update("""
+                update charges set status = 'PROCESSING', payment_method = 'CARD', paid_by_id = ?,
+                       processing_started_at = now() - interval '10 minutes'
+                 where id = ?
+                """, payer.getId(), id);
+
+        assertThat(jpaPath.releaseStuckCardPayments()).isEqualTo(1);
+
+        PaymentStatusResponse result = nextSettled();
+        assertThat(result.getChargeId()).isEqualTo(id);
+        assertThat(result.getStatus()).isEqualTo(ChargeStatus.PENDING);
+        assertThat(paymentService.status(payer.getCpf(), id).getError())
+                .isEqualTo("Liquidação do cartão interrompida, tente novamente");
+        verify(authorizerClient, never()).isApproved();
+    }
+
+    @DisplayName("Worker antigo não deve concluir a nova tentativa aberta depois da varredura")
+    @Test
+    void varredura_e_nova_tentativa() throws Exception {
+        User originator = user("0.00");
+        User payer = user("0.00");
+        Long id = charge(originator, payer);
+        // primeira consulta (tentativa antiga) recusa quando o gate abre; a segunda aprova quando o second abre
+        CountDownLatch second = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        when(authorizerClient.isApproved()).thenAnswer(inv -> {
+            if (calls.incrementAndGet() == 1) {
+                gate.await(30, TimeUnit.SECONDS);
+                return false;
+            }
+            second.await(30, TimeUnit.SECONDS);
+            return true;
+        });
+
+        paymentService.pay(payer.getCpf(), cardPayment(id));
+        verify(authorizerClient, timeout(5000)).isApproved();
+        // a tentativa antiga parece presa: a varredura a devolve e o pagador tenta de novo
+        jdbc.update("update charges set processing_started_at = processing_started_at - interval '10 minutes' where id = ?", id);
+        assertThat(jpaPath.releaseStuckCardPayments()).isEqualTo(1);
+        assertThat(nextSettled().getError()).isEqualTo("Liquidação do cartão interrompida, tente novamente");
+        paymentService.pay(payer.getCpf(), cardPayment(id));
+        verify(authorizerClient, timeout(5000).times(2)).isApproved();
+
+        gate.countDown();
+        awaitInflight(1);
+        assertThat(paymentService.status(payer.getCpf(), id).getStatus()).isEqualTo(ChargeStatus.PROCESSING);
+        assertThat(settled).isEmpty();
+
+        second.countDown();
+        PaymentStatusResponse result = nextSettled();
+        assertThat(result.getStatus()).isEqualTo(ChargeStatus.PAID);
+        assertThat(paymentService.status(payer.getCpf(), id).getError()).isNull();
+        assertThat(balance(originator)).isEqualByComparingTo("10.00");
+    }
+
+    private void awaitInflight(int expected) throws InterruptedException {
+        var inflight = meterRegistry.get("payments.card.async.inflight").gauge();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (inflight.value() != expected && System.nanoTime() < deadline) Thread.sleep(10);
+        assertThat(inflight.value()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,181 @@
+package com.nimble.gateway.service;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.nimble.gateway.config.AuthorizerResilienceConfig;
+import com.nimble.gateway.config.WebClientConfig;
+import com.nimble.gateway.exception.AuthorizerUnavailableException;
+import com.nimble.gateway.service.impl.AuthorizerClientImpl;
+import com.nimble.gateway.service.impl.ResilientAuthorizerClient;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.assertj.core.api.Assertions.*;
+
+class AuthorizerResilienceTest {
+
+    private static final String APPROVED = """
+            { "status": "success", "data": { "authorized": true } }
+            """;
+    private static final String DENIED = """
+            { "status": "fail", "data": { "authorized": false } }
+            """;
+
+    WireMockServer wm;
+    SimpleMeterRegistry meterRegistry;
+    AuthorizerClientImpl raw;
+
+    @BeforeEach
+    void setUp() {
+        wm = new WireMockServer(options().dynamicPort());
+        wm.start();
+        meterRegistry = new SimpleMeterRegistry();
+        WebClient webClient = new WebClientConfig()
+                .authorizerWebClient(WebClient.builder(), wm.baseUrl(), 500, 400, 10, 500, 30000);
+        raw = new AuthorizerClientImpl(webClient, "/authorizer", 1000);
+
+        // aquece o event loop do Netty para não contaminar as medições de tempo
+        wm.stubFor(get("/warmup").willReturn(okJson(APPROVED)));
+        WebClient warmup = new WebClientConfig()
+                .authorizerWebClient(WebClient.builder(), wm.baseUrl(), 5000, 5000, 1, 5000, 30000);
+        new AuthorizerClientImpl(warmup, "/warmup", 5000).isApproved();
+    }
+
+    @AfterEach
+    void tearDown() {
+        wm.stop();
+    }
+
+    private ResilientAuthorizerClient resilient(int maxConcurrentCalls, boolean hedge) {
+        var cfg = new AuthorizerResilienceConfig();
+        CircuitBreaker cb = cfg.authorizerCircuitBreaker(meterRegistry, 50, 2000, 100, 4, 4, 60000, 1);
+        Bulkhead bulkhead = cfg.authorizerBulkhead(meterRegistry, maxConcurrentCalls, 0);
+        return new ResilientAuthorizerClient(raw, cb, bulkhead, meterRegistry, hedge, 50, 100, 20);
+    }
+
+    @DisplayName("Deve aprovar com 200 e recusar com 403 do autorizador")
+    @Test
+    void aprova_e_recusa() {
+        wm.stubFor(get("/authorizer").inScenario("s").whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(okJson(APPROVED)).willSetStateTo("denied"));
+        wm.stubFor(get("/authorizer").inScenario("s").whenScenarioStateIs("denied")
+                .willReturn(aResponse().withStatus(403).withHeader("Content-Type", "application/json").withBody(DENIED)));
+
+        var client = resilient(10, false);
+        assertThat(client.isApproved()).isTrue();
+        assertThat(client.isApproved()).isFalse();
+
+        assertThat(meterRegistry.get("authorizer.decision").tag("outcome", "approved").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("authorizer.decision").tag("outcome", "denied").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("authorizer.decision").tag("outcome", "error").timer().count()).isZero();
+    }
+
+    @DisplayName("Deve falhar como indisponível quando o autorizador excede o timeout de resposta")
+    @Test
+    void timeout_indisponivel() {
+        wm.stubFor(get("/authorizer").willReturn(okJson(APPROVED).withFixedDelay(2000)));
+
+        var client = resilient(10, false);
+        long start = System.nanoTime();
+        assertThatThrownBy(client::isApproved).isInstanceOf(AuthorizerUnavailableException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1500);
+    }
+
+    @DisplayName("Deve abrir o circuito após falhas seguidas e parar de chamar o autorizador")
+    @Test
+    void circuit_breaker_abre() {
+        wm.stubFor(get("/authorizer").willReturn(serverError()));
+
+        var client = resilient(10, false);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(client::isApproved).isInstanceOf(AuthorizerUnavailableException.class);
+        }
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(client::isApproved).isInstanceOf(AuthorizerUnavailableException.class);
+        }
+
+        wm.verify(4, getRequestedFor(urlEqualTo("/authorizer")));
+        // as recusas do circuito aberto também contam como erro na visão de quem chamou
+        assertThat(meterRegistry.get("authorizer.decision").tag("outcome", "error").timer().count()).isEqualTo(9);
+        assertThat(meterRegistry.get("resilience4j.circuitbreaker.state")
+                .tag("state", "open").gauge().value()).isEqualTo(1.0);
+    }
+
+    @DisplayName("Deve recusar chamadas além do limite do bulkhead sem prender a thread")
+    @Test
+    void bulkhead_recusa_excedente() throws Exception {
+        wm.stubFor(get("/authorizer").willReturn(okJson(APPROVED).withFixedDelay(300)));
+
+        var client = resilient(1, false);
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(client::isApproved);
+        Thread.sleep(100);
+
+        assertThatThrownBy(client::isApproved).isInstanceOf(AuthorizerUnavailableException.class);
+        assertThat(first.get(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @DisplayName("Recusas do bulkhead não devem abrir o circuito")
+    @Test
+    void bulkhead_nao_abre_circuito() throws Exception {
+        wm.stubFor(get("/authorizer").willReturn(okJson(APPROVED).withFixedDelay(300)));
+
+        var cfg = new AuthorizerResilienceConfig();
+        CircuitBreaker cb = cfg.authorizerCircuitBreaker(meterRegistry, 50, 2000, 100, 4, 4, 60000, 1);
+        Bulkhead bulkhead = cfg.authorizerBulkhead(meterRegistry, 1, 0);
+        var client = new ResilientAuthorizerClient(raw, cb, bulkhead, meterRegistry, false, 50, 100, 20);
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(client::isApproved);
+        Thread.sleep(100);
+
+        for (int i = 0; i < 6; i++) {
+            assertThatThrownBy(client::isApproved).isInstanceOf(AuthorizerUnavailableException.class);
+        }
+        assertThat(first.get(2, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(cb.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(cb.getMetrics().getNumberOfFailedCalls()).isZero();
+        assertThat(client.isApproved()).isTrue();
+    }
+
+    @DisplayName("Deve disparar hedge quando a primeira chamada fica lenta e usar a resposta mais rápida")
+    @Test
+    void hedge_vence_chamada_lenta() {
+        wm.stubFor(get("/authorizer").inScenario("h").whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(okJson(APPROVED).withFixedDelay(280)).willSetStateTo("fast"));
+        wm.stubFor(get("/authorizer").inScenario("h").whenScenarioStateIs("fast")
+                .willReturn(okJson(APPROVED)));
+
+        var client = resilient(10, true);
+        long start = System.nanoTime();
+        assertThat(client.isApproved()).isTrue();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(250);
+        assertThat(meterRegistry.get("authorizer.hedge").tag("outcome", "won").counter().count()).isEqualTo(1.0);
+        // a primária cancelada também entra na latência usada para o atraso do hedge
+        assertThat(meterRegistry.get("authorizer.call.latency").timer().count()).isEqualTo(2);
+    }
+
+    @DisplayName("Chamada lenta que falha também deve entrar na latência usada para o atraso do hedge")
+    @Test
+    void latencia_inclui_falhas() {
+        wm.stubFor(get("/authorizer").willReturn(serverError().withFixedDelay(200)));
+
+        var client = resilient(10, false);
+        assertThatThrownBy(client::isApproved).isInstanceOf(AuthorizerUnavailableException.class);
+
+        Timer latency = meterRegistry.get("authorizer.call.latency").timer();
+        assertThat(latency.count()).isEqualTo(1);
+        assertThat(latency.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(150);
+    }
+}
@@ -0,0 +1,84 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.dto.request.PaymentRequest;
+import com.nimble.gateway.entity.Charge;
+import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.enums.PaymentMethod;
+import com.nimble.gateway.exception.BusinessException;
+import com.nimble.gateway.repository.ChargeRepository;
+import com.nimble.gateway.repository.UserRepository;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contexto completo contra o PostgreSQL embarcado, com as contas e cobranças usadas pelos testes de integração.
+ * Sem testes próprios: cada subclasse roda só os seus. Os CPFs vêm de uma sequência compartilhada, então os testes
+ * não precisam limpar o banco entre si.
+ */
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+public abstract class BaseDatabaseTest {
+
+    private static final AtomicLong CPF_SEQ = new AtomicLong(10_000_000_000L);
+
+    @Autowired PaymentService paymentService;
+    @Autowired UserRepository userRepository;
+    @Autowired ChargeRepository chargeRepository;
+
+    User user(String balance) {
+        String cpf = String.valueOf(CPF_SEQ.incrementAndGet());
+        return userRepository.save(User.builder().name("u" + cpf).cpf(cpf).email(cpf + "@test.com")
+                .passwordHash("x").balance(new BigDecimal(balance)).build());
+    }
+
+    List<Long> charges(User originator, User recipient, int count, String amount) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(chargeRepository.save(Charge.builder().originator(originator).recipient(recipient)
+                    .amount(new BigDecimal(amount)).status(ChargeStatus.PENDING).build()).getId());
+        }
+        return ids;
+    }
+
+    PaymentRequest balancePayment(Long chargeId) {
+        PaymentRequest req = new PaymentRequest();
+        req.setChargeId(chargeId);
+        req.setMethod(PaymentMethod.BALANCE);
+        return req;
+    }
+
+    // dispara todas as tarefas ao mesmo tempo e devolve quantas terminaram com BusinessException
+    int runConcurrently(List<Runnable> tasks) throws Exception {
+        var start = new CountDownLatch(1);
+        var rejected = new AtomicInteger();
+        var pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable task : tasks) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try { task.run(); } catch (BusinessException e) { rejected.incrementAndGet(); }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        return rejected.get();
+    }
+
+    BigDecimal balance(User u) {
+        return userRepository.findBalanceById(u.getId()).orElseThrow();
+    }
+}
@@ -0,0 +1,78 @@
+package com.nimble.gateway.service;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.nimble.gateway.dto.request.BatchPaymentRequest;
+import com.nimble.gateway.dto.request.PaymentRequest;
+import com.nimble.gateway.dto.response.BatchPaymentResponse;
+import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.PaymentMethod;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Pagamento em lote com o cliente resiliente de verdade (circuit breaker e bulkhead com os valores padrão) contra
+ * um autorizador simulado pelo WireMock.
+ */
+class BatchCardAuthorizationTest extends BaseDatabaseTest {
+
+    private static final WireMockServer AUTHORIZER = start();
+
+    private static WireMockServer start() {
+        WireMockServer wm = new WireMockServer(options().dynamicPort());
+        wm.start();
+        return wm;
+    }
+
+    @DynamicPropertySource
+    static void authorizer(DynamicPropertyRegistry registry) {
+        registry.add("authorizer.baseUrl", AUTHORIZER::baseUrl);
+    }
+
+    @AfterAll
+    static void stop() {
+        AUTHORIZER.stop();
+    }
+
+    private PaymentRequest card(Long chargeId, String number) {
+        PaymentRequest req = new PaymentRequest();
+        req.setChargeId(chargeId);
+        req.setMethod(PaymentMethod.CARD);
+        req.setCardNumber(number);
+        req.setCardExpiration("12/29");
+        req.setCardCvv("123");
+        return req;
+    }
+
+    @DisplayName("Lote com mais cartões distintos que o bulkhead deve consultar todos sem ser recusado")
+    @Test
+    void cartoes_alem_do_bulkhead() {
+        AUTHORIZER.stubFor(get("/authorizer").willReturn(okJson("""
+                { "status": "success", "data": { "authorized": true } }
+                """).withFixedDelay(100)));
+        User originator = user("0.00");
+        User payer = user("0.00");
+        List<Long> ids = charges(originator, payer, 50, "1.00");
+
+        List<PaymentRequest> items = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) items.add(card(ids.get(i), "41111111111111" + String.format("%02d", i)));
+        BatchPaymentRequest req = new BatchPaymentRequest();
+        req.setItems(items);
+
+        BatchPaymentResponse resp = paymentService.payBatch(payer.getCpf(), req);
+
+        assertThat(resp.getItems()).extracting(BatchPaymentResponse.Item::getError).containsOnlyNulls();
+        assertThat(resp.getPaid()).isEqualTo(50);
+        assertThat(balance(originator)).isEqualByComparingTo("50.00");
+        AUTHORIZER.verify(50, getRequestedFor(urlEqualTo("/authorizer")));
+    }
+}
@@ -0,0 +1,135 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.dto.request.BatchPaymentRequest;
+import com.nimble.gateway.dto.request.PaymentRequest;
+import com.nimble.gateway.dto.response.BatchPaymentResponse;
+import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.enums.PaymentMethod;
+import com.nimble.gateway.exception.BusinessException;
+import com.nimble.gateway.repository.LedgerEntryRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pagamento em lote contra o PostgreSQL embarcado, com as contas e cobranças de {@link BaseDatabaseTest}.
+ */
+class BatchPaymentTest extends BaseDatabaseTest {
+
+    @Autowired LedgerEntryRepository ledgerEntryRepository;
+    @MockBean AuthorizerClient authorizerClient;
+
+    private PaymentRequest card(Long chargeId, String number) {
+        PaymentRequest req = new PaymentRequest();
+        req.setChargeId(chargeId);
+        req.setMethod(PaymentMethod.CARD);
+        req.setCardNumber(number);
+        req.setCardExpiration("12/29");
+        req.setCardCvv("123");
+        return req;
+    }
+
+    private BatchPaymentRequest batch(List<PaymentRequest> items) {
+        BatchPaymentRequest req = new BatchPaymentRequest();
+        req.setItems(items);
+        return req;
+    }
+
+    private ChargeStatus status(Long chargeId) {
+        return chargeRepository.findById(chargeId).orElseThrow().getStatus();
+    }
+
+    @DisplayName("Deve pagar e recusar cada item isoladamente, consumindo o saldo na ordem do pedido")
+    @Test
+    void resultado_por_item() {
+        User originator = user("0.00");
+        User other = user("0.00");
+        User payer = user("25.00");
+        List<Long> ids = charges(originator, payer, 3, "10.00");
+        Long notMine = charges(originator, other, 1, "10.00").get(0);
+
+        BatchPaymentResponse resp = paymentService.payBatch(payer.getCpf(), batch(List.of(
+                balancePayment(ids.get(0)),
+                balancePayment(ids.get(1)),
+                balancePayment(ids.get(0)),
+                balancePayment(ids.get(2)),
+                balancePayment(notMine),
+                balancePayment(999_999L))));
+
+        assertThat(resp.getPaid()).isEqualTo(2);
+        assertThat(resp.getRejected()).isEqualTo(4);
+        assertThat(resp.getItems()).extracting(BatchPaymentResponse.Item::getError).containsExactly(
+                null,
+                null,
+                "Cobrança repetida no lote",
+                "Saldo insuficiente",
+                "Apenas o destinatário pode pagar esta cobrança",
+                "Cobrança não encontrada");
+        assertThat(status(ids.get(0))).isEqualTo(ChargeStatus.PAID);
+        assertThat(status(ids.get(2))).isEqualTo(ChargeStatus.PENDING);
+        assertThat(balance(payer)).isEqualByComparingTo("5.00");
+        assertThat(balance(originator)).isEqualByComparingTo("20.00");
+        assertThat(ledgerEntryRepository.findByChargeIdOrderById(ids.get(0))).hasSize(1);
+        assertThat(ledgerEntryRepository.findUnbalancedJournals()).isEmpty();
+    }
+
+    @DisplayName("Deve consultar o autorizador uma vez por cartão e aplicar a resposta a todos os itens dele")
+    @Test
+    void autorizador_por_cartao() {
+        when(authorizerClient.isApprovedAsync()).thenReturn(Mono.just(true), Mono.just(false));
+        User originator = user("0.00");
+        User payer = user("0.00");
+        List<Long> ids = charges(originator, payer, 4, "15.00");
+
+        BatchPaymentResponse resp = paymentService.payBatch(payer.getCpf(), batch(List.of(
+                card(ids.get(0), "4111111111111111"),
+                card(ids.get(1), "4111111111111111"),
+                card(ids.get(2), "5555555555554444"),
+                card(ids.get(3), "4111111111111111"))));
+
+        verify(authorizerClient, times(2)).isApprovedAsync();
+        verify(authorizerClient, never()).isApproved();
+        assertThat(resp.getItems()).extracting(BatchPaymentResponse.Item::isPaid).containsExactly(true, true, false, true);
+        assertThat(resp.getItems().get(2).getError()).isEqualTo("Pagamento via cartão não autorizado pelo autorizador externo");
+        assertThat(balance(originator)).isEqualByComparingTo("45.00");
+        assertThat(balance(payer)).isEqualByComparingTo("0.00");
+    }
+
+    @DisplayName("Lote e pagamentos individuais simultâneos não devem pagar a mesma cobrança duas vezes")
+    @Test
+    void lote_concorrente_com_individual() throws Exception {
+        User originator = user("0.00");
+        User payer = user("1000.00");
+        List<Long> ids = charges(originator, payer, 50, "1.00");
+
+        var paidInBatch = new AtomicInteger();
+        List<Runnable> tasks = new ArrayList<>();
+        tasks.add(() -> paidInBatch.addAndGet(paymentService.payBatch(payer.getCpf(),
+                batch(ids.stream().map(this::balancePayment).toList())).getPaid()));
+        for (Long id : ids) tasks.add(() -> paymentService.pay(payer.getCpf(), balancePayment(id)));
+
+        int rejectedSingles = runConcurrently(tasks);
+
+        assertThat(paidInBatch.get() + (50 - rejectedSingles)).isEqualTo(50);
+        assertThat(balance(payer)).isEqualByComparingTo("950.00");
+        assertThat(balance(originator)).isEqualByComparingTo("50.00");
+    }
+
+    @DisplayName("Deve exigir que o pagador exista")
+    @Test
+    void pagador_inexistente() {
+        assertThatThrownBy(() -> paymentService.payBatch("00000000000", batch(List.of(balancePayment(1L)))))
+                .isNotInstanceOf(BusinessException.class)
+                .hasMessage("Usuário não encontrado");
+    }
+}
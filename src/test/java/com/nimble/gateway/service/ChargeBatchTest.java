@@ -0,0 +1,97 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.dto.request.BatchChargeRequest;
+import com.nimble.gateway.dto.request.ChargeRequest;
+import com.nimble.gateway.dto.response.BatchChargeResponse;
+import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.ChargeStatus;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Criação de cobranças em lote contra o PostgreSQL embarcado, com as contas de {@link BaseDatabaseTest}.
+ */
+class ChargeBatchTest extends BaseDatabaseTest {
+
+    @Autowired ChargeService chargeService;
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @MockBean AuthorizerClient authorizerClient;
+
+    private ChargeRequest item(String recipientCpf, String amount) {
+        ChargeRequest req = new ChargeRequest();
+        req.setRecipientCpf(recipientCpf);
+        req.setAmount(new BigDecimal(amount));
+        req.setDescription("lote");
+        return req;
+    }
+
+    private BatchChargeRequest batch(List<ChargeRequest> items) {
+        BatchChargeRequest req = new BatchChargeRequest();
+        req.setItems(items);
+        return req;
+    }
+
+    @DisplayName("Deve criar e recusar cada item isoladamente, devolvendo o resultado na ordem do pedido")
+    @Test
+    void resultado_por_item() {
+        User originator = user("0.00");
+        User recipient = user("0.00");
+
+        BatchChargeResponse resp = chargeService.createBatch(originator.getCpf(), batch(List.of(
+                item(recipient.getCpf(), "10.00"),
+                item("00000000000", "10.00"),
+                item(originator.getCpf(), "10.00"),
+                item(recipient.getCpf(), "20.00"))));
+
+        assertThat(resp.getCreated()).isEqualTo(2);
+        assertThat(resp.getRejected()).isEqualTo(2);
+        assertThat(resp.getItems()).extracting(BatchChargeResponse.Item::getError).containsExactly(
+                null,
+                "Destinatário não encontrado",
+                "Não é permitido criar cobrança para si mesmo",
+                null);
+        assertThat(chargeRepository.findById(resp.getItems().get(3).getId())).hasValueSatisfying(c -> {
+            assertThat(c.getAmount()).isEqualByComparingTo("20.00");
+            assertThat(c.getStatus()).isEqualTo(ChargeStatus.PENDING);
+            assertThat(c.getRecipient().getId()).isEqualTo(recipient.getId());
+        });
+    }
+
+    @DisplayName("Deve gravar 10 mil cobranças com poucos statements, agrupados em batches do JDBC")
+    @Test
+    void dez_mil_em_batch() {
+        User originator = user("0.00");
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < 20; i++) recipients.add(user("0.00").getCpf());
+        List<ChargeRequest> items = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) items.add(item(recipients.get(i % recipients.size()), "1.00"));
+
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.setStatisticsEnabled(true);
+        stats.clear();
+        try {
+            BatchChargeResponse resp = chargeService.createBatch(originator.getCpf(), batch(items));
+
+            assertThat(resp.getCreated()).isEqualTo(10_000);
+            assertThat(resp.getItems()).extracting(BatchChargeResponse.Item::getId)
+                    .allMatch(Objects::nonNull).doesNotHaveDuplicates();
+            assertThat(stats.getEntityInsertCount()).isEqualTo(10_000);
+            // 20 batches de insert + 200 blocos da sequência + as consultas de usuário; um a um seriam 10 mil
+            assertThat(stats.getPrepareStatementCount()).isLessThan(300);
+        } finally {
+            stats.setStatisticsEnabled(false);
+        }
+    }
+}
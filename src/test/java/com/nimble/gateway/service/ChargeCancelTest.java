@@ -3,8 +3,10 @@ package com.nimble.gateway.service;
 import com.nimble.gateway.entity.Charge;
 import com.nimble.gateway.entity.User;
 import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.enums.LedgerEntryType;
 import com.nimble.gateway.enums.PaymentMethod;
 import com.nimble.gateway.exception.BusinessException;
+import com.nimble.gateway.repository.ChargeOutboxRepository;
 import com.nimble.gateway.repository.ChargeRepository;
 import com.nimble.gateway.repository.UserRepository;
 import com.nimble.gateway.service.impl.ChargeServiceImpl;
@@ -12,6 +14,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.util.Optional;
@@ -24,6 +27,9 @@ class ChargeCancelTest extends BaseServiceTest {
     @Mock ChargeRepository chargeRepository;
     @Mock UserRepository userRepository;
     @Mock AuthorizerClient authorizerClient;
+    @Mock BalanceService balanceService;
+    @Mock ChargeOutboxRepository outboxRepository;
+    @Mock PlatformTransactionManager transactionManager;
 
     @InjectMocks ChargeServiceImpl service;
 
@@ -35,10 +41,12 @@ class ChargeCancelTest extends BaseServiceTest {
         Charge c = Charge.builder().id(10L).originator(originator).recipient(dest)
                 .amount(new BigDecimal("100.00")).status(ChargeStatus.PENDING).build();
 
-        when(chargeRepository.findById(10L)).thenReturn(Optional.of(c));
+        when(chargeRepository.findWithUsersById(10L)).thenReturn(Optional.of(c));
+        when(chargeRepository.updateStatus(10L, ChargeStatus.PENDING, ChargeStatus.CANCELLED)).thenReturn(1);
 
         var resp = service.cancel(10L, "39053344705");
         assertThat(resp.getStatus()).isEqualTo(ChargeStatus.CANCELLED);
+        verifyNoInteractions(balanceService);
     }
 
     @DisplayName("Deve estornar valores ao cancelar cobrança paga com saldo")
@@ -48,17 +56,16 @@ class ChargeCancelTest extends BaseServiceTest {
         User payer = User.builder().id(2L).cpf("44014614018").balance(new BigDecimal("50.00")).build();
         Charge c = Charge.builder().id(10L).originator(originator).recipient(payer)
                 .amount(new BigDecimal("100.00")).status(ChargeStatus.PAID)
-                .paymentMethod(PaymentMethod.BALANCE).paidByCpf("44014614018").build();
+                .paymentMethod(PaymentMethod.BALANCE).paidBy(payer).build();
 
-        when(chargeRepository.findById(10L)).thenReturn(Optional.of(c));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(originator));
-        when(userRepository.findByCpf("44014614018")).thenReturn(Optional.of(payer));
+        when(chargeRepository.findWithUsersById(10L)).thenReturn(Optional.of(c));
+        when(chargeRepository.updateStatus(10L, ChargeStatus.PAID, ChargeStatus.CANCELLED)).thenReturn(1);
 
         var resp = service.cancel(10L, "39053344705");
 
         assertThat(resp.getStatus()).isEqualTo(ChargeStatus.CANCELLED);
-        assertThat(originator.getBalance()).isEqualTo(new BigDecimal("100.00"));
-        assertThat(payer.getBalance()).isEqualTo(new BigDecimal("150.00"));
+        verify(balanceService).transfer(eq(1L), eq(2L), eq(new BigDecimal("100.00")), eq(LedgerEntryType.REFUND), eq(10L),
+                anyString());
     }
 
     @DisplayName("Deve reverter crédito ao cancelar cobrança paga com cartão")
@@ -68,17 +75,16 @@ class ChargeCancelTest extends BaseServiceTest {
         User payer = User.builder().id(2L).cpf("44014614018").build();
         Charge c = Charge.builder().id(10L).originator(originator).recipient(payer)
                 .amount(new BigDecimal("150.00")).status(ChargeStatus.PAID)
-                .paymentMethod(PaymentMethod.CARD).paidByCpf("44014614018").build();
+                .paymentMethod(PaymentMethod.CARD).paidBy(payer).build();
 
         when(authorizerClient.isApproved()).thenReturn(true);
-        when(chargeRepository.findById(10L)).thenReturn(Optional.of(c));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(originator));
-        when(userRepository.findByCpf("44014614018")).thenReturn(Optional.of(payer));
+        when(chargeRepository.findWithUsersById(10L)).thenReturn(Optional.of(c));
+        when(chargeRepository.updateStatus(10L, ChargeStatus.PAID, ChargeStatus.CANCELLED)).thenReturn(1);
 
         var resp = service.cancel(10L, "39053344705");
 
         assertThat(resp.getStatus()).isEqualTo(ChargeStatus.CANCELLED);
-        assertThat(originator.getBalance()).isEqualByComparingTo("0.00");
+        verify(balanceService).debit(eq(1L), eq(new BigDecimal("150.00")), eq(LedgerEntryType.REFUND), eq(10L), anyString());
     }
 
     @DisplayName("Deve impedir cancelamento por usuário que não é o originador da cobrança")
@@ -89,8 +95,23 @@ class ChargeCancelTest extends BaseServiceTest {
         Charge c = Charge.builder().id(10L).originator(originator).recipient(dest)
                 .amount(new BigDecimal("100.00")).status(ChargeStatus.PENDING).build();
 
-        when(chargeRepository.findById(10L)).thenReturn(Optional.of(c));
+        when(chargeRepository.findWithUsersById(10L)).thenReturn(Optional.of(c));
         assertThatThrownBy(() -> service.cancel(10L, "44014614018"))
                 .isInstanceOf(BusinessException.class);
     }
+
+    @DisplayName("Deve falhar o cancelamento se a cobrança mudou de estado por outra operação")
+    @Test
+    void cancel_concorrente() {
+        User originator = User.builder().id(1L).cpf("39053344705").build();
+        User dest = User.builder().id(2L).cpf("44014614018").build();
+        Charge c = Charge.builder().id(10L).originator(originator).recipient(dest)
+                .amount(new BigDecimal("100.00")).status(ChargeStatus.PENDING).build();
+
+        when(chargeRepository.findWithUsersById(10L)).thenReturn(Optional.of(c));
+        when(chargeRepository.updateStatus(10L, ChargeStatus.PENDING, ChargeStatus.CANCELLED)).thenReturn(0);
+
+        assertThatThrownBy(() -> service.cancel(10L, "39053344705"))
+                .isInstanceOf(BusinessException.class);
+    }
 }
@@ -0,0 +1,130 @@
+package com.nimble.gateway.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.dto.request.BatchChargeRequest;
+import com.nimble.gateway.dto.request.ChargeExportRequest;
+import com.nimble.gateway.dto.request.ChargeRequest;
+import com.nimble.gateway.entity.Charge;
+import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.ChargeDirection;
+import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.enums.ExportFormat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Exportação em streaming contra o PostgreSQL embarcado, com as contas e cobranças de {@link BaseDatabaseTest}.
+ */
+class ChargeExportTest extends BaseDatabaseTest {
+
+    @Autowired ChargeExportService chargeExportService;
+    @Autowired ChargeService chargeService;
+    @Autowired ObjectMapper objectMapper;
+    @MockBean AuthorizerClient authorizerClient;
+
+    private ChargeExportRequest export(ExportFormat format, ChargeDirection direction) {
+        ChargeExportRequest req = new ChargeExportRequest();
+        req.setFormat(format);
+        req.setDirection(direction);
+        return req;
+    }
+
+    private String exportToString(String cpf, ChargeExportRequest req) {
+        var out = new ByteArrayOutputStream();
+        chargeExportService.export(cpf, req, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @DisplayName("NDJSON deve trazer uma cobrança por linha, em ordem de id, só do usuário e direção pedidos")
+    @Test
+    void ndjson() throws Exception {
+        User originator = user("0.00");
+        User recipient = user("0.00");
+        List<Long> ids = charges(originator, recipient, 3, "12.50");
+        charges(recipient, originator, 2, "1.00"); // recebidas pelo originador: fora da exportação SENT
+
+        String body = exportToString(originator.getCpf(), export(ExportFormat.NDJSON, ChargeDirection.SENT));
+
+        assertThat(body).endsWith("\n");
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) lines.add(objectMapper.readTree(line));
+        assertThat(lines).extracting(n -> n.get("id").asLong()).containsExactlyElementsOf(ids);
+        assertThat(lines.get(0).get("recipientCpf").asText()).isEqualTo(recipient.getCpf());
+        assertThat(lines.get(0).get("amount").decimalValue()).isEqualByComparingTo("12.50");
+        assertThat(lines.get(0).get("status").asText()).isEqualTo("PENDING");
+    }
+
+    @DisplayName("CSV deve ter cabeçalho, escapar a descrição e respeitar o filtro de status")
+    @Test
+    void csv() {
+        User originator = user("0.00");
+        User recipient = user("0.00");
+        Long quoted = chargeRepository.save(Charge.builder().originator(originator).recipient(recipient)
+                .amount(new BigDecimal("99.90")).description("Consultoria, \"fase 1\"")
+                .status(ChargeStatus.PENDING).build()).getId();
+        chargeRepository.save(Charge.builder().originator(originator).recipient(recipient)
+                .amount(new BigDecimal("5.00")).status(ChargeStatus.CANCELLED).build());
+
+        ChargeExportRequest req = export(ExportFormat.CSV, ChargeDirection.RECEIVED);
+        req.setStatus(ChargeStatus.PENDING);
+        String[] lines = exportToString(recipient.getCpf(), req).split("\n");
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).isEqualTo(
+                "id,originatorCpf,recipientCpf,amount,description,status,paymentMethod,createdAt,paidAt,paidByCpf");
+        assertThat(lines[1]).startsWith(quoted + "," + originator.getCpf() + "," + recipient.getCpf()
+                + ",99.90,\"Consultoria, \"\"fase 1\"\"\",PENDING,,");
+    }
+
+    @DisplayName("Cliente desconectado deve interromper a leitura e devolver a conexão ao pool")
+    @Test
+    void cliente_desconectado() {
+        User originator = user("0.00");
+        User recipient = user("0.00");
+        List<ChargeRequest> items = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            ChargeRequest item = new ChargeRequest();
+            item.setRecipientCpf(recipient.getCpf());
+            item.setAmount(new BigDecimal("1.00"));
+            items.add(item);
+        }
+        BatchChargeRequest batch = new BatchChargeRequest();
+        batch.setItems(items);
+        chargeService.createBatch(originator.getCpf(), batch);
+
+        // mais tentativas do que conexões no pool: se alguma ficasse presa, as seguintes esgotariam o pool
+        for (int attempt = 0; attempt < 15; attempt++) {
+            var written = new int[1];
+            OutputStream disconnected = new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[] {(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    if (written[0] > 16 * 1024) throw new IOException("Broken pipe");
+                    written[0] += len;
+                }
+            };
+            assertThatCode(() -> chargeExportService.export(originator.getCpf(),
+                    export(ExportFormat.NDJSON, ChargeDirection.SENT), disconnected)).doesNotThrowAnyException();
+        }
+
+        String csv = exportToString(originator.getCpf(), export(ExportFormat.CSV, ChargeDirection.SENT));
+        assertThat(csv.split("\n")).hasSize(5_001);
+    }
+}
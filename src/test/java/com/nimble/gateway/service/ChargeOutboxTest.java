@@ -0,0 +1,219 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.dto.event.ChargeEvent;
+import com.nimble.gateway.dto.request.ChargeRequest;
+import com.nimble.gateway.dto.request.PaymentRequest;
+import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.ChargeEventType;
+import com.nimble.gateway.enums.PaymentMethod;
+import com.nimble.gateway.exception.BusinessException;
+import com.nimble.gateway.repository.UserRepository;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Outbox contra o PostgreSQL embarcado, com uma fila em memória como destino. O relay agendado roda só na subida;
+ * os testes chamam {@link OutboxRelayService#relay()} direto.
+ */
+@SpringBootTest(properties = {"outbox.sink=queue", "outbox.relay.intervalMs=3600000", "outbox.relay.batchSize=4"})
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+class ChargeOutboxTest {
+
+    private static final AtomicLong CPF_SEQ = new AtomicLong(40_000_000_000L);
+
+    @Autowired ChargeService chargeService;
+    @Autowired PaymentService paymentService;
+    @Autowired OutboxRelayService relay;
+    @Autowired QueuePublisher publisher;
+    @Autowired UserRepository userRepository;
+    @Autowired JdbcTemplate jdbc;
+
+    // fila em memória; failures > 0 faz as próximas entregas falharem, delayMs segura o lote (e as linhas travadas)
+    static class QueuePublisher implements ChargeEventPublisher {
+        final BlockingQueue<ChargeEvent> queue = new LinkedBlockingQueue<>();
+        final AtomicInteger failures = new AtomicInteger();
+        volatile long delayMs;
+
+        @Override
+        public void publish(List<ChargeEvent> events) {
+            if (failures.getAndDecrement() > 0) throw new IllegalStateException("destino fora do ar");
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            queue.addAll(events);
+        }
+    }
+
+    @TestConfiguration
+    static class Sink {
+        @Bean
+        QueuePublisher queuePublisher() {
+            return new QueuePublisher();
+        }
+    }
+
+    @BeforeEach
+    void drain() {
+        publisher.failures.set(0);
+        publisher.delayMs = 0;
+        relay.relay();
+        publisher.queue.clear();
+    }
+
+    private User user(String balance) {
+        String cpf = String.valueOf(CPF_SEQ.incrementAndGet());
+        return userRepository.save(User.builder().name("u" + cpf).cpf(cpf).email(cpf + "@test.com")
+                .passwordHash("x").balance(new BigDecimal(balance)).build());
+    }
+
+    private Long charge(User originator, User recipient, String amount) {
+        ChargeRequest req = new ChargeRequest();
+        req.setRecipientCpf(recipient.getCpf());
+        req.setAmount(new BigDecimal(amount));
+        return chargeService.create(originator.getCpf(), req).getId();
+    }
+
+    private static PaymentRequest balancePayment(Long chargeId) {
+        PaymentRequest req = new PaymentRequest();
+        req.setChargeId(chargeId);
+        req.setMethod(PaymentMethod.BALANCE);
+        return req;
+    }
+
+    private int pending() {
+        return jdbc.queryForObject("select count(*) from charge_outbox", Integer.class);
+    }
+
+    private List<String> delivered(Long chargeId) {
+        return publisher.queue.stream().filter(e -> e.getChargeId().equals(chargeId))
+                .map(e -> e.getType().name()).toList();
+    }
+
+    @DisplayName("Criação, pagamento e cancelamento devem gerar eventos entregues em ordem e apagados do outbox")
+    @Test
+    void ciclo_de_vida() {
+        User originator = user("0.00");
+        User payer = user("10.00");
+        Long paid = charge(originator, payer, "10.00");
+        Long cancelled = charge(originator, payer, "5.00");
+        paymentService.pay(payer.getCpf(), balancePayment(paid));
+        chargeService.cancel(cancelled, originator.getCpf());
+        chargeService.cancel(paid, originator.getCpf());
+
+        assertThat(pending()).isEqualTo(5);
+        assertThat(relay.relay()).isEqualTo(5);
+
+        assertThat(delivered(paid)).containsExactly("CREATED", "PAID", "CANCELLED");
+        assertThat(delivered(cancelled)).containsExactly("CREATED", "CANCELLED");
+        ChargeEvent payment = publisher.queue.stream()
+                .filter(e -> e.getChargeId().equals(paid) && e.getType() == ChargeEventType.PAID).findFirst().orElseThrow();
+        assertThat(payment.getOriginatorCpf()).isEqualTo(originator.getCpf());
+        assertThat(payment.getRecipientCpf()).isEqualTo(payer.getCpf());
+        assertThat(payment.getAmount()).isEqualByComparingTo("10.00");
+        assertThat(payment.getPaymentMethod()).isEqualTo(PaymentMethod.BALANCE);
+        assertThat(pending()).isZero();
+    }
+
+    @DisplayName("Transação desfeita não deve deixar evento no outbox")
+    @Test
+    void sem_evento_no_rollback() {
+        User originator = user("0.00");
+        User payer = user("1.00");
+        Long id = charge(originator, payer, "10.00");
+
+        assertThatThrownBy(() -> paymentService.pay(payer.getCpf(), balancePayment(id)))
+                .isInstanceOf(BusinessException.class).hasMessage("Saldo insuficiente");
+        relay.relay();
+
+        assertThat(delivered(id)).containsExactly("CREATED");
+    }
+
+    @DisplayName("Funções de liquidação no banco devem gravar os mesmos eventos do caminho JPA")
+    @Test
+    void eventos_do_caminho_rapido() {
+        User originator = user("0.00");
+        User payer = user("10.00");
+        Long id = charge(originator, payer, "10.00");
+
+        assertThat(jdbc.queryForObject("select nimble_pay_charge(?, ?, 'BALANCE', false)", String.class,
+                id, payer.getCpfNumber())).isEqualTo("OK");
+        assertThat(jdbc.queryForObject("select result from nimble_cancel_charge(?, ?, false)", String.class,
+                id, originator.getCpfNumber())).isEqualTo("OK");
+        relay.relay();
+
+        assertThat(delivered(id)).containsExactly("CREATED", "PAID", "CANCELLED");
+        assertThat(publisher.queue).filteredOn(e -> e.getChargeId().equals(id) && e.getType() != ChargeEventType.CREATED)
+                .allSatisfy(e -> {
+                    assertThat(e.getOriginatorCpf()).isEqualTo(originator.getCpf());
+                    assertThat(e.getPaymentMethod()).isEqualTo(PaymentMethod.BALANCE);
+                });
+    }
+
+    @DisplayName("Falha no destino deve manter os eventos no outbox para a próxima rodada")
+    @Test
+    void falha_na_entrega() {
+        User originator = user("0.00");
+        User payer = user("0.00");
+        Long id = charge(originator, payer, "10.00");
+        publisher.failures.set(1);
+
+        assertThat(relay.relay()).isZero();
+        assertThat(pending()).isEqualTo(1);
+
+        assertThat(relay.relay()).isEqualTo(1);
+        assertThat(delivered(id)).containsExactly("CREATED");
+    }
+
+    @DisplayName("Relays simultâneos devem dividir o outbox sem entregar o mesmo evento duas vezes")
+    @Test
+    void relays_simultaneos() throws Exception {
+        User originator = user("0.00");
+        User payer = user("0.00");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 40; i++) ids.add(charge(originator, payer, "1.00"));
+        publisher.delayMs = 20;
+
+        var pool = Executors.newFixedThreadPool(4);
+        try {
+            var start = new CountDownLatch(1);
+            List<Future<Integer>> relays = new ArrayList<>();
+            for (int i = 0; i < 4; i++) relays.add(pool.submit(() -> {
+                start.await();
+                return relay.relay();
+            }));
+            start.countDown();
+            int total = 0;
+            int busy = 0;
+            for (Future<Integer> f : relays) {
+                int relayed = f.get(60, TimeUnit.SECONDS);
+                total += relayed;
+                if (relayed > 0) busy++;
+            }
+            assertThat(total).isEqualTo(40);
+            assertThat(busy).isGreaterThan(1);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(publisher.queue).extracting(ChargeEvent::getChargeId).containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(pending()).isZero();
+    }
+}
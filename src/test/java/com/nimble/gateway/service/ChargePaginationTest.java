@@ -0,0 +1,143 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.dto.request.ChargePageRequest;
+import com.nimble.gateway.dto.response.ChargePageResponse;
+import com.nimble.gateway.dto.response.ChargeResponse;
+import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.exception.BusinessException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Listagens paginadas por cursor contra o PostgreSQL embarcado, com as contas e cobranças de {@link BaseDatabaseTest}.
+ */
+class ChargePaginationTest extends BaseDatabaseTest {
+
+    @Autowired ChargeService chargeService;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @MockBean AuthorizerClient authorizerClient;
+
+    private ChargePageRequest page(String cursor, Integer limit) {
+        ChargePageRequest req = new ChargePageRequest();
+        req.setCursor(cursor);
+        req.setLimit(limit);
+        return req;
+    }
+
+    @DisplayName("Deve percorrer todas as cobranças pelo cursor, das mais recentes para as mais antigas, sem repetir")
+    @Test
+    void percorre_pelo_cursor() {
+        User originator = user("0.00");
+        User recipient = user("0.00");
+        List<Long> ids = charges(originator, recipient, 25, "1.00");
+        charges(originator, user("0.00"), 3, "1.00"); // outro destinatário: não aparece em received
+
+        List<Long> seen = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            ChargePageResponse resp = chargeService.listReceived(recipient.getCpf(), ChargeStatus.PENDING, page(cursor, 10));
+            resp.getItems().forEach(c -> seen.add(c.getId()));
+            sizes.add(resp.getItems().size());
+            cursor = resp.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(sizes).containsExactly(10, 10, 5);
+        assertThat(seen).isSortedAccordingTo(Comparator.reverseOrder())
+                .containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(chargeService.listSent(originator.getCpf(), ChargeStatus.PENDING, page(null, null)).getItems())
+                .hasSize(28);
+    }
+
+    @DisplayName("Página deve sair em um SELECT de projeção, sem carregar cobranças nem usuários como entidades")
+    @Test
+    void projecao_sem_n_mais_um() {
+        User recipient = user("0.00");
+        for (int i = 0; i < 20; i++) charges(user("0.00"), recipient, 1, "1.00"); // um originador por cobrança
+
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.setStatisticsEnabled(true);
+        stats.clear();
+        try {
+            ChargePageResponse resp = chargeService.listReceived(recipient.getCpf(), ChargeStatus.PENDING, page(null, 50));
+
+            assertThat(resp.getItems()).hasSize(20)
+                    .allSatisfy(c -> assertThat(c.getOriginatorCpf()).isNotNull());
+            // identidade do usuário autenticado (projeção) + a página; antes eram mais 20 carregamentos de originador
+            assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+            assertThat(stats.getEntityLoadCount()).isZero();
+        } finally {
+            stats.setStatisticsEnabled(false);
+        }
+    }
+
+    @DisplayName("Página exata não deve devolver cursor para uma página vazia")
+    @Test
+    void pagina_exata_sem_cursor() {
+        User originator = user("0.00");
+        User recipient = user("0.00");
+        charges(originator, recipient, 4, "1.00");
+
+        ChargePageResponse resp = chargeService.listSent(originator.getCpf(), ChargeStatus.PENDING, page(null, 4));
+
+        assertThat(resp.getItems()).hasSize(4);
+        assertThat(resp.getNextCursor()).isNull();
+    }
+
+    @DisplayName("Limite acima do máximo deve ser reduzido a 500 em vez de recusado")
+    @Test
+    void limite_reduzido_ao_maximo() {
+        User originator = user("0.00");
+        User recipient = user("0.00");
+        charges(originator, recipient, 501, "1.00");
+
+        ChargePageResponse resp = chargeService.listSent(originator.getCpf(), ChargeStatus.PENDING, page(null, 10_000));
+
+        assertThat(resp.getItems()).hasSize(500);
+        assertThat(resp.getNextCursor()).isNotNull();
+    }
+
+    @DisplayName("Deve filtrar pela data de criação")
+    @Test
+    void filtra_por_data() {
+        User originator = user("0.00");
+        User recipient = user("0.00");
+        List<Long> ids = charges(originator, recipient, 3, "1.00");
+        OffsetDateTime base = OffsetDateTime.parse("2025-01-10T12:00:00Z");
+        for (int i = 0; i < ids.size(); i++)
+            jdbc.update("update charges set created_at = ? where id = ?", base.plusDays(i), ids.get(i));
+
+        ChargePageRequest req = page(null, null);
+        req.setFrom(base.plusDays(1));
+        req.setTo(base.plusDays(2));
+
+        assertThat(chargeService.listSent(originator.getCpf(), ChargeStatus.PENDING, req).getItems())
+                .extracting(ChargeResponse::getId)
+                .containsExactly(ids.get(1));
+    }
+
+    @DisplayName("Deve recusar cursor adulterado")
+    @Test
+    void cursor_invalido() {
+        User originator = user("0.00");
+
+        assertThatThrownBy(() -> chargeService.listSent(originator.getCpf(), ChargeStatus.PENDING, page("não-é-cursor", 10)))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Cursor de paginação inválido");
+    }
+}
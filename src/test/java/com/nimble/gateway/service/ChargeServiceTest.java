@@ -3,7 +3,9 @@ package com.nimble.gateway.service;
 import com.nimble.gateway.dto.request.ChargeRequest;
 import com.nimble.gateway.entity.Charge;
 import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.ChargeEventType;
 import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.repository.ChargeOutboxRepository;
 import com.nimble.gateway.repository.ChargeRepository;
 import com.nimble.gateway.repository.UserRepository;
 import com.nimble.gateway.service.impl.ChargeServiceImpl;
@@ -11,6 +13,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.util.Optional;
@@ -22,6 +25,9 @@ class ChargeServiceTest extends BaseServiceTest {
 
     @Mock ChargeRepository chargeRepository;
     @Mock UserRepository userRepository;
+    @Mock UserIdentityService identities;
+    @Mock ChargeOutboxRepository outboxRepository;
+    @Mock PlatformTransactionManager transactionManager;
 
     @InjectMocks ChargeServiceImpl service;
 
@@ -32,8 +38,12 @@ class ChargeServiceTest extends BaseServiceTest {
         User originator = User.builder().id(1L).cpf(originatorCpf).build();
         User recipient = User.builder().id(2L).cpf("44014614018").build();
 
-        when(userRepository.findByCpf(originatorCpf)).thenReturn(Optional.of(originator));
-        when(userRepository.findByCpf("44014614018")).thenReturn(Optional.of(recipient));
+        when(identities.findByCpf(originatorCpf))
+                .thenReturn(Optional.of(new UserIdentityService.UserIdentity(1L, originatorCpf, "o@test.com", "O")));
+        when(identities.findByCpf("44014614018"))
+                .thenReturn(Optional.of(new UserIdentityService.UserIdentity(2L, "44014614018", "r@test.com", "R")));
+        when(userRepository.getReferenceById(1L)).thenReturn(originator);
+        when(userRepository.getReferenceById(2L)).thenReturn(recipient);
         when(chargeRepository.save(any(Charge.class))).thenAnswer(a -> a.getArgument(0));
 
         ChargeRequest req = new ChargeRequest();
@@ -45,6 +55,10 @@ class ChargeServiceTest extends BaseServiceTest {
 
         assertThat(resp.getStatus()).isEqualTo(ChargeStatus.PENDING);
         assertThat(resp.getAmount()).isEqualTo(new BigDecimal("150.00"));
+        assertThat(resp.getRecipientCpf()).isEqualTo("44014614018");
         verify(chargeRepository).save(any(Charge.class));
+        verify(outboxRepository).append(argThat(events -> events.size() == 1
+                && events.get(0).getType() == ChargeEventType.CREATED
+                && events.get(0).getRecipientCpf().equals("44014614018")));
     }
 }
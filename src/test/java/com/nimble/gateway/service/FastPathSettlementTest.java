@@ -0,0 +1,146 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.dto.request.PaymentRequest;
+import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.enums.PaymentMethod;
+import com.nimble.gateway.exception.BusinessException;
+import com.nimble.gateway.exception.NotFoundException;
+import com.nimble.gateway.service.impl.FastPathPaymentService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Liquidação pela função no banco ({@code payments.fastPath}), com as contas e cobranças de {@link BaseDatabaseTest}.
+ */
+@SpringBootTest(properties = "payments.fastPath=true")
+class FastPathSettlementTest extends BaseDatabaseTest {
+
+    @Autowired ChargeService chargeService;
+    @MockBean AuthorizerClient authorizerClient;
+
+    private PaymentRequest cardPayment(Long chargeId) {
+        PaymentRequest req = new PaymentRequest();
+        req.setChargeId(chargeId);
+        req.setMethod(PaymentMethod.CARD);
+        req.setCardNumber("4111111111111111");
+        req.setCardExpiration("12/29");
+        req.setCardCvv("123");
+        return req;
+    }
+
+    @DisplayName("Deve usar o caminho rápido quando habilitado")
+    @Test
+    void caminho_rapido_ativo() {
+        assertThat(paymentService).isInstanceOf(FastPathPaymentService.class);
+    }
+
+    @DisplayName("Não deve perder atualizações nem deixar saldo negativo com pagamentos paralelos pela função")
+    @Test
+    void pagamentos_paralelos_mesma_conta() throws Exception {
+        User originator = user("0.00");
+        User payer = user("500.00");
+        List<Long> ids = charges(originator, payer, 100, "10.00");
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (Long id : ids) tasks.add(() -> paymentService.pay(payer.getCpf(), balancePayment(id)));
+
+        assertThat(runConcurrently(tasks)).isEqualTo(50);
+        assertThat(balance(payer)).isEqualByComparingTo("0.00");
+        assertThat(balance(originator)).isEqualByComparingTo("500.00");
+    }
+
+    @DisplayName("Deve concluir transferências cruzadas pela função sem deadlock e conservando o total")
+    @Test
+    void transferencias_cruzadas() throws Exception {
+        User a = user("1000.00");
+        User b = user("1000.00");
+        List<Long> aToB = charges(b, a, 100, "5.00");
+        List<Long> bToA = charges(a, b, 100, "5.00");
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Long ab = aToB.get(i), ba = bToA.get(i);
+            tasks.add(() -> paymentService.pay(a.getCpf(), balancePayment(ab)));
+            tasks.add(() -> paymentService.pay(b.getCpf(), balancePayment(ba)));
+        }
+
+        assertThat(runConcurrently(tasks)).isZero();
+        assertThat(balance(a)).isEqualByComparingTo("1000.00");
+        assertThat(balance(b)).isEqualByComparingTo("1000.00");
+    }
+
+    @DisplayName("Deve traduzir os códigos da função nas mesmas exceções do caminho JPA")
+    @Test
+    void codigos_de_recusa() {
+        User originator = user("0.00");
+        User payer = user("5.00");
+        User other = user("0.00");
+        Long id = charges(originator, payer, 1, "10.00").get(0);
+
+        assertThatThrownBy(() -> paymentService.pay(payer.getCpf(), balancePayment(999_999L)))
+                .isInstanceOf(NotFoundException.class).hasMessage("Cobrança não encontrada");
+        assertThatThrownBy(() -> paymentService.pay(other.getCpf(), balancePayment(id)))
+                .isInstanceOf(BusinessException.class).hasMessage("Apenas o destinatário pode pagar esta cobrança");
+        assertThatThrownBy(() -> paymentService.pay(payer.getCpf(), balancePayment(id)))
+                .isInstanceOf(BusinessException.class).hasMessage("Saldo insuficiente");
+        assertThat(balance(payer)).isEqualByComparingTo("5.00");
+    }
+
+    @DisplayName("Deve pagar com cartão após aprovação e estornar o crédito no cancelamento")
+    @Test
+    void cartao_paga_e_cancela() {
+        when(authorizerClient.isApproved()).thenReturn(true);
+        User originator = user("0.00");
+        User payer = user("0.00");
+        Long id = charges(originator, payer, 1, "40.00").get(0);
+
+        paymentService.pay(payer.getCpf(), cardPayment(id));
+        assertThat(balance(originator)).isEqualByComparingTo("40.00");
+
+        var cancelled = chargeService.cancel(id, originator.getCpf());
+        assertThat(cancelled.getStatus()).isEqualTo(ChargeStatus.CANCELLED);
+        assertThat(cancelled.getRecipientCpf()).isEqualTo(payer.getCpf());
+        assertThat(cancelled.getPaidAt()).isNotNull();
+        assertThat(balance(originator)).isEqualByComparingTo("0.00");
+        verify(authorizerClient, times(2)).isApproved();
+    }
+
+    @DisplayName("Não deve consultar o autorizador para cobrança que não está pendente")
+    @Test
+    void cartao_nao_pendente_sem_autorizador() {
+        User originator = user("0.00");
+        User payer = user("100.00");
+        Long id = charges(originator, payer, 1, "10.00").get(0);
+        paymentService.pay(payer.getCpf(), balancePayment(id));
+
+        assertThatThrownBy(() -> paymentService.pay(payer.getCpf(), cardPayment(id)))
+                .isInstanceOf(BusinessException.class).hasMessage("Cobrança não está pendente");
+        verifyNoInteractions(authorizerClient);
+    }
+
+    @DisplayName("Deve estornar pagamento com saldo no cancelamento")
+    @Test
+    void cancela_pagamento_saldo() {
+        User originator = user("0.00");
+        User payer = user("25.00");
+        Long id = charges(originator, payer, 1, "25.00").get(0);
+        paymentService.pay(payer.getCpf(), balancePayment(id));
+
+        chargeService.cancel(id, originator.getCpf());
+
+        assertThat(balance(payer)).isEqualByComparingTo("25.00");
+        assertThat(balance(originator)).isEqualByComparingTo("0.00");
+        assertThatThrownBy(() -> chargeService.cancel(id, originator.getCpf()))
+                .isInstanceOf(BusinessException.class).hasMessage("Cobrança já está cancelada");
+    }
+}
@@ -0,0 +1,192 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.dto.request.DepositRequest;
+import com.nimble.gateway.dto.request.PaymentRequest;
+import com.nimble.gateway.entity.Charge;
+import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.enums.IdempotencyStatus;
+import com.nimble.gateway.enums.PaymentMethod;
+import com.nimble.gateway.exception.BusinessException;
+import com.nimble.gateway.exception.IdempotencyConflictException;
+import com.nimble.gateway.repository.ChargeRepository;
+import com.nimble.gateway.repository.IdempotencyKeyRepository;
+import com.nimble.gateway.repository.UserRepository;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+class IdempotencyTest {
+
+    private static final AtomicLong CPF_SEQ = new AtomicLong(20_000_000_000L);
+
+    @Autowired IdempotencyService idempotencyService;
+    @Autowired PaymentService paymentService;
+    @Autowired UserRepository userRepository;
+    @Autowired ChargeRepository chargeRepository;
+    @Autowired IdempotencyKeyRepository idempotencyKeyRepository;
+    @MockBean AuthorizerClient authorizerClient;
+
+    private User user(String balance) {
+        String cpf = String.valueOf(CPF_SEQ.incrementAndGet());
+        return userRepository.save(User.builder().name("u" + cpf).cpf(cpf).email(cpf + "@test.com")
+                .passwordHash("x").balance(new BigDecimal(balance)).build());
+    }
+
+    private DepositRequest deposit(String amount) {
+        DepositRequest req = new DepositRequest();
+        req.setAmount(new BigDecimal(amount));
+        return req;
+    }
+
+    // mesmo caminho do PaymentController
+    private BigDecimal deposit(User user, String key, DepositRequest req) {
+        return idempotencyService.execute(user.getCpf(), key, "deposit", req, BigDecimal.class,
+                () -> paymentService.deposit(user.getCpf(), req));
+    }
+
+    private void pay(User payer, String key, PaymentRequest req) {
+        idempotencyService.execute(payer.getCpf(), key, "pay", req, Void.class, () -> {
+            paymentService.pay(payer.getCpf(), req);
+            return null;
+        });
+    }
+
+    private BigDecimal balance(User u) {
+        return userRepository.findBalanceById(u.getId()).orElseThrow();
+    }
+
+    @DisplayName("Deve devolver a resposta original na repetição sem depositar nem consultar o autorizador")
+    @Test
+    void deposito_repetido() {
+        when(authorizerClient.isApproved()).thenReturn(true);
+        User user = user("10.00");
+        String key = UUID.randomUUID().toString();
+
+        BigDecimal first = deposit(user, key, deposit("50.00"));
+        BigDecimal replay = deposit(user, key, deposit("50.00"));
+
+        assertThat(first).isEqualByComparingTo("60.00");
+        assertThat(replay).isEqualByComparingTo("60.00");
+        assertThat(balance(user)).isEqualByComparingTo("60.00");
+        verify(authorizerClient, times(1)).isApproved();
+        assertThat(idempotencyKeyRepository.findByOwnerCpfAndIdempotencyKey(user.getCpf(), key))
+                .hasValueSatisfying(k -> assertThat(k.getStatus()).isEqualTo(IdempotencyStatus.COMPLETED));
+    }
+
+    @DisplayName("Duplicatas simultâneas devem esperar a primeira execução e depositar uma única vez")
+    @Test
+    void deposito_concorrente() throws Exception {
+        var release = new CountDownLatch(1);
+        when(authorizerClient.isApproved()).thenAnswer(inv -> release.await(10, TimeUnit.SECONDS));
+        User user = user("0.00");
+        String key = UUID.randomUUID().toString();
+
+        var pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<BigDecimal>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) results.add(pool.submit(() -> deposit(user, key, deposit("25.00"))));
+            Thread.sleep(200); // todas já chegaram: uma no autorizador, as demais esperando
+            release.countDown();
+            for (Future<BigDecimal> r : results) assertThat(r.get(30, TimeUnit.SECONDS)).isEqualByComparingTo("25.00");
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(balance(user)).isEqualByComparingTo("25.00");
+        verify(authorizerClient, times(1)).isApproved();
+    }
+
+    @DisplayName("Deve recusar a mesma chave com outro corpo e aceitar a mesma chave de outro usuário")
+    @Test
+    void chave_com_outra_requisicao() {
+        when(authorizerClient.isApproved()).thenReturn(true);
+        User user = user("0.00");
+        User other = user("0.00");
+        String key = UUID.randomUUID().toString();
+
+        deposit(user, key, deposit("10.00"));
+
+        assertThatThrownBy(() -> deposit(user, key, deposit("99.00")))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Idempotency-Key já utilizada com outra requisição");
+        assertThat(deposit(other, key, deposit("99.00"))).isEqualByComparingTo("99.00");
+        assertThat(balance(user)).isEqualByComparingTo("10.00");
+    }
+
+    @DisplayName("Pagamento repetido não deve chamar o autorizador nem falhar por cobrança não pendente")
+    @Test
+    void pagamento_repetido() {
+        when(authorizerClient.isApproved()).thenReturn(true);
+        User originator = user("0.00");
+        User payer = user("0.00");
+        Long chargeId = chargeRepository.save(Charge.builder().originator(originator).recipient(payer)
+                .amount(new BigDecimal("30.00")).status(ChargeStatus.PENDING).build()).getId();
+        PaymentRequest req = new PaymentRequest();
+        req.setChargeId(chargeId);
+        req.setMethod(PaymentMethod.CARD);
+        req.setCardNumber("4111111111111111");
+        req.setCardExpiration("12/29");
+        req.setCardCvv("123");
+        String key = UUID.randomUUID().toString();
+
+        pay(payer, key, req);
+        assertThatCode(() -> pay(payer, key, req)).doesNotThrowAnyException();
+
+        verify(authorizerClient, times(1)).isApproved();
+        assertThat(balance(originator)).isEqualByComparingTo("30.00");
+    }
+
+    @DisplayName("Falha na execução deve liberar a chave para uma nova tentativa")
+    @Test
+    void falha_libera_chave() {
+        when(authorizerClient.isApproved()).thenReturn(false, true);
+        User user = user("0.00");
+        String key = UUID.randomUUID().toString();
+
+        assertThatThrownBy(() -> deposit(user, key, deposit("40.00")))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Depósito não autorizado pelo autorizador externo");
+        assertThat(idempotencyKeyRepository.findByOwnerCpfAndIdempotencyKey(user.getCpf(), key)).isEmpty();
+
+        assertThat(deposit(user, key, deposit("40.00"))).isEqualByComparingTo("40.00");
+    }
+
+    @DisplayName("Execução cuja reserva foi retomada por outra deve ser desfeita e responder conflito")
+    @Test
+    void reserva_retomada_desfaz_execucao() {
+        when(authorizerClient.isApproved()).thenReturn(true);
+        User user = user("10.00");
+        String key = UUID.randomUUID().toString();
+        DepositRequest req = deposit("50.00");
+
+        assertThatThrownBy(() -> idempotencyService.execute(user.getCpf(), key, "deposit", req, BigDecimal.class, () -> {
+            BigDecimal result = paymentService.deposit(user.getCpf(), req);
+            // outra instância considera a reserva abandonada e a retoma enquanto esta ainda roda
+            OffsetDateTime later = OffsetDateTime.now().plusMinutes(1);
+            CompletableFuture.runAsync(() -> idempotencyKeyRepository.takeOver(user.getCpf(), key,
+                    IdempotencyStatus.IN_PROGRESS, later, later)).join();
+            return result;
+        })).isInstanceOf(IdempotencyConflictException.class);
+
+        assertThat(balance(user)).isEqualByComparingTo("10.00");
+        assertThat(idempotencyKeyRepository.findByOwnerCpfAndIdempotencyKey(user.getCpf(), key))
+                .hasValueSatisfying(k -> assertThat(k.getStatus()).isEqualTo(IdempotencyStatus.IN_PROGRESS));
+    }
+}
@@ -0,0 +1,191 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.dto.request.DepositRequest;
+import com.nimble.gateway.entity.LedgerEntry;
+import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.LedgerEntryType;
+import com.nimble.gateway.repository.LedgerEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Razão contra o PostgreSQL embarcado, reaproveitando as contas e cobranças de {@link BaseDatabaseTest}.
+ */
+class LedgerTest extends BaseDatabaseTest {
+
+    @Autowired LedgerService ledgerService;
+    @Autowired ChargeService chargeService;
+    @Autowired LedgerEntryRepository ledgerEntryRepository;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired BalanceService balanceService;
+    @Autowired PlatformTransactionManager transactionManager;
+    @MockBean AuthorizerClient authorizerClient;
+
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    private User reload(User u) {
+        return userRepository.findById(u.getId()).orElseThrow();
+    }
+
+    @DisplayName("Depósito, pagamento e estorno devem virar lançamentos que somam zero, sem reescrever o saldo")
+    @Test
+    void lancamentos_partidas_dobradas() {
+        when(authorizerClient.isApproved()).thenReturn(true);
+        User originator = user("0.00");
+        User payer = user("0.00");
+        DepositRequest deposit = new DepositRequest();
+        deposit.setAmount(new BigDecimal("80.00"));
+        paymentService.deposit(payer.getCpf(), deposit);
+        Long chargeId = charges(originator, payer, 1, "30.00").get(0);
+
+        paymentService.pay(payer.getCpf(), balancePayment(chargeId));
+        chargeService.cancel(chargeId, originator.getCpf());
+
+        List<LedgerEntry> entries = ledgerEntryRepository.findByChargeIdOrderById(chargeId);
+        assertThat(entries).extracting(LedgerEntry::getType)
+                .containsExactly(LedgerEntryType.PAYMENT, LedgerEntryType.PAYMENT, LedgerEntryType.REFUND, LedgerEntryType.REFUND);
+        assertThat(entries).extracting(LedgerEntry::getAmount).map(BigDecimal::abs)
+                .allSatisfy(a -> assertThat(a).isEqualByComparingTo("30.00"));
+        assertThat(entries.stream().map(LedgerEntry::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add))
+                .isEqualByComparingTo("0");
+
+        assertThat(balance(payer)).isEqualByComparingTo("80.00");
+        assertThat(balance(originator)).isEqualByComparingTo("0.00");
+        // snapshot ainda não consolidou: a coluna segue com o saldo inicial
+        assertThat(reload(payer).getBalance()).isEqualByComparingTo("0.00");
+        assertThat(ledgerEntryRepository.findUnbalancedJournals()).isEmpty();
+    }
+
+    @DisplayName("Snapshot deve abrir o saldo anterior ao razão e consolidar os lançamentos sem mudar o saldo atual")
+    @Test
+    void snapshot_consolida() {
+        User originator = user("0.00");
+        User payer = user("100.00"); // saldo anterior ao razão
+        for (Long id : charges(originator, payer, 3, "10.00"))
+            paymentService.pay(payer.getCpf(), balancePayment(id));
+
+        ledgerService.snapshot(payer.getId());
+        ledgerService.snapshot(originator.getId());
+
+        User snapshotted = reload(payer);
+        assertThat(snapshotted.getBalance()).isEqualByComparingTo("70.00");
+        assertThat(snapshotted.getSnapshotEntryId()).isPositive();
+        assertThat(balance(payer)).isEqualByComparingTo("70.00");
+        assertThat(reload(originator).getBalance()).isEqualByComparingTo("30.00");
+        assertThat(jdbc.queryForObject("select count(*) from ledger_entries where user_id = ? and type = 'OPENING'",
+                Integer.class, payer.getId())).isEqualTo(1);
+
+        // nova consolidação sem lançamentos novos não muda nada
+        ledgerService.snapshot(payer.getId());
+        assertThat(reload(payer).getSnapshotEntryId()).isEqualTo(snapshotted.getSnapshotEntryId());
+    }
+
+    @DisplayName("Snapshots simultâneos a transferências não devem perder nem duplicar lançamentos")
+    @Test
+    void snapshot_concorrente() throws Exception {
+        User a = user("500.00");
+        User b = user("500.00");
+        List<Long> aToB = charges(b, a, 100, "1.00");
+        List<Long> bToA = charges(a, b, 100, "1.00");
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Long ab = aToB.get(i), ba = bToA.get(i);
+            tasks.add(() -> paymentService.pay(a.getCpf(), balancePayment(ab)));
+            tasks.add(() -> paymentService.pay(b.getCpf(), balancePayment(ba)));
+        }
+        var done = new AtomicBoolean();
+        Thread snapshotter = new Thread(() -> {
+            while (!done.get()) ledgerService.snapshot();
+        });
+        snapshotter.start();
+        try {
+            assertThat(runConcurrently(tasks)).isZero();
+        } finally {
+            done.set(true);
+            snapshotter.join();
+        }
+        ledgerService.snapshot();
+
+        assertThat(balance(a)).isEqualByComparingTo("500.00");
+        assertThat(balance(b)).isEqualByComparingTo("500.00");
+        assertThat(reload(a).getBalance()).isEqualByComparingTo("500.00");
+        assertThat(reload(b).getBalance()).isEqualByComparingTo("500.00");
+    }
+
+    @DisplayName("Job de snapshot deve consolidar lançamento que confirma depois de um de id maior já consolidado")
+    @Test
+    void snapshot_lancamento_tardio() throws Exception {
+        User late = user("0.00");
+        User early = user("0.00");
+        var posted = new CountDownLatch(1);
+        var commit = new CountDownLatch(1);
+        Thread slow = new Thread(() -> tx.executeWithoutResult(status -> {
+            balanceService.credit(late.getId(), new BigDecimal("10.00"), LedgerEntryType.DEPOSIT, null);
+            posted.countDown();
+            try {
+                commit.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        slow.start();
+        try {
+            posted.await();
+            balanceService.credit(early.getId(), new BigDecimal("5.00"), LedgerEntryType.DEPOSIT, null);
+            ledgerService.snapshot();
+            assertThat(reload(early).getBalance()).isEqualByComparingTo("5.00");
+        } finally {
+            commit.countDown();
+            slow.join();
+        }
+
+        ledgerService.snapshot();
+        assertThat(reload(late).getBalance()).isEqualByComparingTo("10.00");
+        assertThat(reload(late).getSnapshotEntryId()).isLessThan(reload(early).getSnapshotEntryId());
+    }
+
+    @DisplayName("Replay deve apontar snapshot adulterado e o rebuild deve reconstruí-lo a partir do razão")
+    @Test
+    void replay_reconstroi() {
+        User originator = user("0.00");
+        User payer = user("50.00");
+        paymentService.pay(payer.getCpf(), balancePayment(charges(originator, payer, 1, "20.00").get(0)));
+        ledgerService.snapshot(originator.getId());
+        jdbc.update("update users set balance = 999 where id = ?", originator.getId());
+
+        assertThat(ledgerService.replay(false).drifts())
+                .singleElement()
+                .satisfies(d -> {
+                    assertThat(d.userId()).isEqualTo(originator.getId());
+                    assertThat(d.balance()).isEqualByComparingTo("999.00");
+                    assertThat(d.replayed()).isEqualByComparingTo("20.00");
+                });
+
+        ledgerService.replay(true);
+
+        assertThat(ledgerService.replay(false).consistent()).isTrue();
+        assertThat(balance(originator)).isEqualByComparingTo("20.00");
+        assertThat(balance(payer)).isEqualByComparingTo("30.00");
+    }
+}
@@ -0,0 +1,69 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.ChargeStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PaymentConcurrencyTest extends BaseDatabaseTest {
+
+    @DisplayName("Não deve perder atualizações nem deixar saldo negativo com pagamentos paralelos na mesma conta")
+    @Test
+    void pagamentos_paralelos_mesma_conta() throws Exception {
+        User originator = user("0.00");
+        User payer = user("500.00");
+        List<Long> ids = charges(originator, payer, 100, "10.00");
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (Long id : ids) tasks.add(() -> paymentService.pay(payer.getCpf(), balancePayment(id)));
+
+        int rejected = runConcurrently(tasks);
+
+        assertThat(rejected).isEqualTo(50);
+        assertThat(balance(payer)).isEqualByComparingTo("0.00");
+        assertThat(balance(originator)).isEqualByComparingTo("500.00");
+        assertThat(chargeRepository.findReceivedPage(payer, ChargeStatus.PAID, Long.MAX_VALUE, null, null, Limit.of(100)))
+                .hasSize(50);
+    }
+
+    @DisplayName("Deve concluir transferências cruzadas simultâneas sem deadlock e conservando o total")
+    @Test
+    void transferencias_cruzadas() throws Exception {
+        User a = user("1000.00");
+        User b = user("1000.00");
+        List<Long> aToB = charges(b, a, 100, "5.00");
+        List<Long> bToA = charges(a, b, 100, "5.00");
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Long ab = aToB.get(i), ba = bToA.get(i);
+            tasks.add(() -> paymentService.pay(a.getCpf(), balancePayment(ab)));
+            tasks.add(() -> paymentService.pay(b.getCpf(), balancePayment(ba)));
+        }
+
+        assertThat(runConcurrently(tasks)).isZero();
+        assertThat(balance(a)).isEqualByComparingTo("1000.00");
+        assertThat(balance(b)).isEqualByComparingTo("1000.00");
+    }
+
+    @DisplayName("Deve pagar a mesma cobrança uma única vez sob requisições duplicadas")
+    @Test
+    void pagamento_duplicado() throws Exception {
+        User originator = user("0.00");
+        User payer = user("100.00");
+        Long id = charges(originator, payer, 1, "30.00").get(0);
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) tasks.add(() -> paymentService.pay(payer.getCpf(), balancePayment(id)));
+
+        assertThat(runConcurrently(tasks)).isEqualTo(19);
+        assertThat(balance(payer)).isEqualByComparingTo("70.00");
+        assertThat(balance(originator)).isEqualByComparingTo("30.00");
+    }
+}
@@ -0,0 +1,166 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.dto.request.ChargePageRequest;
+import com.nimble.gateway.dto.request.ChargeRequest;
+import com.nimble.gateway.dto.response.ChargeResponse;
+import com.nimble.gateway.entity.User;
+import com.nimble.gateway.enums.ChargeStatus;
+import com.nimble.gateway.repository.UserRepository;
+import com.nimble.gateway.service.impl.FastPathChargeService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Roteamento leitura/escrita com dois PostgreSQL locais: o primário recebe as migrações pelo Flyway da aplicação e
+ * a "réplica" recebe o mesmo esquema, sem replicação. Só as contas são copiadas para lá; as cobranças criadas
+ * pela aplicação existem apenas no primário, o que mostra de qual banco cada listagem leu. O cancelamento vai pelo
+ * caminho rápido, em auto-commit e fora de transação.
+ */
+@SpringBootTest(properties = "payments.fastPath=true")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReadReplicaRoutingTest {
+
+    private static final AtomicLong CPF_SEQ = new AtomicLong(30_000_000_000L);
+    private static final EmbeddedPostgres PRIMARY = start();
+    private static final EmbeddedPostgres REPLICA = start();
+
+    @Autowired ChargeService chargeService;
+    @Autowired UserRepository userRepository;
+
+    JdbcTemplate replicaJdbc = new JdbcTemplate(REPLICA.getPostgresDatabase());
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void datasources(DynamicPropertyRegistry registry) {
+        Flyway.configure().dataSource(REPLICA.getPostgresDatabase())
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false")).load().migrate();
+        registry.add("spring.datasource.url", () -> PRIMARY.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("readReplica.enabled", () -> "true");
+        registry.add("readReplica.url", () -> REPLICA.getJdbcUrl("postgres", "postgres"));
+        registry.add("readReplica.stickyPrimaryMs", () -> "60000");
+        registry.add("readReplica.retryAfterMs", () -> "60000");
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        PRIMARY.close();
+        REPLICA.close();
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    // conta gravada no primário e copiada, com o mesmo id, para a réplica
+    private User user() {
+        String cpf = String.valueOf(CPF_SEQ.incrementAndGet());
+        User user = userRepository.save(User.builder().name("u" + cpf).cpf(cpf).email(cpf + "@test.com")
+                .passwordHash("x").balance(BigDecimal.ZERO).build());
+        replicaJdbc.update("insert into users (id, name, cpf, email, password_hash, balance) values (?, ?, ?, ?, 'x', 0)",
+                user.getId(), user.getName(), user.getCpfNumber(), user.getEmail());
+        return user;
+    }
+
+    private Long charge(User originator, User recipient) {
+        ChargeRequest req = new ChargeRequest();
+        req.setRecipientCpf(recipient.getCpf());
+        req.setAmount(new BigDecimal("10.00"));
+        return chargeService.create(originator.getCpf(), req).getId();
+    }
+
+    private static void authenticate(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(user.getCpf(), null, Collections.emptyList()));
+    }
+
+    private List<Long> sent(User user) {
+        return chargeService.listSent(user.getCpf(), ChargeStatus.PENDING, new ChargePageRequest()).getItems().stream()
+                .map(ChargeResponse::getId).toList();
+    }
+
+    @DisplayName("Listagem read-only deve ler da réplica e a criação deve gravar no primário")
+    @Test
+    @Order(1)
+    void listagem_na_replica() {
+        User originator = user();
+        User recipient = user();
+        Long created = charge(originator, recipient);
+        replicaJdbc.update("insert into charges (id, originator_id, recipient_id, amount, status, created_at) "
+                + "values (?, ?, ?, 5, 'PENDING', now())", created + 1_000_000, originator.getId(), recipient.getId());
+
+        assertThat(sent(originator)).containsExactly(created + 1_000_000);
+    }
+
+    @DisplayName("Depois de escrever, as leituras do mesmo usuário devem ficar no primário; as dos outros, na réplica")
+    @Test
+    @Order(2)
+    void le_o_que_escreveu() {
+        User originator = user();
+        User recipient = user();
+        authenticate(originator);
+        Long created = charge(originator, recipient);
+
+        assertThat(sent(originator)).containsExactly(created);
+
+        authenticate(recipient);
+        assertThat(chargeService.listReceived(recipient.getCpf(), ChargeStatus.PENDING, new ChargePageRequest()).getItems()).isEmpty();
+    }
+
+    @DisplayName("Escrita pelo caminho rápido, sem transação, também deve manter as leituras do usuário no primário")
+    @Test
+    @Order(3)
+    void le_o_que_escreveu_caminho_rapido() {
+        User originator = user();
+        User recipient = user();
+        Long created = charge(originator, recipient);
+        authenticate(originator);
+
+        assertThat(chargeService).isInstanceOf(FastPathChargeService.class);
+        chargeService.cancel(created, originator.getCpf());
+
+        assertThat(chargeService.listSent(originator.getCpf(), ChargeStatus.CANCELLED, new ChargePageRequest()).getItems())
+                .extracting(ChargeResponse::getId).containsExactly(created);
+    }
+
+    @DisplayName("Com a réplica fora do ar as leituras devem cair no primário")
+    @Test
+    @Order(4)
+    void replica_indisponivel() throws Exception {
+        User originator = user();
+        User recipient = user();
+        Long created = charge(originator, recipient);
+
+        REPLICA.close();
+        Thread.sleep(600); // passa da janela em que o Hikari entrega conexão sem validar
+
+        assertThat(sent(originator)).containsExactly(created);
+    }
+}
@@ -0,0 +1,74 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.entity.User;
+import com.nimble.gateway.security.JwtTokenUtil;
+import com.nimble.gateway.util.RequestTimings;
+import com.nimble.gateway.util.RequestTimings.Phase;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Medição por fase ligada, de ponta a ponta: filtro, JWT, Hibernate e JSON contra o PostgreSQL embarcado.
+ */
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {"requestTiming.enabled=true", "requestTiming.serverTimingHeader=true"})
+class RequestTimingTest extends BaseDatabaseTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired JwtTokenUtil jwtTokenUtil;
+    @Autowired JdbcTemplate jdbc;
+    @MockBean AuthorizerClient authorizerClient;
+
+    @DisplayName("Pagamento deve devolver Server-Timing com JWT, banco (com a contagem de SQL) e JSON")
+    @Test
+    void pagamento_com_server_timing() throws Exception {
+        User originator = user("0.00");
+        User payer = user("10.00");
+        Long chargeId = charges(originator, payer, 1, "10.00").get(0);
+
+        var res = mvc.perform(post("/api/v1/payments/pay")
+                        .header("Authorization", "Bearer " + jwtTokenUtil.generateToken(payer.getCpf()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"chargeId\":" + chargeId + ",\"method\":\"BALANCE\"}"))
+                .andReturn().getResponse();
+
+        assertThat(res.getStatus()).isEqualTo(200);
+        assertThat(res.getHeader("Server-Timing"))
+                .containsPattern("auth;dur=\\d+\\.\\d")
+                .containsPattern("db;dur=\\d+\\.\\d;desc=\"([3-9]|\\d{2,}) sql\"")
+                .containsPattern("json;dur=\\d+\\.\\d")
+                .containsPattern("total;dur=\\d+\\.\\d$");
+        assertThat(balance(payer)).isEqualByComparingTo("0.00");
+    }
+
+    @DisplayName("Callback por linha (escrita da exportação) não deve contar como tempo de banco")
+    @Test
+    void callback_fora_do_banco() {
+        RequestTimings timings = RequestTimings.start();
+        jdbc.query("select generate_series(1, 3)", rs -> {
+            try {
+                Thread.sleep(100); // cliente lento do outro lado do streaming
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        timings.finish();
+
+        assertThat(timings.sqlStatements()).isEqualTo(1);
+        assertThat(timings.elapsedNanos(Phase.DB)).isPositive()
+                .isLessThan(TimeUnit.MILLISECONDS.toNanos(150));
+        assertThat(timings.totalNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(300));
+    }
+}
@@ -0,0 +1,121 @@
+package com.nimble.gateway.service;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Esquema vindo só das migrações (o Hibernate apenas valida as entidades contra ele) e planos das consultas
+ * de listagem sobre uma massa com muitas cobranças de outros usuários.
+ */
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SchemaMigrationTest {
+
+    @Autowired JdbcTemplate jdbc;
+    @MockBean AuthorizerClient authorizerClient;
+
+    private long userId;
+
+    @BeforeAll
+    void seed() {
+        jdbc.update("""
+                insert into users (name, cpf, email, password_hash, balance)
+                select 'seed' || g, 50000000000 + g, 'seed' || g || '@test.com', 'x', 0
+                  from generate_series(1, 500) g
+                """);
+        userId = jdbc.queryForObject("select id from users where cpf = 50000000001", Long.class);
+        // 50 mil cobranças espalhadas entre 500 usuários e três status
+        jdbc.update("""
+                insert into charges (id, originator_id, recipient_id, amount, status, created_at)
+                select nextval('charges_seq'), o.id, r.id, 1.00,
+                       (array['PENDING', 'PAID', 'CANCELLED'])[1 + g % 3], now()
+                  from generate_series(1, 50000) g
+                  join users o on o.cpf = 50000000001 + g % 500
+                  join users r on r.cpf = 50000000001 + (g * 7) % 500
+                """);
+        jdbc.execute("analyze users");
+        jdbc.execute("analyze charges");
+    }
+
+    private String plan(String sql, Object... args) {
+        List<String> lines = jdbc.queryForList("explain " + sql, String.class, args);
+        return String.join("\n", lines);
+    }
+
+    // mesmas colunas e filtros da projeção de ChargeRepository.findSentPage / findReceivedPage
+    private String listing(String userColumn) {
+        return """
+                select c.id, o.cpf, r.cpf, c.amount, c.description, c.status, c.created_at, c.paid_at
+                  from charges c join users o on o.id = c.originator_id join users r on r.id = c.recipient_id
+                 where c.%s = ? and c.status = ? and c.id < ?
+                 order by c.id desc
+                 fetch first 51 rows only
+                """.formatted(userColumn);
+    }
+
+    @DisplayName("Listagem de enviadas deve usar o índice (originador, status, id), sem varrer charges")
+    @Test
+    void enviadas_usam_indice() {
+        String plan = plan(listing("originator_id"), userId, "PAID", Long.MAX_VALUE);
+
+        assertThat(plan).contains("idx_charges_originator_status_id").doesNotContain("Seq Scan on charges");
+    }
+
+    @DisplayName("Listagem de recebidas deve usar o índice (destinatário, status, id), sem varrer charges")
+    @Test
+    void recebidas_usam_indice() {
+        String plan = plan(listing("recipient_id"), userId, "PENDING", Long.MAX_VALUE);
+
+        assertThat(plan).contains("idx_charges_recipient_status_id").doesNotContain("Seq Scan on charges");
+    }
+
+    @DisplayName("Índices das listagens criados com concurrently pela V7 devem estar válidos")
+    @Test
+    void indices_concorrentes_validos() {
+        assertThat(jdbc.queryForList("""
+                select c.relname from pg_index i join pg_class c on c.oid = i.indexrelid
+                 where c.relname in ('idx_charges_originator_status_id', 'idx_charges_recipient_status_id')
+                   and i.indisvalid
+                """, String.class)).containsExactlyInAnyOrder("idx_charges_originator_status_id",
+                "idx_charges_recipient_status_id");
+    }
+
+    @DisplayName("Busca por CPF e e-mail deve usar os índices únicos das migrações")
+    @Test
+    void cpf_e_email_unicos() {
+        assertThat(plan("select * from users where cpf = ?", 50000000001L)).contains("uk_users_cpf");
+        assertThat(plan("select * from users where email = ?", "seed1@test.com")).contains("uk_users_email");
+        assertThatThrownBy(() -> jdbc.update("""
+                insert into users (name, cpf, email, password_hash, balance)
+                values ('dup', 50000000001, 'other@test.com', 'x', 0)
+                """)).hasMessageContaining("uk_users_cpf");
+    }
+
+    @DisplayName("Migrações devem estar todas aplicadas, incluindo as funções de liquidação")
+    @Test
+    void migracoes_aplicadas() {
+        assertThat(jdbc.queryForList("select version from flyway_schema_history where success order by installed_rank",
+                String.class)).containsSubsequence("1", "2", "3", "4", "5", "6", "7");
+        // V4 removeu a assinatura com CPF varchar; só resta a de bigint
+        assertThat(jdbc.queryForObject("select count(*) from pg_proc where proname = 'nimble_pay_charge'", Integer.class))
+                .isEqualTo(1);
+        assertThat(jdbc.queryForObject("""
+                select data_type from information_schema.columns where table_name = 'users' and column_name = 'cpf'
+                """, String.class)).isEqualTo("bigint");
+        assertThat(jdbc.queryForObject("""
+                select count(*) from information_schema.columns where table_name = 'charges' and column_name = 'paid_by_cpf'
+                """, Integer.class)).isZero();
+    }
+}
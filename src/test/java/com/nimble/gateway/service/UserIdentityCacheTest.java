@@ -0,0 +1,93 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.entity.User;
+import com.nimble.gateway.service.UserIdentityService.UserIdentity;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Cache de identidade contra o PostgreSQL embarcado, com as contas de {@link BaseDatabaseTest}. As
+ * alterações são feitas por JDBC direto, como faria outra instância do gateway.
+ */
+class UserIdentityCacheTest extends BaseDatabaseTest {
+
+    @Autowired UserIdentityService identities;
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired JdbcTemplate jdbc;
+    @MockBean AuthorizerClient authorizerClient;
+
+    private Optional<UserIdentity> awaitChange(String cpf, Optional<UserIdentity> old) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        Optional<UserIdentity> current = identities.findByCpf(cpf);
+        while (current.equals(old) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            current = identities.findByCpf(cpf);
+        }
+        return current;
+    }
+
+    @DisplayName("Consultas repetidas por CPF ou e-mail não devem ir ao banco")
+    @Test
+    void consulta_repetida_sem_sql() {
+        User u = user("10.00");
+        UserIdentity first = identities.findByCpf(u.getCpf()).orElseThrow();
+
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.setStatisticsEnabled(true);
+        stats.clear();
+        try {
+            for (int i = 0; i < 10; i++) {
+                assertThat(identities.findByCpf(u.getCpf())).contains(first);
+                assertThat(identities.findByEmail(u.getEmail())).contains(first);
+            }
+            assertThat(stats.getPrepareStatementCount()).isZero();
+        } finally {
+            stats.setStatisticsEnabled(false);
+        }
+        assertThat(first).isEqualTo(new UserIdentity(u.getId(), u.getCpf(), u.getEmail(), u.getName()));
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "userIdentity.byCpf").tag("result", "hit")
+                .functionCounter().count()).isPositive();
+    }
+
+    @DisplayName("Alteração ou exclusão da conta no banco deve invalidar o cache via NOTIFY")
+    @Test
+    void notify_invalida() throws Exception {
+        User u = user("0.00");
+        Optional<UserIdentity> cached = identities.findByCpf(u.getCpf());
+        identities.findByEmail(u.getEmail());
+
+        jdbc.update("update users set name = 'Outro Nome', email = ? where id = ?", "novo" + u.getEmail(), u.getId());
+
+        Optional<UserIdentity> renamed = awaitChange(u.getCpf(), cached);
+        assertThat(renamed).map(UserIdentity::name).contains("Outro Nome");
+        assertThat(identities.findByEmail(u.getEmail())).isEmpty();
+        assertThat(identities.findByEmail("novo" + u.getEmail())).isEqualTo(renamed);
+
+        jdbc.update("delete from users where id = ?", u.getId());
+        assertThat(awaitChange(u.getCpf(), renamed)).isEmpty();
+    }
+
+    @DisplayName("Mudança de saldo não deve tocar no cache de identidade")
+    @Test
+    void saldo_fora_do_cache() throws Exception {
+        User u = user("0.00");
+        UserIdentity cached = identities.findByCpf(u.getCpf()).orElseThrow();
+
+        jdbc.update("update users set balance = 50 where id = ?", u.getId());
+        Thread.sleep(200);
+
+        assertThat(identities.findByCpf(u.getCpf())).containsSame(cached);
+    }
+}
@@ -0,0 +1,50 @@
+package com.nimble.gateway.service;
+
+import com.nimble.gateway.repository.UserRepository;
+import com.nimble.gateway.service.impl.UserIdentityServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserIdentityServiceTest extends BaseServiceTest {
+
+    private static final long CPF = 44014614018L;
+
+    @Mock UserRepository userRepository;
+    @Mock UserRepository.Identity row;
+
+    UserIdentityServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new UserIdentityServiceImpl(userRepository, new SimpleMeterRegistry(), 600_000, 100);
+        when(row.getId()).thenReturn(1L);
+        when(row.getCpf()).thenReturn(CPF);
+        when(row.getEmail()).thenReturn("maria@example.com");
+        when(row.getName()).thenReturn("Maria");
+    }
+
+    @DisplayName("Evicção durante a consulta ao banco não deve ser desfeita pela gravação do valor lido antes dela")
+    @Test
+    void evict_durante_consulta() {
+        // o NOTIFY chega enquanto a consulta (que já leu a linha antiga) ainda não voltou
+        when(userRepository.findIdentityByCpf(CPF)).thenAnswer(a -> {
+            service.evict(CPF);
+            return Optional.of(row);
+        }).thenReturn(Optional.of(row));
+
+        assertThat(service.findByCpf("44014614018")).isPresent();
+        assertThat(service.findByCpf("44014614018")).isPresent();
+        assertThat(service.findByCpf("44014614018")).isPresent();
+
+        // a primeira leitura não entrou no cache; a segunda entrou e a terceira já veio dele
+        verify(userRepository, times(2)).findIdentityByCpf(CPF);
+    }
+}
@@ -5,14 +5,18 @@ import com.nimble.gateway.entity.User;
 import com.nimble.gateway.exception.BusinessException;
 import com.nimble.gateway.repository.UserRepository;
 import com.nimble.gateway.security.JwtTokenUtil;
+import com.nimble.gateway.security.PasswordHasher;
 import com.nimble.gateway.service.impl.UserServiceImpl;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -20,7 +24,7 @@ import static org.mockito.Mockito.*;
 class UserServiceTest extends BaseServiceTest {
 
     @Mock UserRepository userRepository;
-    @Mock PasswordEncoder passwordEncoder;
+    @Mock PasswordHasher passwordHasher;
     @Mock JwtTokenUtil jwtTokenUtil;
 
     @InjectMocks UserServiceImpl service;
@@ -34,9 +38,9 @@ class UserServiceTest extends BaseServiceTest {
         req.setEmail("maria@example.com");
         req.setPassword("Secr3t@123");
 
-        when(userRepository.findByCpf("44014614018")).thenReturn(Optional.empty());
+        when(userRepository.findByCpf(44014614018L)).thenReturn(Optional.empty());
         when(userRepository.findByEmail("maria@example.com")).thenReturn(Optional.empty());
-        when(passwordEncoder.encode("Secr3t@123")).thenReturn("hash");
+        when(passwordHasher.encode("Secr3t@123")).thenReturn("hash");
         when(userRepository.save(any(User.class))).thenAnswer(a -> a.getArgument(0));
 
         var resp = service.register(req);
@@ -45,10 +49,23 @@ class UserServiceTest extends BaseServiceTest {
         verify(userRepository).save(any(User.class));
     }
 
+    @DisplayName("Deve normalizar o CPF com máscara para o número antes de consultar e gravar")
+    @Test
+    void register_cpf_com_mascara() {
+        UserRequest req = new UserRequest();
+        req.setName("Maria"); req.setCpf("440.146.140-18"); req.setEmail("maria@example.com"); req.setPassword("x");
+        when(userRepository.findByCpf(44014614018L)).thenReturn(Optional.empty());
+        when(userRepository.findByEmail("maria@example.com")).thenReturn(Optional.empty());
+        when(userRepository.save(any(User.class))).thenAnswer(a -> a.getArgument(0));
+
+        assertThat(service.register(req).getCpf()).isEqualTo("44014614018");
+        verify(userRepository).save(argThat(u -> u.getCpfNumber() == 44014614018L));
+    }
+
     @DisplayName("Deve lançar exceção ao tentar registrar usuário já existente (CPF duplicado)")
     @Test
     void register_duplicado() {
-        when(userRepository.findByCpf("44014614018")).thenReturn(Optional.of(new User()));
+        when(userRepository.findByCpf(44014614018L)).thenReturn(Optional.of(new User()));
         UserRequest req = new UserRequest();
         req.setName("Maria"); req.setCpf("44014614018"); req.setEmail("maria@example.com"); req.setPassword("x");
         assertThatThrownBy(() -> service.register(req)).isInstanceOf(BusinessException.class);
@@ -59,9 +76,40 @@ class UserServiceTest extends BaseServiceTest {
     void login_por_email() {
         User u = User.builder().id(1L).cpf("44014614018").email("maria@example.com").passwordHash("hash").build();
         when(userRepository.findByEmail("maria@example.com")).thenReturn(Optional.of(u));
-        when(passwordEncoder.matches("Secr3t@123","hash")).thenReturn(true);
+        when(passwordHasher.matches("Secr3t@123","hash")).thenReturn(true);
         when(jwtTokenUtil.generateToken("44014614018")).thenReturn("jwt");
         String token = service.login("maria@example.com","Secr3t@123");
         assertThat(token).isEqualTo("jwt");
     }
-}
\ No newline at end of file
+
+    @DisplayName("Deve refazer o hash da senha no login quando o custo do BCrypt foi aumentado")
+    @Test
+    void login_rehash() {
+        User u = User.builder().id(1L).cpf("44014614018").email("maria@example.com").passwordHash("hash-antigo").build();
+        when(userRepository.findByCpf(44014614018L)).thenReturn(Optional.of(u));
+        when(passwordHasher.matches("Secr3t@123","hash-antigo")).thenReturn(true);
+        when(passwordHasher.upgradeEncoding("hash-antigo")).thenReturn(true);
+        when(passwordHasher.encodeAsync("Secr3t@123")).thenReturn(CompletableFuture.completedFuture("hash-novo"));
+        when(jwtTokenUtil.generateToken("44014614018")).thenReturn("jwt");
+
+        assertThat(service.login("44014614018","Secr3t@123")).isEqualTo("jwt");
+        verify(userRepository).updatePasswordHash(1L, "hash-novo");
+    }
+
+    @DisplayName("Falha ao gravar o novo hash não deve derrubar o login e deve ir para o log com o id do usuário")
+    @Test
+    @ExtendWith(OutputCaptureExtension.class)
+    void login_rehash_falha(CapturedOutput output) {
+        User u = User.builder().id(7L).cpf("44014614018").email("maria@example.com").passwordHash("hash-antigo").build();
+        when(userRepository.findByCpf(44014614018L)).thenReturn(Optional.of(u));
+        when(passwordHasher.matches("Secr3t@123","hash-antigo")).thenReturn(true);
+        when(passwordHasher.upgradeEncoding("hash-antigo")).thenReturn(true);
+        when(passwordHasher.encodeAsync("Secr3t@123")).thenReturn(CompletableFuture.completedFuture("hash-novo"));
+        when(userRepository.updatePasswordHash(7L, "hash-novo")).thenThrow(new IllegalStateException("banco fora do ar"));
+        when(jwtTokenUtil.generateToken("44014614018")).thenReturn("jwt");
+
+        assertThat(service.login("44014614018","Secr3t@123")).isEqualTo("jwt");
+        assertThat(output).contains("Falha ao refazer o hash da senha")
+                .contains(" 7: java.lang.IllegalStateException: banco fora do ar");
+    }
+}
@@ -0,0 +1,82 @@
+package com.nimble.gateway.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CpfValidatorTest {
+
+    // implementação anterior (regex), referência para a de uma passada
+    private static boolean regexIsValid(String cpf) {
+        if (cpf == null) return false;
+        cpf = cpf.replaceAll("\\D", "");
+        if (cpf.length() != 11) return false;
+        if (cpf.matches("(\\d)\\1{10}")) return false;
+        int sum = 0; for (int i = 0; i < 9; i++) sum += (cpf.charAt(i) - '0') * (10 - i);
+        int d1 = 11 - (sum % 11); d1 = (d1 > 9) ? 0 : d1;
+        sum = 0; for (int i = 0; i < 10; i++) sum += (cpf.charAt(i) - '0') * (11 - i);
+        int d2 = 11 - (sum % 11); d2 = (d2 > 9) ? 0 : d2;
+        return d1 == (cpf.charAt(9) - '0') && d2 == (cpf.charAt(10) - '0');
+    }
+
+    @DisplayName("Deve aceitar CPF válido com ou sem máscara e recusar verificador errado, repetidos e tamanho errado")
+    @Test
+    void casos_conhecidos() {
+        assertThat(CpfValidator.isValid("39053344705")).isTrue();
+        assertThat(CpfValidator.isValid("390.533.447-05")).isTrue();
+        assertThat(CpfValidator.isValid(new StringBuilder("44014614018"))).isTrue();
+        assertThat(CpfValidator.isValid("01234567890")).isTrue();
+        assertThat(CpfValidator.isValid(1234567890L)).isTrue(); // 012.345.678-90
+        assertThat(CpfValidator.isValid(39053344705L)).isTrue();
+
+        assertThat(CpfValidator.isValid("39053344704")).isFalse();
+        assertThat(CpfValidator.isValid("39053344715")).isFalse();
+        assertThat(CpfValidator.isValid("11111111111")).isFalse();
+        assertThat(CpfValidator.isValid(0L)).isFalse();
+        assertThat(CpfValidator.isValid("3905334470")).isFalse();
+        assertThat(CpfValidator.isValid("390533447050")).isFalse();
+        assertThat(CpfValidator.isValid(390533447050L)).isFalse();
+        assertThat(CpfValidator.isValid("")).isFalse();
+        assertThat(CpfValidator.isValid((CharSequence) null)).isFalse();
+    }
+
+    @DisplayName("Deve concordar com a implementação por regex em entradas aleatórias, formatadas e numéricas")
+    @Test
+    void equivalente_ao_regex() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            long n = random.nextLong(100_000_000_000L);
+            String digits = Cpf.format(n);
+            String masked = digits.substring(0, 3) + '.' + digits.substring(3, 6) + '.' + digits.substring(6, 9)
+                    + '-' + digits.substring(9);
+            boolean expected = regexIsValid(digits);
+
+            assertThat(CpfValidator.isValid(digits)).as(digits).isEqualTo(expected);
+            assertThat(CpfValidator.isValid(masked)).as(masked).isEqualTo(expected);
+            assertThat(CpfValidator.isValid(n)).as(digits).isEqualTo(expected);
+        }
+        for (int d = 0; d <= 9; d++) {
+            String repeated = String.valueOf(d).repeat(11);
+            assertThat(CpfValidator.isValid(repeated)).isEqualTo(regexIsValid(repeated)).isFalse();
+        }
+    }
+
+    @DisplayName("Validação em coluna deve marcar cada posição e devolver o total de válidos")
+    @Test
+    void coluna() {
+        List<String> cpfs = new ArrayList<>(List.of("39053344705", "39053344704", "440.146.140-18", "abc"));
+        boolean[] valid = new boolean[cpfs.size()];
+
+        assertThat(CpfValidator.validate(cpfs, valid)).isEqualTo(2);
+        assertThat(valid).containsExactly(true, false, true, false);
+
+        boolean[] numeric = new boolean[3];
+        assertThat(CpfValidator.validate(new long[]{39053344705L, 11111111111L, 44014614018L}, numeric)).isEqualTo(2);
+        assertThat(numeric).containsExactly(true, false, true);
+    }
+}